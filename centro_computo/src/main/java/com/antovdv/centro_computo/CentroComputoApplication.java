@@ -2,10 +2,12 @@ package com.antovdv.centro_computo;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 
 @SpringBootApplication
+@EnableScheduling
 public class CentroComputoApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,222 @@
+package com.antovdv.centro_computo.agent;
+
+import com.antovdv.centro_computo.dto.FleetBatchDTO;
+import com.antovdv.centro_computo.dto.FleetSampleDTO;
+import com.antovdv.centro_computo.dto.SystemMetricsDTO;
+import com.antovdv.centro_computo.service.HostInventoryService;
+import com.antovdv.centro_computo.service.ProcessSnapshotService;
+import com.antovdv.centro_computo.service.SystemMonitorService;
+import oshi.SystemInfo;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agente de flota sin servidor web: reutiliza los recolectores OSHI de
+ * SystemMonitorService sin arrancar Spring y envía por HTTP a una instancia
+ * central (/api/fleet/ingest) lotes de muestras compactas. Si el envío falla
+ * las muestras se conservan para el siguiente lote, hasta max-buffered
+ * (se descartan las más antiguas).
+ *
+ * Uso: FleetAgent --central=http://host:8080 [--host=nombre] [--interval-ms=1000]
+ *                 [--batch-ms=10000] [--max-buffered=3600] [--top=5] [--token=secreto]
+ */
+public class FleetAgent {
+
+    private final URI ingestUri;
+    private final String host;
+    private final String token;
+    private final int topProcesses;
+    private final int maxBuffered;
+
+    private final HostInventoryService inventory;
+    private final SystemMonitorService monitor;
+    private final HttpClient httpClient;
+    private final JsonMapper jsonMapper = new JsonMapper();
+
+    // Muestras pendientes de enviar; se protege con el propio objeto
+    private final ArrayDeque<FleetSampleDTO> pending = new ArrayDeque<>();
+    private volatile List<Map<String, Object>> lastTopProcesses = List.of();
+    private long dropped;
+
+    public FleetAgent(String central, String host, String token, int topProcesses, int maxBuffered) {
+        this.ingestUri = URI.create(central.replaceAll("/+$", "") + "/api/fleet/ingest");
+        this.host = host;
+        this.token = token;
+        this.topProcesses = topProcesses;
+        this.maxBuffered = maxBuffered;
+
+        SystemInfo systemInfo = new SystemInfo();
+        this.inventory = new HostInventoryService(systemInfo);
+        this.monitor = new SystemMonitorService(systemInfo, new ProcessSnapshotService(systemInfo, 1000), inventory, 5000);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * Toma una muestra y la deja en el buffer de envío
+     */
+    void sample() {
+        try {
+            SystemMetricsDTO metrics = monitor.collectSystemMetrics();
+            FleetSampleDTO sample = toSample(metrics);
+            if (topProcesses > 0) {
+                lastTopProcesses = monitor.getTopProcesses(topProcesses);
+            }
+
+            synchronized (pending) {
+                if (pending.size() >= maxBuffered) {
+                    pending.pollFirst();
+                    dropped++;
+                }
+                pending.addLast(sample);
+            }
+        } catch (Exception e) {
+            System.err.println("Error tomando muestra: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Envía todo lo pendiente en un único POST; si falla se devuelve al buffer
+     */
+    void push() {
+        List<FleetSampleDTO> batch;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pending);
+            pending.clear();
+        }
+
+        FleetBatchDTO body = new FleetBatchDTO();
+        body.setHost(host);
+        body.setOsName(inventory.getInventory().getOsName());
+        body.setCpuCores(inventory.getInventory().getLogicalCores());
+        body.setSamples(batch);
+        body.setTopProcesses(lastTopProcesses);
+
+        try {
+            HttpRequest.Builder request = HttpRequest.newBuilder(ingestUri)
+                    .timeout(Duration.ofSeconds(10))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(jsonMapper.writeValueAsBytes(body)));
+            if (token != null && !token.isEmpty()) {
+                request.header("X-Fleet-Token", token);
+            }
+
+            HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException("HTTP " + response.statusCode() + ": " + response.body());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            requeue(batch);
+        } catch (Exception e) {
+            System.err.println("Error enviando lote a " + ingestUri + ": " + e.getMessage());
+            requeue(batch);
+        }
+    }
+
+    private void requeue(List<FleetSampleDTO> batch) {
+        synchronized (pending) {
+            // Las que llegaron mientras tanto van detrás; si no caben se pierden las más antiguas
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                pending.addFirst(batch.get(i));
+            }
+            while (pending.size() > maxBuffered) {
+                pending.pollFirst();
+                dropped++;
+            }
+        }
+    }
+
+    long getDropped() {
+        synchronized (pending) {
+            return dropped;
+        }
+    }
+
+    static FleetSampleDTO toSample(SystemMetricsDTO metrics) {
+        FleetSampleDTO sample = new FleetSampleDTO();
+        sample.setTimestamp(metrics.getTimestamp());
+        sample.setCpu(value(metrics.getCpuUsage()));
+        sample.setMemory(value(metrics.getMemoryUsagePercent()));
+        sample.setDisk(value(metrics.getDiskUsagePercent()));
+        sample.setMemoryUsedMb(metrics.getUsedMemory() != null ? metrics.getUsedMemory() : 0);
+        sample.setMemoryTotalMb(metrics.getTotalMemory() != null ? metrics.getTotalMemory() : 0);
+        sample.setDiskReadBytesPerSec(sum(metrics.getDisks(), "readBytesPerSec"));
+        sample.setDiskWriteBytesPerSec(sum(metrics.getDisks(), "writeBytesPerSec"));
+        sample.setNetRxBytesPerSec(sum(metrics.getNetworkInterfaces(), "rxBytesPerSec"));
+        sample.setNetTxBytesPerSec(sum(metrics.getNetworkInterfaces(), "txBytesPerSec"));
+        return sample;
+    }
+
+    private static double value(Double value) {
+        return value != null ? value : 0;
+    }
+
+    private static double sum(List<Map<String, Object>> devices, String key) {
+        double total = 0;
+        if (devices != null) {
+            for (Map<String, Object> device : devices) {
+                if (device.get(key) instanceof Number number) {
+                    total += number.doubleValue();
+                }
+            }
+        }
+        return total;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int eq = arg.indexOf('=');
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        String central = options.get("central");
+        if (central == null) {
+            System.err.println("Uso: FleetAgent --central=http://host:8080 [--host=nombre] [--interval-ms=1000] "
+                    + "[--batch-ms=10000] [--max-buffered=3600] [--top=5] [--token=secreto]");
+            System.exit(2);
+        }
+
+        String host = options.getOrDefault("host", InetAddress.getLocalHost().getHostName());
+        long intervalMs = Long.parseLong(options.getOrDefault("interval-ms", "1000"));
+        long batchMs = Long.parseLong(options.getOrDefault("batch-ms", "10000"));
+        int maxBuffered = Integer.parseInt(options.getOrDefault("max-buffered", "3600"));
+        int top = Integer.parseInt(options.getOrDefault("top", "5"));
+
+        FleetAgent agent = new FleetAgent(central, host, options.get("token"), top, maxBuffered);
+
+        // Muestreo y envío en hilos distintos: un envío lento no retrasa las muestras
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, r -> {
+            Thread thread = new Thread(r, "fleet-agent");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(agent::sample, 0, intervalMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(agent::push, batchMs, batchMs, TimeUnit.MILLISECONDS);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            scheduler.shutdown();
+            agent.push();
+        }, "fleet-agent-shutdown"));
+
+        System.out.println("Agente de flota '" + host + "' enviando a " + agent.ingestUri
+                + " cada " + batchMs + " ms (muestra cada " + intervalMs + " ms)");
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,18 @@
+package com.antovdv.centro_computo.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import oshi.SystemInfo;
+
+/**
+ * Una sola instancia de SystemInfo para toda la aplicación: OSHI cachea
+ * internamente hardware y sistema operativo, no tiene sentido crear varias.
+ */
+@Configuration
+public class OshiConfig {
+
+    @Bean
+    public SystemInfo systemInfo() {
+        return new SystemInfo();
+    }
+}
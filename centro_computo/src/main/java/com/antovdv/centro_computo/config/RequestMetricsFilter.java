@@ -0,0 +1,40 @@
+package com.antovdv.centro_computo.config;
+
+import com.antovdv.centro_computo.service.AppMetrics;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Mide la latencia de cada petición HTTP por método, ruta y estado
+ */
+@Component
+public class RequestMetricsFilter implements Filter {
+
+    private final AppMetrics appMetrics;
+
+    public RequestMetricsFilter(AppMetrics appMetrics) {
+        this.appMetrics = appMetrics;
+    }
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
+            throws IOException, ServletException {
+        long start = System.nanoTime();
+        int status = 500;
+        try {
+            chain.doFilter(req, res);
+            status = ((HttpServletResponse) res).getStatus();
+        } finally {
+            HttpServletRequest request = (HttpServletRequest) req;
+            // El patrón lo deja Spring MVC al resolver el handler; sin él la URI no tenía handler
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String route = pattern != null ? pattern.toString() : "unmatched";
+            appMetrics.recordHttpRequest(request.getMethod(), route, status, System.nanoTime() - start);
+        }
+    }
+}
@@ -2,10 +2,14 @@ package com.antovdv.centro_computo.controller;
 
 import com.antovdv.centro_computo.model.UserSession;
 import com.antovdv.centro_computo.service.DatabaseManagementService;
+import com.antovdv.centro_computo.service.TicketService;
+import com.antovdv.centro_computo.service.VersionedCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import jakarta.servlet.http.HttpSession;
 
 import java.util.HashMap;
@@ -20,6 +24,9 @@ public class DatabaseController {
     @Autowired
     private DatabaseManagementService databaseService;
 
+    @Autowired
+    private TicketService ticketService;
+
     /**
      * Obtener conexiones activas - ADMIN y TECNICO
      */
@@ -40,10 +47,11 @@ public class DatabaseController {
     }
 
     /**
-     * Obtener estadísticas de rendimiento - ADMIN y TECNICO
+     * Obtener estadísticas de rendimiento - ADMIN y TECNICO.
+     * Se cachean app.database.statistics.ttl-ms; con el mismo ETag se responde 304.
      */
     @GetMapping("/statistics")
-    public ResponseEntity<?> getStatistics(HttpSession session) {
+    public ResponseEntity<?> getStatistics(HttpSession session, WebRequest webRequest) {
         UserSession userSession = (UserSession) session.getAttribute("userSession");
 
         if (userSession == null) {
@@ -54,8 +62,11 @@ public class DatabaseController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        Map<String, Object> stats = databaseService.getDatabaseStatistics();
-        return ResponseEntity.ok(stats);
+        VersionedCache.Entry<Map<String, Object>> stats = databaseService.getCachedStatistics();
+        if (webRequest.checkNotModified("dbstats-" + stats.getETag(), stats.getLastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(stats.getValue());
     }
 
     /**
@@ -94,6 +105,12 @@ public class DatabaseController {
                 query, userSession.getEmail(), timeout
         );
 
+        // Una modificación desde la consola puede tocar cualquier tabla: invalidar versiones
+        if ("UPDATE".equals(result.get("type"))) {
+            ticketService.markChanged();
+            databaseService.invalidateStatistics();
+        }
+
         return ResponseEntity.ok(result);
     }
 
@@ -0,0 +1,126 @@
+package com.antovdv.centro_computo.controller;
+
+import com.antovdv.centro_computo.dto.FleetBatchDTO;
+import com.antovdv.centro_computo.service.FleetService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Modo flota: ingesta de los agentes (FleetAgent) y vistas de todos los hosts
+ */
+@RestController
+@RequestMapping("/api/fleet")
+@CrossOrigin(origins = "*")
+public class FleetController {
+
+    @Autowired
+    private FleetService fleetService;
+
+    /**
+     * Recibir un lote de muestras de un agente
+     */
+    @PostMapping("/ingest")
+    public ResponseEntity<Map<String, Object>> ingest(
+            @RequestHeader(value = "X-Fleet-Token", required = false) String token,
+            @RequestBody FleetBatchDTO batch) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (!fleetService.isAuthorized(token)) {
+            response.put("success", false);
+            response.put("error", "Token de flota no válido");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+        if (batch.getHost() == null || batch.getHost().trim().isEmpty()) {
+            response.put("success", false);
+            response.put("error", "El lote debe indicar el host");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        int accepted = fleetService.ingest(batch);
+        if (accepted < 0) {
+            response.put("success", false);
+            response.put("error", "Se alcanzó el máximo de hosts de la flota");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        }
+
+        response.put("success", true);
+        response.put("accepted", accepted);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/hosts")
+    public ResponseEntity<List<Map<String, Object>>> getHosts() {
+        return ResponseEntity.ok(fleetService.getHosts());
+    }
+
+    @GetMapping("/hosts/{host}")
+    public ResponseEntity<Map<String, Object>> getHost(@PathVariable String host) {
+        Map<String, Object> data = fleetService.getHost(host);
+        if (data == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(data);
+    }
+
+    /**
+     * Serie de una métrica de un host (por defecto la última hora)
+     */
+    @GetMapping("/hosts/{host}/history")
+    public ResponseEntity<Map<String, Object>> getHostHistory(
+            @PathVariable String host,
+            @RequestParam(defaultValue = "cpu") String metric,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to) {
+        if (!FleetService.getMetricNames().contains(metric)) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Métrica no encontrada: " + metric);
+            error.put("available", FleetService.getMetricNames());
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - 3_600_000L;
+        List<double[]> points = fleetService.getHistory(host, metric, start, end);
+        if (points == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("host", host);
+        response.put("metric", metric);
+        response.put("from", start);
+        response.put("to", end);
+        response.put("points", points);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Hosts con el valor más alto de una métrica en su última muestra
+     */
+    @GetMapping("/top")
+    public ResponseEntity<Object> getTopHosts(
+            @RequestParam(defaultValue = "cpu") String metric,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (!FleetService.getMetricNames().contains(metric)) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Métrica no encontrada: " + metric);
+            error.put("available", FleetService.getMetricNames());
+            return ResponseEntity.badRequest().body(error);
+        }
+        return ResponseEntity.ok(fleetService.getTopHosts(metric, Math.max(1, Math.min(limit, 100))));
+    }
+
+    /**
+     * Procesos con más CPU de toda la flota
+     */
+    @GetMapping("/top-processes")
+    public ResponseEntity<List<Map<String, Object>>> getTopProcesses(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(fleetService.getTopProcesses(Math.max(1, Math.min(limit, 200))));
+    }
+}
@@ -1,15 +1,33 @@
 package com.antovdv.centro_computo.controller;
 
 import com.antovdv.centro_computo.dto.SystemMetricsDTO;
+import com.antovdv.centro_computo.model.AlertRule;
+import com.antovdv.centro_computo.model.HostInventory;
+import com.antovdv.centro_computo.service.AdaptiveSamplingService;
 import com.antovdv.centro_computo.service.AlertService;
+import com.antovdv.centro_computo.service.AnomalyDetectorService;
+import com.antovdv.centro_computo.service.DashboardService;
+import com.antovdv.centro_computo.service.HostInventoryService;
+import com.antovdv.centro_computo.service.MetricArchiveService;
+import com.antovdv.centro_computo.service.MetricsCollectorService;
+import com.antovdv.centro_computo.service.MetricsHistoryService;
+import com.antovdv.centro_computo.service.MetricsStreamService;
+import com.antovdv.centro_computo.service.NotificationService;
 import com.antovdv.centro_computo.service.SystemMonitorService;
+import com.antovdv.centro_computo.service.VersionedCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/monitor")
@@ -19,38 +37,200 @@ public class MonitorController {
     @Autowired
     private SystemMonitorService monitorService;
 
+    @Autowired
+    private MetricsCollectorService metricsCollector;
+
+    @Autowired
+    private MetricsHistoryService historyService;
+
+    @Autowired
+    private MetricArchiveService archiveService;
+
+    @Autowired
+    private MetricsStreamService streamService;
+
     @Autowired
     private AlertService alertService;
 
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private AnomalyDetectorService anomalyDetector;
+
+    @Autowired
+    private HostInventoryService inventoryService;
+
+    @Autowired
+    private AdaptiveSamplingService adaptiveSampling;
+
     @GetMapping("/metrics")
     public ResponseEntity<SystemMetricsDTO> getSystemMetrics() {
-        SystemMetricsDTO metrics = monitorService.getSystemMetrics();
+        SystemMetricsDTO metrics = metricsCollector.getLatestMetrics();
         return ResponseEntity.ok(metrics);
     }
 
     @GetMapping("/processes")
     public ResponseEntity<List<Map<String, Object>>> getTopProcesses(
             @RequestParam(defaultValue = "100") int limit) {
-        List<Map<String, Object>> processes = monitorService.getTopProcesses(limit);
+        List<Map<String, Object>> processes = monitorService.getTopProcesses(Math.max(1, Math.min(limit, 1000)));
         return ResponseEntity.ok(processes);
     }
 
+    /**
+     * Información del sistema con ETag: si no cambió desde la versión que
+     * tiene el navegador se responde 304 sin cuerpo
+     */
     @GetMapping("/info")
-    public ResponseEntity<Map<String, Object>> getSystemInfo() {
-        Map<String, Object> info = monitorService.getSystemInfo();
-        return ResponseEntity.ok(info);
+    public ResponseEntity<Map<String, Object>> getSystemInfo(WebRequest webRequest) {
+        VersionedCache.Entry<Map<String, Object>> info = monitorService.getCachedSystemInfo();
+        if (webRequest.checkNotModified("info-" + info.getETag(), info.getLastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(info.getValue());
+    }
+
+    /**
+     * Coste medido de cada tier de muestreo, para ajustar periodos y presupuestos
+     */
+    @GetMapping("/collectors")
+    public ResponseEntity<List<Map<String, Object>>> getCollectors() {
+        return ResponseEntity.ok(metricsCollector.getCollectorStats());
+    }
+
+    /**
+     * Intervalo actual del muestreo adaptativo y sus últimos cambios
+     */
+    @GetMapping("/collectors/adaptive")
+    public ResponseEntity<Map<String, Object>> getAdaptiveSampling() {
+        return ResponseEntity.ok(adaptiveSampling.getStatus());
     }
 
+    /**
+     * Inventario estático del host (se carga al arrancar)
+     */
+    @GetMapping("/inventory")
+    public ResponseEntity<HostInventory> getInventory() {
+        return ResponseEntity.ok(inventoryService.getInventory());
+    }
+
+    /**
+     * Volver a leer el inventario, p. ej. tras cambiar hardware
+     */
+    @PostMapping("/inventory/refresh")
+    public ResponseEntity<HostInventory> refreshInventory() {
+        return ResponseEntity.ok(inventoryService.refresh());
+    }
+
+    /**
+     * Historial de una serie (cpu, memory, disk.*, net.*). from/to en epoch ms
+     * (por defecto la última hora) y step en segundos (por defecto ~300 puntos).
+     */
+    @GetMapping("/history")
+    public ResponseEntity<Map<String, Object>> getHistory(
+            @RequestParam String metric,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(required = false) Long step) {
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - 3_600_000L;
+
+        if (start >= end) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro from debe ser anterior a to");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        long stepSeconds = step != null ? step : Math.max(1, (end - start) / 1000 / 300);
+        Map<String, Object> history = historyService.getHistory(metric, start, end, stepSeconds);
+
+        if (history == null) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Métrica no encontrada: " + metric);
+            error.put("available", historyService.getSeriesNames());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+
+        return ResponseEntity.ok(history);
+    }
+
+    @GetMapping("/history/series")
+    public ResponseEntity<Set<String>> getHistorySeries() {
+        return ResponseEntity.ok(historyService.getSeriesNames());
+    }
+
+    /**
+     * Igual que /history pero leyendo el archivo comprimido en disco
+     * (semanas de datos, sobrevive a reinicios)
+     */
+    @GetMapping("/archive")
+    public ResponseEntity<Map<String, Object>> getArchivedHistory(
+            @RequestParam String metric,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(required = false) Long step) {
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - 86_400_000L;
+
+        if (start >= end) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro from debe ser anterior a to");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        long stepSeconds = step != null ? step : Math.max(1, (end - start) / 1000 / 300);
+        return ResponseEntity.ok(archiveService.getArchivedHistory(metric, start, end, stepSeconds));
+    }
+
+    @GetMapping("/archive/segments")
+    public ResponseEntity<List<Map<String, Object>>> getArchiveSegments() {
+        return ResponseEntity.ok(archiveService.getSegments());
+    }
+
+    /**
+     * Alertas activas: las reglas se evalúan en cada muestra, aquí solo se leen
+     */
     @GetMapping("/alerts")
     public ResponseEntity<List<Map<String, Object>>> checkAlerts() {
-        SystemMetricsDTO metrics = monitorService.getSystemMetrics();
-        List<Map<String, Object>> alerts = alertService.checkThresholds(metrics);
-        return ResponseEntity.ok(alerts);
+        return ResponseEntity.ok(alertService.getActiveAlerts());
+    }
+
+    /**
+     * Series vigiladas por el detector de anomalías (media y desviación EWMA,
+     * último z-score). Con all=false solo las que están ahora en anomalía.
+     */
+    @GetMapping("/anomalies")
+    public ResponseEntity<Map<String, Object>> getAnomalies(
+            @RequestParam(defaultValue = "true") boolean all) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("series", anomalyDetector.getSeriesStates(!all));
+        response.put("settings", anomalyDetector.getSettings());
+        return ResponseEntity.ok(response);
     }
 
+    /**
+     * Historial de alertas paginado. from/to en epoch ms (por defecto las
+     * últimas 24 h), page desde 0 y size hasta 500.
+     */
     @GetMapping("/alerts/history")
-    public ResponseEntity<List<Map<String, Object>>> getAlertHistory() {
-        return ResponseEntity.ok(alertService.getAlertHistory());
+    public ResponseEntity<Map<String, Object>> getAlertHistory(
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - 86_400_000L;
+
+        if (start > end || page < 0 || size < 1 || size > 500) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Parámetros inválidos: from <= to, page >= 0 y size entre 1 y 500");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        return ResponseEntity.ok(alertService.getAlertHistory(start, end, page, size));
     }
 
     @DeleteMapping("/alerts/history")
@@ -66,6 +246,42 @@ public class MonitorController {
         return ResponseEntity.ok(alertService.getThresholds());
     }
 
+    /**
+     * Estado del envío de notificaciones: en cola, enviadas, fallidas, descartadas, agrupadas
+     */
+    @GetMapping("/alerts/notifications")
+    public ResponseEntity<Map<String, Object>> getNotificationStats() {
+        return ResponseEntity.ok(notificationService.getStats());
+    }
+
+    @GetMapping("/alerts/rules")
+    public ResponseEntity<List<AlertRule>> getAlertRules() {
+        return ResponseEntity.ok(alertService.getRules());
+    }
+
+    /**
+     * Cambia una regla: fireLevel, clearLevel, forSeconds, cooldownSeconds, enabled
+     */
+    @PutMapping("/alerts/rules/{id}")
+    public ResponseEntity<Map<String, Object>> updateAlertRule(
+            @PathVariable String id,
+            @RequestBody Map<String, Object> changes) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            AlertRule rule = alertService.updateRule(id, changes);
+            if (rule == null) {
+                response.put("error", "Regla no encontrada: " + id);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
+            response.put("message", "Regla actualizada correctamente");
+            response.put("rule", rule);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @PutMapping("/alerts/thresholds")
     public ResponseEntity<Map<String, String>> updateThresholds(
             @RequestBody Map<String, Double> thresholds) {
@@ -84,20 +300,24 @@ public class MonitorController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Agregado del dashboard. Las secciones se obtienen en paralelo; las que no
+     * llegan a tiempo vienen con su último valor y marcadas en "sections"
+     */
     @GetMapping("/dashboard")
     public ResponseEntity<Map<String, Object>> getDashboardData() {
-        Map<String, Object> dashboard = new HashMap<>();
-
-        SystemMetricsDTO metrics = monitorService.getSystemMetrics();
-        List<Map<String, Object>> processes = monitorService.getTopProcesses(100);
-        List<Map<String, Object>> alerts = alertService.checkThresholds(metrics);
-        Map<String, Object> systemInfo = monitorService.getSystemInfo();
-
-        dashboard.put("metrics", metrics);
-        dashboard.put("topProcesses", processes);
-        dashboard.put("alerts", alerts);
-        dashboard.put("systemInfo", systemInfo);
+        return ResponseEntity.ok(dashboardService.getDashboard());
+    }
 
-        return ResponseEntity.ok(dashboard);
+    /**
+     * Stream SSE con los mismos datos que /dashboard, enviado en cada muestra
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamDashboard() {
+        SseEmitter emitter = streamService.subscribe();
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
     }
 }
\ No newline at end of file
@@ -1,10 +1,26 @@
 package com.antovdv.centro_computo.controller;
 
+import com.antovdv.centro_computo.model.UserSession;
+import com.antovdv.centro_computo.service.CommandAuditLog;
+import com.antovdv.centro_computo.service.CommandJob;
+import com.antovdv.centro_computo.service.CommandJobService;
+import com.antovdv.centro_computo.service.CommandOutputBuffer;
+import com.antovdv.centro_computo.service.CommandScheduler;
 import com.antovdv.centro_computo.service.ProcessManagerService;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,13 +33,39 @@ public class ProcessController {
     @Autowired
     private ProcessManagerService processManagerService;
 
+    @Autowired
+    private CommandJobService commandJobService;
+
+    @Autowired
+    private CommandAuditLog commandAuditLog;
+
     /**
-     * Ejecutar un comando externo
+     * Encolar un comando externo. Responde enseguida con el ID del trabajo;
+     * la salida se sigue en /jobs/{jobId}/stream y el resultado en /jobs/{jobId}/result.
+     * El usuario y su prioridad salen de la sesión - SOLO ADMIN y TECNICO
      */
     @PostMapping("/execute")
-    public ResponseEntity<Map<String, Object>> executeCommand(@RequestBody Map<String, String> request) {
+    public ResponseEntity<Map<String, Object>> executeCommand(@RequestBody Map<String, String> request,
+                                                              HttpSession session) {
+        UserSession userSession = (UserSession) session.getAttribute("userSession");
+
+        if (userSession == null) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("error", "No autenticado");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        }
+
+        if (!userSession.canExecuteCommands()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("error", "Solo administradores y técnicos pueden ejecutar comandos");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+        }
+
         String command = request.get("command");
-        String user = request.getOrDefault("user", "anonymous");
+        String user = userSession.getEmail();
+        CommandScheduler.Priority priority = CommandScheduler.Priority.forUserType(userSession.getUserType());
 
         if (command == null || command.trim().isEmpty()) {
             Map<String, Object> error = new HashMap<>();
@@ -32,8 +74,220 @@ public class ProcessController {
             return ResponseEntity.badRequest().body(error);
         }
 
-        Map<String, Object> result = processManagerService.executeCommand(command, user);
-        return ResponseEntity.ok(result);
+        CommandJob job;
+        try {
+            job = commandJobService.submit(command, user, priority);
+        } catch (CommandScheduler.QueueFullException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(e.isPerUser() ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(error);
+        }
+
+        Map<String, Object> response = job.toStatusMap();
+        response.put("success", true);
+        response.put("statusUrl", "/api/processes/jobs/" + job.getId());
+        response.put("streamUrl", "/api/processes/jobs/" + job.getId() + "/stream");
+        response.put("resultUrl", "/api/processes/jobs/" + job.getId() + "/result");
+        return ResponseEntity.accepted().body(response);
+    }
+
+    /**
+     * Trabajos recientes y ocupación del pool de ejecución. Los administradores
+     * ven todos los trabajos; el resto, solo los suyos
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<Map<String, Object>> getJobs(@RequestParam(defaultValue = "20") int limit,
+                                                       HttpSession session) {
+        UserSession userSession = (UserSession) session.getAttribute("userSession");
+
+        if (userSession == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("jobs", commandJobService.getJobs(limit, userSession.isAdmin() ? null : userSession.getEmail()));
+        response.put("executor", commandJobService.getStats());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Cola de comandos: en marcha y en cola, esperas por prioridad y ocupación
+     * por usuario - SOLO ADMIN
+     */
+    @GetMapping("/jobs/queue")
+    public ResponseEntity<Map<String, Object>> getQueue(HttpSession session) {
+        UserSession userSession = (UserSession) session.getAttribute("userSession");
+
+        if (userSession == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        if (!userSession.isAdmin()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(commandJobService.getQueueStats());
+    }
+
+    /**
+     * Trabajo que la sesión puede ver: cualquiera para un administrador, solo
+     * los propios para el resto. null si no existe o es de otro usuario (se
+     * responde 404 en ambos casos para no revelar los trabajos ajenos)
+     */
+    private CommandJob findVisibleJob(String jobId, UserSession userSession) {
+        CommandJob job = commandJobService.getJob(jobId);
+        if (job == null || userSession.isAdmin() || job.getUser().equals(userSession.getEmail())) {
+            return job;
+        }
+        return null;
+    }
+
+    /**
+     * Estado de un trabajo
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getJobStatus(@PathVariable String jobId, HttpSession session) {
+        UserSession userSession = (UserSession) session.getAttribute("userSession");
+
+        if (userSession == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        CommandJob job = findVisibleJob(jobId, userSession);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job.toStatusMap());
+    }
+
+    /**
+     * Salida de un trabajo por SSE, desde la línea "from"
+     */
+    @GetMapping(value = "/jobs/{jobId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamJob(@PathVariable String jobId,
+                                                @RequestParam(defaultValue = "0") long from,
+                                                HttpSession session) {
+        UserSession userSession = (UserSession) session.getAttribute("userSession");
+
+        if (userSession == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        if (findVisibleJob(jobId, userSession) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        SseEmitter emitter = commandJobService.stream(jobId, from);
+        if (emitter == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * Resultado final de un trabajo; 202 con el estado si todavía no terminó
+     */
+    @GetMapping("/jobs/{jobId}/result")
+    public ResponseEntity<Map<String, Object>> getJobResult(@PathVariable String jobId, HttpSession session) {
+        UserSession userSession = (UserSession) session.getAttribute("userSession");
+
+        if (userSession == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        CommandJob job = findVisibleJob(jobId, userSession);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!job.isFinished()) {
+            return ResponseEntity.accepted().body(job.toStatusMap());
+        }
+        return ResponseEntity.ok(job.toResultMap());
+    }
+
+    /**
+     * Log completo de un trabajo como text/plain. Admite Range (bytes=a-b,
+     * bytes=a- y bytes=-n) para descargarlo por partes o seguirlo.
+     */
+    @GetMapping("/jobs/{jobId}/output")
+    public void downloadJobOutput(@PathVariable String jobId,
+                                  @RequestHeader(value = "Range", required = false) String range,
+                                  HttpSession session,
+                                  HttpServletResponse response) throws IOException {
+        UserSession userSession = (UserSession) session.getAttribute("userSession");
+
+        if (userSession == null) {
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            return;
+        }
+
+        CommandJob job = findVisibleJob(jobId, userSession);
+        if (job == null) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        CommandOutputBuffer output = job.getOutputBuffer();
+        long size = output.getDownloadSize();
+        long start = 0;
+        long end = size - 1;
+
+        if (range != null && range.startsWith("bytes=") && !range.contains(",")) {
+            String[] parts = range.substring(6).trim().split("-", 2);
+            try {
+                if (parts[0].isEmpty()) {
+                    start = Math.max(0, size - Long.parseLong(parts[1].trim()));
+                } else {
+                    start = Long.parseLong(parts[0].trim());
+                    if (parts.length > 1 && !parts[1].isEmpty()) {
+                        end = Math.min(end, Long.parseLong(parts[1].trim()));
+                    }
+                }
+            } catch (NumberFormatException e) {
+                start = size;
+            }
+            if (start >= size || start > end) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader("Content-Range", "bytes */" + size);
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + size);
+        }
+
+        long count = Math.max(0, end - start + 1);
+        response.setContentType("text/plain;charset=UTF-8");
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setHeader("Content-Disposition", "attachment; filename=\"command-" + jobId + ".log\"");
+        response.setHeader("X-Output-Truncated", String.valueOf(output.isDownloadTruncated()));
+        response.setContentLengthLong(count);
+        output.transferTo(start, count, response.getOutputStream());
+    }
+
+    /**
+     * Cancelar un trabajo en cola o en ejecución
+     */
+    @PostMapping("/jobs/{jobId}/cancel")
+    public ResponseEntity<Map<String, Object>> cancelJob(@PathVariable String jobId, HttpSession session) {
+        UserSession userSession = (UserSession) session.getAttribute("userSession");
+
+        if (userSession == null) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("error", "No autenticado");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        }
+
+        CommandJob job = findVisibleJob(jobId, userSession);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        boolean cancelled = commandJobService.cancel(jobId);
+        Map<String, Object> response = job.toStatusMap();
+        response.put("success", cancelled);
+        response.put("message", cancelled ? "Cancelación solicitada" : "El trabajo ya había terminado");
+        return ResponseEntity.ok(response);
     }
 
     /**
@@ -53,44 +307,169 @@ public class ProcessController {
     }
 
     /**
-     * Terminar un proceso
+     * Terminar un proceso: primero de forma normal y, si no termina en
+     * graceMs (máximo 10 s), forzada. Con tree=true también todos sus
+     * descendientes. El usuario del log sale de la sesión - SOLO ADMIN y TECNICO
      */
     @DeleteMapping("/{pid}")
     public ResponseEntity<Map<String, Object>> killProcess(
             @PathVariable int pid,
-            @RequestParam(defaultValue = "anonymous") String user) {
-        Map<String, Object> result = processManagerService.killProcess(pid, user);
+            @RequestParam(defaultValue = "false") boolean tree,
+            @RequestParam(required = false) Long graceMs,
+            HttpSession session) {
+        UserSession userSession = (UserSession) session.getAttribute("userSession");
+
+        if (userSession == null) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("error", "No autenticado");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        }
+
+        if (!userSession.canExecuteCommands()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("error", "Solo administradores y técnicos pueden terminar procesos");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+        }
+
+        Map<String, Object> result = processManagerService.killProcess(pid, userSession.getEmail(), tree, graceMs);
         return ResponseEntity.ok(result);
     }
 
     /**
-     * Buscar procesos por nombre
+     * Terminar varios procesos en una petición:
+     * {"pids": [123, 456], "pattern": "chrome*", "tree": false, "graceMs": 5000}.
+     * El patrón no puede ser solo comodines - SOLO ADMIN y TECNICO
+     */
+    @PostMapping("/kill")
+    public ResponseEntity<Map<String, Object>> killProcesses(@RequestBody Map<String, Object> request,
+                                                             HttpSession session) {
+        UserSession userSession = (UserSession) session.getAttribute("userSession");
+
+        if (userSession == null) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("error", "No autenticado");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        }
+
+        if (!userSession.canExecuteCommands()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("error", "Solo administradores y técnicos pueden terminar procesos");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+        }
+
+        List<Integer> pids = new ArrayList<>();
+        if (request.get("pids") instanceof List<?> list) {
+            if (list.size() > processManagerService.getMaxKillTargets()) {
+                Map<String, Object> error = new HashMap<>();
+                error.put("success", false);
+                error.put("error", "Demasiados PIDs (máximo " + processManagerService.getMaxKillTargets() + ")");
+                return ResponseEntity.badRequest().body(error);
+            }
+            for (Object value : list) {
+                if (value instanceof Number number) {
+                    pids.add(number.intValue());
+                }
+            }
+        }
+        String pattern = request.get("pattern") instanceof String text ? text : null;
+        if (pids.isEmpty() && (pattern == null || pattern.isBlank())) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("error", "Indique una lista de PIDs o un patrón de nombre");
+            return ResponseEntity.badRequest().body(error);
+        }
+        if (pattern != null && !pattern.isBlank() && ProcessManagerService.isWildcardOnly(pattern)) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("error", "El patrón debe incluir parte del nombre, no solo comodines");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        boolean tree = Boolean.TRUE.equals(request.get("tree"));
+        Long graceMs = request.get("graceMs") instanceof Number number ? number.longValue() : null;
+
+        Map<String, Object> result = processManagerService.killProcesses(pids, pattern, tree, graceMs,
+                userSession.getEmail());
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Buscar procesos por nombre, usuario o línea de comandos
      */
     @GetMapping("/search")
     public ResponseEntity<List<Map<String, Object>>> searchProcesses(
-            @RequestParam String query) {
-        List<Map<String, Object>> results = processManagerService.searchProcesses(query);
+            @RequestParam String query,
+            @RequestParam(defaultValue = "50") int limit) {
+        List<Map<String, Object>> results = processManagerService.searchProcesses(query, Math.min(limit, 500));
         return ResponseEntity.ok(results);
     }
 
     /**
-     * Obtener log de comandos ejecutados
+     * Estado del índice de búsqueda (procesos, trigramas, última actualización)
+     */
+    @GetMapping("/search/stats")
+    public ResponseEntity<Map<String, Object>> getSearchStats() {
+        return ResponseEntity.ok(processManagerService.getSearchIndexStats());
+    }
+
+    /**
+     * Consultar el log de auditoría (comandos y procesos terminados), los más
+     * recientes primero. from/to admiten epoch ms o fecha ISO (2025-01-31T10:00)
      */
     @GetMapping("/logs")
-    public ResponseEntity<List<Map<String, Object>>> getCommandLog(
-            @RequestParam(defaultValue = "50") int limit) {
-        List<Map<String, Object>> logs = processManagerService.getCommandLog(limit);
+    public ResponseEntity<?> getCommandLog(
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String user,
+            @RequestParam(required = false) String type) {
+        Long fromMs;
+        Long toMs;
+        try {
+            fromMs = parseTime(from);
+            toMs = parseTime(to);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Fecha no válida: use epoch ms o yyyy-MM-ddTHH:mm[:ss]");
+            return ResponseEntity.badRequest().body(error);
+        }
+        List<Map<String, Object>> logs = processManagerService.getCommandLog(fromMs, toMs,
+                user != null && !user.isBlank() ? user.trim() : null,
+                type != null && !type.isBlank() ? type.trim() : null,
+                Math.min(limit, 1000));
         return ResponseEntity.ok(logs);
     }
 
+    private static Long parseTime(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String text = value.trim();
+        if (text.chars().allMatch(Character::isDigit)) {
+            return Long.parseLong(text);
+        }
+        return LocalDateTime.parse(text).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
     /**
-     * Limpiar log de comandos
+     * Estado del log de auditoría (segmentos, escrituras agrupadas, descartes)
+     */
+    @GetMapping("/logs/stats")
+    public ResponseEntity<Map<String, Object>> getCommandLogStats() {
+        return ResponseEntity.ok(commandAuditLog.getStats());
+    }
+
+    /**
+     * El log de auditoría es de solo anexado: no se puede vaciar desde la consola
      */
     @DeleteMapping("/logs")
     public ResponseEntity<Map<String, String>> clearCommandLog() {
-        processManagerService.clearCommandLog();
         Map<String, String> response = new HashMap<>();
-        response.put("message", "Log de comandos limpiado");
-        return ResponseEntity.ok(response);
+        response.put("message", "El log de auditoría no se puede borrar; las entradas se depuran al superar app.commands.audit.retention-days");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
     }
 }
\ No newline at end of file
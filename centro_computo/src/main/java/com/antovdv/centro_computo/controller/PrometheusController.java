@@ -0,0 +1,25 @@
+package com.antovdv.centro_computo.controller;
+
+import com.antovdv.centro_computo.service.PrometheusExporter;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * Endpoint de scrape para Prometheus
+ */
+@RestController
+public class PrometheusController {
+
+    @Autowired
+    private PrometheusExporter exporter;
+
+    @GetMapping(value = "/metrics", produces = PrometheusExporter.CONTENT_TYPE)
+    public void scrape(HttpServletResponse response) throws IOException {
+        response.setContentType(PrometheusExporter.CONTENT_TYPE);
+        exporter.scrape(response.getOutputStream());
+    }
+}
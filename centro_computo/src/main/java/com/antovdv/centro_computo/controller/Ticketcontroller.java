@@ -3,14 +3,17 @@ package com.antovdv.centro_computo.controller;
 import com.antovdv.centro_computo.model.UserSession;
 import com.antovdv.centro_computo.service.TicketService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import jakarta.servlet.http.HttpSession;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/tickets")
@@ -59,7 +62,9 @@ public class Ticketcontroller {
     }
 
     /**
-     * Obtener lista de tickets con filtros
+     * Obtener lista de tickets con filtros. El ETag combina la versión de los
+     * tickets con el usuario (cada uno ve una lista distinta); si no cambió se
+     * responde 304 sin consultar la base de datos.
      */
     @GetMapping("/list")
     public ResponseEntity<?> getTickets(
@@ -68,7 +73,8 @@ public class Ticketcontroller {
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String assignedTo,
             @RequestParam(required = false) String createdBy,
-            HttpSession session) {
+            HttpSession session,
+            WebRequest webRequest) {
 
         UserSession userSession = (UserSession) session.getAttribute("userSession");
 
@@ -76,12 +82,18 @@ public class Ticketcontroller {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
+        String etag = "tickets-" + ticketService.getETag() + "-"
+                + Integer.toHexString(Objects.hash(userSession.getEmail(), userSession.getUserType()));
+        if (webRequest.checkNotModified(etag, ticketService.getLastModified())) {
+            return null;
+        }
+
         List<Map<String, Object>> tickets = ticketService.getTickets(
                 status, priority, category, assignedTo, createdBy,
                 userSession.getEmail(), userSession.getUserType()
         );
 
-        return ResponseEntity.ok(tickets);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(tickets);
     }
 
     /**
@@ -3,15 +3,41 @@ package com.antovdv.centro_computo;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
 
 public class database {
     private static final String URL = "jdbc:mysql://localhost:3306/centro_computo";
     private static final String USER = "root";
     private static final String PASS = "";
 
+    // Cada operación abre su conexión: contarlas da el número de llamadas a la BD (/metrics)
+    private static final LongAdder connections = new LongAdder();
+    private static final LongAdder connectionErrors = new LongAdder();
+    private static final LongAdder connectNanos = new LongAdder();
+
     public static Connection getConection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASS);
+        long start = System.nanoTime();
+        try {
+            Connection conn = DriverManager.getConnection(URL, USER, PASS);
+            connections.increment();
+            return conn;
+        } catch (SQLException e) {
+            connectionErrors.increment();
+            throw e;
+        } finally {
+            connectNanos.add(System.nanoTime() - start);
+        }
     }
 
+    public static long getConnectionCount() {
+        return connections.sum();
+    }
 
+    public static long getConnectionErrorCount() {
+        return connectionErrors.sum();
+    }
+
+    public static long getConnectNanos() {
+        return connectNanos.sum();
+    }
 }
@@ -0,0 +1,59 @@
+package com.antovdv.centro_computo.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lote de muestras de un host enviado a /api/fleet/ingest
+ */
+public class FleetBatchDTO {
+    private String host;
+    private String osName;
+    private Integer cpuCores;
+    private List<FleetSampleDTO> samples;
+
+    // Procesos con más CPU en la última muestra
+    private List<Map<String, Object>> topProcesses;
+
+    public FleetBatchDTO() {}
+
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public String getOsName() {
+        return osName;
+    }
+
+    public void setOsName(String osName) {
+        this.osName = osName;
+    }
+
+    public Integer getCpuCores() {
+        return cpuCores;
+    }
+
+    public void setCpuCores(Integer cpuCores) {
+        this.cpuCores = cpuCores;
+    }
+
+    public List<FleetSampleDTO> getSamples() {
+        return samples;
+    }
+
+    public void setSamples(List<FleetSampleDTO> samples) {
+        this.samples = samples;
+    }
+
+    public List<Map<String, Object>> getTopProcesses() {
+        return topProcesses;
+    }
+
+    public void setTopProcesses(List<Map<String, Object>> topProcesses) {
+        this.topProcesses = topProcesses;
+    }
+}
@@ -0,0 +1,106 @@
+package com.antovdv.centro_computo.dto;
+
+/**
+ * Muestra compacta que envía un agente de flota: solo cifras agregadas del
+ * host, sin el detalle por disco o interfaz de SystemMetricsDTO
+ */
+public class FleetSampleDTO {
+    private long timestamp;
+
+    // Porcentajes
+    private double cpu;
+    private double memory;
+    private double disk;
+
+    // Memoria en MB
+    private long memoryUsedMb;
+    private long memoryTotalMb;
+
+    // Tasas sumadas de todos los discos / interfaces
+    private double diskReadBytesPerSec;
+    private double diskWriteBytesPerSec;
+    private double netRxBytesPerSec;
+    private double netTxBytesPerSec;
+
+    public FleetSampleDTO() {}
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public double getCpu() {
+        return cpu;
+    }
+
+    public void setCpu(double cpu) {
+        this.cpu = cpu;
+    }
+
+    public double getMemory() {
+        return memory;
+    }
+
+    public void setMemory(double memory) {
+        this.memory = memory;
+    }
+
+    public double getDisk() {
+        return disk;
+    }
+
+    public void setDisk(double disk) {
+        this.disk = disk;
+    }
+
+    public long getMemoryUsedMb() {
+        return memoryUsedMb;
+    }
+
+    public void setMemoryUsedMb(long memoryUsedMb) {
+        this.memoryUsedMb = memoryUsedMb;
+    }
+
+    public long getMemoryTotalMb() {
+        return memoryTotalMb;
+    }
+
+    public void setMemoryTotalMb(long memoryTotalMb) {
+        this.memoryTotalMb = memoryTotalMb;
+    }
+
+    public double getDiskReadBytesPerSec() {
+        return diskReadBytesPerSec;
+    }
+
+    public void setDiskReadBytesPerSec(double diskReadBytesPerSec) {
+        this.diskReadBytesPerSec = diskReadBytesPerSec;
+    }
+
+    public double getDiskWriteBytesPerSec() {
+        return diskWriteBytesPerSec;
+    }
+
+    public void setDiskWriteBytesPerSec(double diskWriteBytesPerSec) {
+        this.diskWriteBytesPerSec = diskWriteBytesPerSec;
+    }
+
+    public double getNetRxBytesPerSec() {
+        return netRxBytesPerSec;
+    }
+
+    public void setNetRxBytesPerSec(double netRxBytesPerSec) {
+        this.netRxBytesPerSec = netRxBytesPerSec;
+    }
+
+    public double getNetTxBytesPerSec() {
+        return netTxBytesPerSec;
+    }
+
+    public void setNetTxBytesPerSec(double netTxBytesPerSec) {
+        this.netTxBytesPerSec = netTxBytesPerSec;
+    }
+}
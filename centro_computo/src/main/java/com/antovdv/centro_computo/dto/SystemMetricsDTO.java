@@ -5,10 +5,13 @@ import java.util.Map;
 
 public class SystemMetricsDTO {
 
+    // Muestreo: instante de la muestra (epoch ms) y ventana medida para la CPU (ms)
+    private Long timestamp;
+    private Long sampleWindowMs;
+
     // CPU
     private Double cpuUsage;
     private Integer cpuCores;
-    private String cpuModel;
 
     // Memoria
     private Long totalMemory;
@@ -16,16 +19,37 @@ public class SystemMetricsDTO {
     private Long availableMemory;
     private Double memoryUsagePercent;
 
-    // Disco
+    // Disco (diskUsagePercent: el sistema de archivos local más lleno)
     private List<Map<String, Object>> disks;
+    private List<Map<String, Object>> fileSystems;
+    private Double diskUsagePercent;
 
     // Red
     private List<Map<String, Object>> networkInterfaces;
 
+    // Sensores (cpuTemperature, cpuVoltage, fanSpeeds); pueden no estar disponibles
+    private Map<String, Object> sensors;
+
     // Constructores
     public SystemMetricsDTO() {}
 
     // Getters y Setters
+    public Long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public Long getSampleWindowMs() {
+        return sampleWindowMs;
+    }
+
+    public void setSampleWindowMs(Long sampleWindowMs) {
+        this.sampleWindowMs = sampleWindowMs;
+    }
+
     public Double getCpuUsage() {
         return cpuUsage;
     }
@@ -42,14 +66,6 @@ public class SystemMetricsDTO {
         this.cpuCores = cpuCores;
     }
 
-    public String getCpuModel() {
-        return cpuModel;
-    }
-
-    public void setCpuModel(String cpuModel) {
-        this.cpuModel = cpuModel;
-    }
-
     public Long getTotalMemory() {
         return totalMemory;
     }
@@ -90,6 +106,22 @@ public class SystemMetricsDTO {
         this.disks = disks;
     }
 
+    public List<Map<String, Object>> getFileSystems() {
+        return fileSystems;
+    }
+
+    public void setFileSystems(List<Map<String, Object>> fileSystems) {
+        this.fileSystems = fileSystems;
+    }
+
+    public Double getDiskUsagePercent() {
+        return diskUsagePercent;
+    }
+
+    public void setDiskUsagePercent(Double diskUsagePercent) {
+        this.diskUsagePercent = diskUsagePercent;
+    }
+
     public List<Map<String, Object>> getNetworkInterfaces() {
         return networkInterfaces;
     }
@@ -97,4 +129,12 @@ public class SystemMetricsDTO {
     public void setNetworkInterfaces(List<Map<String, Object>> networkInterfaces) {
         this.networkInterfaces = networkInterfaces;
     }
-}
\ No newline at end of file
+
+    public Map<String, Object> getSensors() {
+        return sensors;
+    }
+
+    public void setSensors(Map<String, Object> sensors) {
+        this.sensors = sensors;
+    }
+}
@@ -0,0 +1,131 @@
+package com.antovdv.centro_computo.model;
+
+/**
+ * Regla de alerta sobre una métrica de la muestra (cpu, memory, disk).
+ * Se dispara cuando el valor supera fireLevel durante forSeconds seguidos y
+ * se resuelve cuando baja de clearLevel (histéresis). Tras dispararse no
+ * vuelve a hacerlo hasta pasados cooldownSeconds.
+ */
+public class AlertRule {
+    private String id;
+    private String type;
+    private String metric;
+    private String severity;
+    private double fireLevel;
+    private double clearLevel;
+    private long forSeconds;
+    private long cooldownSeconds;
+    private boolean enabled = true;
+
+    public AlertRule() {}
+
+    public AlertRule(String id, String type, String metric, String severity,
+                     double fireLevel, double clearLevel, long forSeconds, long cooldownSeconds) {
+        this.id = id;
+        this.type = type;
+        this.metric = metric;
+        this.severity = severity;
+        this.fireLevel = fireLevel;
+        this.clearLevel = clearLevel;
+        this.forSeconds = forSeconds;
+        this.cooldownSeconds = cooldownSeconds;
+    }
+
+    public AlertRule copy() {
+        AlertRule copy = new AlertRule(id, type, metric, severity, fireLevel, clearLevel, forSeconds, cooldownSeconds);
+        copy.setEnabled(enabled);
+        return copy;
+    }
+
+    /**
+     * Lanza IllegalArgumentException si la regla no es coherente: niveles no
+     * finitos, clearLevel por encima de fireLevel (la regla se dispara al
+     * superar fireLevel y se resuelve al bajar de clearLevel) o tiempos negativos
+     */
+    public void validate() {
+        if (!Double.isFinite(fireLevel) || !Double.isFinite(clearLevel)) {
+            throw new IllegalArgumentException("fireLevel y clearLevel deben ser números finitos");
+        }
+        if (clearLevel > fireLevel) {
+            throw new IllegalArgumentException("clearLevel no puede ser mayor que fireLevel");
+        }
+        if (forSeconds < 0) {
+            throw new IllegalArgumentException("forSeconds no puede ser negativo");
+        }
+        if (cooldownSeconds < 0) {
+            throw new IllegalArgumentException("cooldownSeconds no puede ser negativo");
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    public void setMetric(String metric) {
+        this.metric = metric;
+    }
+
+    public String getSeverity() {
+        return severity;
+    }
+
+    public void setSeverity(String severity) {
+        this.severity = severity;
+    }
+
+    public double getFireLevel() {
+        return fireLevel;
+    }
+
+    public void setFireLevel(double fireLevel) {
+        this.fireLevel = fireLevel;
+    }
+
+    public double getClearLevel() {
+        return clearLevel;
+    }
+
+    public void setClearLevel(double clearLevel) {
+        this.clearLevel = clearLevel;
+    }
+
+    public long getForSeconds() {
+        return forSeconds;
+    }
+
+    public void setForSeconds(long forSeconds) {
+        this.forSeconds = forSeconds;
+    }
+
+    public long getCooldownSeconds() {
+        return cooldownSeconds;
+    }
+
+    public void setCooldownSeconds(long cooldownSeconds) {
+        this.cooldownSeconds = cooldownSeconds;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+}
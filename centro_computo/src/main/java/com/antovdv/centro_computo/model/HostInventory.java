@@ -0,0 +1,159 @@
+package com.antovdv.centro_computo.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inventario del host: datos que no cambian mientras la máquina está
+ * encendida (modelo de CPU, versión del SO, fabricante, nombres de discos e
+ * interfaces). Se carga una vez y solo se recarga a petición, separado de
+ * las métricas que se muestrean continuamente.
+ */
+public class HostInventory {
+    // Se incrementa en cada recarga; loadedAt en epoch ms
+    private long version;
+    private long loadedAt;
+
+    // Sistema operativo
+    private String osName;
+    private String osVersion;
+    private String manufacturer;
+    private int bitness;
+    private String hostName;
+
+    // Equipo
+    private String computerManufacturer;
+    private String computerModel;
+
+    // Procesador y memoria
+    private String cpuModel;
+    private int physicalCores;
+    private int logicalCores;
+    private long totalMemoryMb;
+
+    // Discos (name, model, serial, sizeGb) e interfaces (name, displayName, macAddress)
+    private List<Map<String, Object>> disks;
+    private List<Map<String, Object>> networkInterfaces;
+
+    public HostInventory() {}
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    public void setLoadedAt(long loadedAt) {
+        this.loadedAt = loadedAt;
+    }
+
+    public String getOsName() {
+        return osName;
+    }
+
+    public void setOsName(String osName) {
+        this.osName = osName;
+    }
+
+    public String getOsVersion() {
+        return osVersion;
+    }
+
+    public void setOsVersion(String osVersion) {
+        this.osVersion = osVersion;
+    }
+
+    public String getManufacturer() {
+        return manufacturer;
+    }
+
+    public void setManufacturer(String manufacturer) {
+        this.manufacturer = manufacturer;
+    }
+
+    public int getBitness() {
+        return bitness;
+    }
+
+    public void setBitness(int bitness) {
+        this.bitness = bitness;
+    }
+
+    public String getHostName() {
+        return hostName;
+    }
+
+    public void setHostName(String hostName) {
+        this.hostName = hostName;
+    }
+
+    public String getComputerManufacturer() {
+        return computerManufacturer;
+    }
+
+    public void setComputerManufacturer(String computerManufacturer) {
+        this.computerManufacturer = computerManufacturer;
+    }
+
+    public String getComputerModel() {
+        return computerModel;
+    }
+
+    public void setComputerModel(String computerModel) {
+        this.computerModel = computerModel;
+    }
+
+    public String getCpuModel() {
+        return cpuModel;
+    }
+
+    public void setCpuModel(String cpuModel) {
+        this.cpuModel = cpuModel;
+    }
+
+    public int getPhysicalCores() {
+        return physicalCores;
+    }
+
+    public void setPhysicalCores(int physicalCores) {
+        this.physicalCores = physicalCores;
+    }
+
+    public int getLogicalCores() {
+        return logicalCores;
+    }
+
+    public void setLogicalCores(int logicalCores) {
+        this.logicalCores = logicalCores;
+    }
+
+    public long getTotalMemoryMb() {
+        return totalMemoryMb;
+    }
+
+    public void setTotalMemoryMb(long totalMemoryMb) {
+        this.totalMemoryMb = totalMemoryMb;
+    }
+
+    public List<Map<String, Object>> getDisks() {
+        return disks;
+    }
+
+    public void setDisks(List<Map<String, Object>> disks) {
+        this.disks = disks;
+    }
+
+    public List<Map<String, Object>> getNetworkInterfaces() {
+        return networkInterfaces;
+    }
+
+    public void setNetworkInterfaces(List<Map<String, Object>> networkInterfaces) {
+        this.networkInterfaces = networkInterfaces;
+    }
+}
@@ -0,0 +1,136 @@
+package com.antovdv.centro_computo.service;
+
+import com.antovdv.centro_computo.dto.SystemMetricsDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Decide el intervalo del tier core tras cada muestra. Si la CPU o la
+ * memoria están a menos de near-margin puntos del umbral de su regla de
+ * alerta (o por encima), o cambian más de fast-change puntos por segundo,
+ * se pasa directamente al intervalo mínimo. Tras stable-samples muestras
+ * tranquilas seguidas el intervalo se duplica, hasta el máximo. Cada cambio
+ * queda registrado, y el intervalo real de cada muestra se guarda en la
+ * serie sampler.intervalMs del historial.
+ */
+@Service
+public class AdaptiveSamplingService {
+
+    private static final int MAX_CHANGES = 50;
+
+    private final AlertService alertService;
+    private final boolean enabled;
+    private final long baseIntervalMs;
+    private final long minIntervalMs;
+    private final long maxIntervalMs;
+    private final double nearMargin;
+    private final double fastChangePerSecond;
+    private final int stableSamples;
+
+    private long intervalMs;
+    private int stableCount;
+    private long previousTimestamp;
+    private double previousCpu = Double.NaN;
+    private double previousMemory = Double.NaN;
+    private final Deque<Map<String, Object>> changes = new ArrayDeque<>();
+
+    public AdaptiveSamplingService(AlertService alertService,
+                                   @Value("${app.monitoring.adaptive.enabled:true}") boolean enabled,
+                                   @Value("${app.monitoring.collectors.core.period-ms:${app.monitoring.sample-interval-ms:1000}}") long baseIntervalMs,
+                                   @Value("${app.monitoring.adaptive.min-interval-ms:500}") long minIntervalMs,
+                                   @Value("${app.monitoring.adaptive.max-interval-ms:10000}") long maxIntervalMs,
+                                   @Value("${app.monitoring.adaptive.near-margin:10.0}") double nearMargin,
+                                   @Value("${app.monitoring.adaptive.fast-change-per-second:15.0}") double fastChangePerSecond,
+                                   @Value("${app.monitoring.adaptive.stable-samples:10}") int stableSamples) {
+        this.alertService = alertService;
+        this.enabled = enabled;
+        this.baseIntervalMs = baseIntervalMs;
+        this.minIntervalMs = Math.min(minIntervalMs, baseIntervalMs);
+        this.maxIntervalMs = Math.max(maxIntervalMs, baseIntervalMs);
+        this.nearMargin = nearMargin;
+        this.fastChangePerSecond = fastChangePerSecond;
+        this.stableSamples = stableSamples;
+        this.intervalMs = baseIntervalMs;
+    }
+
+    /**
+     * Intervalo hasta la siguiente muestra del tier core, a partir de la que se acaba de tomar
+     */
+    public synchronized long nextInterval(SystemMetricsDTO metrics) {
+        if (!enabled) {
+            return baseIntervalMs;
+        }
+        long timestamp = metrics.getTimestamp() != null ? metrics.getTimestamp() : System.currentTimeMillis();
+        double cpu = metrics.getCpuUsage() != null ? metrics.getCpuUsage() : Double.NaN;
+        double memory = metrics.getMemoryUsagePercent() != null ? metrics.getMemoryUsagePercent() : Double.NaN;
+
+        String reason = null;
+        if (isNear(cpu, alertService.getCpuThreshold()) || isNear(memory, alertService.getMemoryThreshold())) {
+            reason = "near-threshold";
+        } else if (isFast(previousCpu, cpu, timestamp) || isFast(previousMemory, memory, timestamp)) {
+            reason = "fast-change";
+        }
+        previousCpu = cpu;
+        previousMemory = memory;
+        previousTimestamp = timestamp;
+
+        long target = intervalMs;
+        if (reason != null) {
+            stableCount = 0;
+            target = minIntervalMs;
+        } else if (++stableCount >= stableSamples) {
+            stableCount = 0;
+            target = Math.min(maxIntervalMs, intervalMs * 2);
+            reason = "stable";
+        }
+
+        if (target != intervalMs) {
+            Map<String, Object> change = new HashMap<>();
+            change.put("timestamp", timestamp);
+            change.put("fromMs", intervalMs);
+            change.put("toMs", target);
+            change.put("reason", reason);
+            change.put("cpu", cpu);
+            change.put("memory", memory);
+            if (changes.size() >= MAX_CHANGES) {
+                changes.pollFirst();
+            }
+            changes.addLast(change);
+            intervalMs = target;
+        }
+        return intervalMs;
+    }
+
+    private boolean isNear(double value, double threshold) {
+        return !Double.isNaN(value) && threshold > 0 && value >= threshold - nearMargin;
+    }
+
+    private boolean isFast(double previous, double current, long timestamp) {
+        long elapsed = timestamp - previousTimestamp;
+        if (Double.isNaN(previous) || Double.isNaN(current) || elapsed <= 0) {
+            return false;
+        }
+        return Math.abs(current - previous) * 1000.0 / elapsed >= fastChangePerSecond;
+    }
+
+    /**
+     * Configuración, intervalo actual y últimos cambios (el más reciente primero)
+     */
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("enabled", enabled);
+        status.put("intervalMs", enabled ? intervalMs : baseIntervalMs);
+        status.put("baseIntervalMs", baseIntervalMs);
+        status.put("minIntervalMs", minIntervalMs);
+        status.put("maxIntervalMs", maxIntervalMs);
+        status.put("nearMargin", nearMargin);
+        status.put("fastChangePerSecond", fastChangePerSecond);
+        status.put("stableSamples", stableSamples);
+        List<Map<String, Object>> recent = new ArrayList<>(changes);
+        Collections.reverse(recent);
+        status.put("changes", recent);
+        return status;
+    }
+}
@@ -0,0 +1,107 @@
+package com.antovdv.centro_computo.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Últimas alertas en un buffer circular sin bloqueos. Cada escritor reserva
+ * una posición con un contador atómico y publica ahí su registro; los
+ * lectores recorren las posiciones y descartan las que ya han sido
+ * sobrescritas comprobando el número de secuencia.
+ */
+public class AlertRingBuffer {
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int capacity;
+    private final AtomicLong next = new AtomicLong();
+    // Secuencias anteriores a esta se consideran borradas (clear)
+    private volatile long clearedBefore;
+
+    public AlertRingBuffer(int capacity) {
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    public void add(long timestamp, Map<String, Object> alert) {
+        long seq = next.getAndIncrement();
+        slots.set((int) (seq % capacity), new Entry(seq, timestamp, alert));
+    }
+
+    public void clear() {
+        clearedBefore = next.get();
+    }
+
+    /**
+     * true si alguna alerta posterior al último clear ya se perdió por falta de
+     * espacio y no tiene timestamp &gt;= from, es decir, si el buffer no puede
+     * responder por sí solo desde from
+     */
+    public boolean isIncompleteSince(long from) {
+        long end = next.get();
+        long firstKept = Math.max(clearedBefore, end - capacity);
+        if (firstKept == clearedBefore) {
+            return false;
+        }
+        Entry oldest = slots.get((int) (firstKept % capacity));
+        return oldest == null || oldest.seq != firstKept || oldest.timestamp > from;
+    }
+
+    /**
+     * Alertas con timestamp en [from, to], de la más reciente a la más antigua,
+     * saltando las offset primeras y devolviendo como mucho limit
+     */
+    public List<Map<String, Object>> query(long from, long to, int offset, int limit) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        long end = next.get();
+        long start = Math.max(clearedBefore, end - capacity);
+        int skipped = 0;
+
+        for (long seq = end - 1; seq >= start && result.size() < limit; seq--) {
+            Entry entry = slots.get((int) (seq % capacity));
+            // null: reservada pero aún sin publicar; otra secuencia: ya sobrescrita
+            if (entry == null || entry.seq != seq) {
+                continue;
+            }
+            if (entry.timestamp < from || entry.timestamp > to) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            result.add(entry.alert);
+        }
+        return result;
+    }
+
+    /**
+     * Número de alertas en [from, to] que siguen en el buffer
+     */
+    public int count(long from, long to) {
+        long end = next.get();
+        long start = Math.max(clearedBefore, end - capacity);
+        int count = 0;
+        for (long seq = start; seq < end; seq++) {
+            Entry entry = slots.get((int) (seq % capacity));
+            if (entry != null && entry.seq == seq && entry.timestamp >= from && entry.timestamp <= to) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static final class Entry {
+        final long seq;
+        final long timestamp;
+        final Map<String, Object> alert;
+
+        Entry(long seq, long timestamp, Map<String, Object> alert) {
+            this.seq = seq;
+            this.timestamp = timestamp;
+            this.alert = alert;
+        }
+    }
+}
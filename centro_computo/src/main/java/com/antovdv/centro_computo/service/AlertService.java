@@ -1,108 +1,388 @@
 package com.antovdv.centro_computo.service;
 
 import com.antovdv.centro_computo.dto.SystemMetricsDTO;
+import com.antovdv.centro_computo.model.AlertRule;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * Evalúa las reglas de alerta sobre cada muestra del recolector (no en cada
+ * petición HTTP). Cada regla guarda su propio estado, así que evaluar una
+ * muestra cuesta O(1) por regla. Al historial solo llegan las transiciones:
+ * cuando una alerta se dispara y cuando se resuelve.
+ */
 @Service
-public class  AlertService {
+public class AlertService implements MetricsListener {
 
-    // Umbrales configurables
-    private double cpuThreshold = 80.0;
-    private double memoryThreshold = 85.0;
-    private double diskThreshold = 90.0;
+    // Longitud de alerts.rule_id en bbdd.sql
+    static final int MAX_RULE_ID_LENGTH = 50;
+    private static final String ANOMALY_PREFIX = "anomaly:";
 
-    private List<Map<String, Object>> alertHistory = new ArrayList<>();
+    private final double hysteresis;
+    private final List<RuleState> rules = new CopyOnWriteArrayList<>();
+    // Anomalías abiertas por serie (las notifica AnomalyDetectorService)
+    private final Map<String, Map<String, Object>> activeAnomalies = new ConcurrentHashMap<>();
 
-    public List<Map<String, Object>> checkThresholds(SystemMetricsDTO metrics) {
-        List<Map<String, Object>> alerts = new ArrayList<>();
+    // Historial reciente en memoria (sin bloqueos) y persistido en la tabla alerts
+    private final AlertRingBuffer alertHistory;
+    private final AlertStore alertStore;
+    private final NotificationService notificationService;
+    // Desde cuándo el buffer en memoria tiene todas las alertas (arranque o último clear)
+    private volatile long historySince = System.currentTimeMillis();
+
+    public AlertService(AlertStore alertStore,
+                        NotificationService notificationService,
+                        @Value("${app.monitoring.alerts.history-size:1000}") int historySize,
+                        @Value("${app.monitoring.cpu.threshold:80.0}") double cpuThreshold,
+                        @Value("${app.monitoring.memory.threshold:85.0}") double memoryThreshold,
+                        @Value("${app.monitoring.disk.threshold:90.0}") double diskThreshold,
+                        @Value("${app.monitoring.alerts.hysteresis:5.0}") double hysteresis,
+                        @Value("${app.monitoring.alerts.for-seconds:10}") long forSeconds,
+                        @Value("${app.monitoring.alerts.cooldown-seconds:300}") long cooldownSeconds) {
+        this.hysteresis = hysteresis;
+        this.alertStore = alertStore;
+        this.notificationService = notificationService;
+        this.alertHistory = new AlertRingBuffer(historySize);
+        rules.add(new RuleState(new AlertRule("cpu", "CPU", "cpu", "HIGH",
+                cpuThreshold, cpuThreshold - hysteresis, forSeconds, cooldownSeconds)));
+        rules.add(new RuleState(new AlertRule("memory", "MEMORY", "memory", "HIGH",
+                memoryThreshold, memoryThreshold - hysteresis, forSeconds, cooldownSeconds)));
+        rules.add(new RuleState(new AlertRule("disk", "DISK", "disk", "HIGH",
+                diskThreshold, diskThreshold - hysteresis, forSeconds, cooldownSeconds)));
+    }
+
+    @Override
+    public void onSample(SystemMetricsDTO metrics) {
+        long timestamp = metrics.getTimestamp() != null ? metrics.getTimestamp() : System.currentTimeMillis();
+
+        for (RuleState state : rules) {
+            Double value = metricValue(state.rule.getMetric(), metrics);
+            if (value == null) {
+                continue;
+            }
+            switch (state.evaluate(value, timestamp)) {
+                case FIRED -> addToHistory(timestamp, createAlert(state, "FIRING", value, timestamp));
+                case RESOLVED -> addToHistory(timestamp, createAlert(state, "RESOLVED", value, timestamp));
+                default -> {
+                }
+            }
+        }
+    }
 
-        // Verificar CPU
-        if (metrics.getCpuUsage() > cpuThreshold) {
-            Map<String, Object> alert = createAlert(
-                    "CPU",
-                    "HIGH",
-                    "Uso de CPU alto: " + metrics.getCpuUsage() + "%",
-                    metrics.getCpuUsage()
-            );
-            alerts.add(alert);
-            alertHistory.add(alert);
+    private static Double metricValue(String metric, SystemMetricsDTO metrics) {
+        return switch (metric) {
+            case "cpu" -> metrics.getCpuUsage();
+            case "memory" -> metrics.getMemoryUsagePercent();
+            case "disk" -> metrics.getDiskUsagePercent();
+            default -> null;
+        };
+    }
+
+    /**
+     * Alertas disparadas y todavía sin resolver, con el último valor medido
+     */
+    public List<Map<String, Object>> getActiveAlerts() {
+        List<Map<String, Object>> alerts = new ArrayList<>();
+        for (RuleState state : rules) {
+            if (state.firing) {
+                Map<String, Object> alert = createAlert(state, "FIRING", state.lastValue, state.firedAt);
+                alert.put("since", alert.remove("timestamp"));
+                alerts.add(alert);
+            }
         }
+        alerts.addAll(activeAnomalies.values());
+        return alerts;
+    }
+
+    /**
+     * Registra el inicio (FIRING) o el fin (RESOLVED) de una anomalía en una
+     * serie: valor fuera de su línea base (media EWMA) por más de z desviaciones
+     */
+    public void reportAnomaly(String series, String status, double value, double mean,
+                              double stdDev, double zScore, long timestamp) {
+        double rounded = Math.round(value * 100.0) / 100.0;
+        String message = "FIRING".equals(status)
+                ? String.format("Valor anómalo en %s: %.2f (línea base %.2f ± %.2f, z=%.1f)",
+                series, value, mean, stdDev, zScore)
+                : "Resuelta anomalía en " + series + " (" + rounded + ")";
+
+        Map<String, Object> alert = new HashMap<>();
+        alert.put("rule", anomalyRuleId(series));
+        alert.put("type", "ANOMALY");
+        alert.put("severity", "MEDIUM");
+        alert.put("status", status);
+        alert.put("message", message);
+        alert.put("value", rounded);
+        alert.put("threshold", Math.round(mean * 100.0) / 100.0);
+        alert.put("zScore", Math.round(zScore * 100.0) / 100.0);
+        alert.put("timestamp", LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault()).toString());
 
-        // Verificar Memoria
-        if (metrics.getMemoryUsagePercent() > memoryThreshold) {
-            Map<String, Object> alert = createAlert(
-                    "MEMORY",
-                    "HIGH",
-                    "Uso de memoria alto: " + metrics.getMemoryUsagePercent() + "%",
-                    metrics.getMemoryUsagePercent()
-            );
-            alerts.add(alert);
-            alertHistory.add(alert);
+        if ("FIRING".equals(status)) {
+            Map<String, Object> active = new HashMap<>(alert);
+            active.put("since", active.remove("timestamp"));
+            activeAnomalies.put(series, active);
+        } else {
+            activeAnomalies.remove(series);
         }
+        addToHistory(timestamp, alert);
+    }
 
-        // Limitar historial a últimas 100 alertas
-        if (alertHistory.size() > 100) {
-            alertHistory = alertHistory.subList(alertHistory.size() - 100, alertHistory.size());
+    /**
+     * Identificador de regla de una anomalía. Las series largas (fs.* con la
+     * ruta del punto de montaje) se recortan y llevan un hash para que el id
+     * quepa en alerts.rule_id y siga siendo distinto por serie.
+     */
+    static String anomalyRuleId(String series) {
+        String id = ANOMALY_PREFIX + series;
+        if (id.length() <= MAX_RULE_ID_LENGTH) {
+            return id;
         }
+        String hash = String.format("~%08x", series.hashCode());
+        return id.substring(0, MAX_RULE_ID_LENGTH - hash.length()) + hash;
+    }
 
-        return alerts;
+    private void addToHistory(long timestamp, Map<String, Object> alert) {
+        alertHistory.add(timestamp, alert);
+        alertStore.save(timestamp, alert);
+        notificationService.notify(alert);
     }
 
-    private Map<String, Object> createAlert(String type, String severity, String message, Double value) {
+    private Map<String, Object> createAlert(RuleState state, String status, double value, long timestamp) {
+        AlertRule rule = state.rule;
+        double rounded = Math.round(value * 100.0) / 100.0;
+
+        String message = switch (rule.getType()) {
+            case "CPU" -> "Uso de CPU alto: " + rounded + "%";
+            case "MEMORY" -> "Uso de memoria alto: " + rounded + "%";
+            case "DISK" -> "Uso de disco alto: " + rounded + "%";
+            default -> rule.getType() + ": " + rounded;
+        };
+        if ("RESOLVED".equals(status)) {
+            message = "Resuelta (" + rule.getType() + " " + rounded + "%)";
+        } else if (rule.getForSeconds() > 0) {
+            message += " durante más de " + rule.getForSeconds() + " s";
+        }
+
         Map<String, Object> alert = new HashMap<>();
-        alert.put("type", type);
-        alert.put("severity", severity);
+        alert.put("rule", rule.getId());
+        alert.put("type", rule.getType());
+        alert.put("severity", "RESOLVED".equals(status) ? "MEDIUM" : rule.getSeverity());
+        alert.put("status", status);
         alert.put("message", message);
-        alert.put("value", value);
-        alert.put("timestamp", LocalDateTime.now().toString());
+        alert.put("value", rounded);
+        alert.put("threshold", rule.getFireLevel());
+        alert.put("timestamp", LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault()).toString());
         return alert;
     }
 
-    public List<Map<String, Object>> getAlertHistory() {
-        return new ArrayList<>(alertHistory);
+    /**
+     * Historial de alertas en [from, to] (epoch ms), de la más reciente a la
+     * más antigua y paginado. Se responde desde memoria si el buffer tiene
+     * todas las alertas del rango; si no (rango anterior al arranque o
+     * alertas ya desplazadas del buffer), desde la base de datos.
+     */
+    public Map<String, Object> getAlertHistory(long from, long to, int page, int size) {
+        int offset = page * size;
+        boolean fromMemory = from >= historySince && !alertHistory.isIncompleteSince(from);
+
+        Map<String, Object> result = new HashMap<>();
+        if (fromMemory) {
+            result.put("alerts", alertHistory.query(from, to, offset, size));
+            result.put("total", alertHistory.count(from, to));
+            result.put("source", "memory");
+        } else {
+            result.put("alerts", alertStore.query(from, to, offset, size));
+            result.put("total", alertStore.count(from, to));
+            result.put("source", "database");
+        }
+        result.put("from", from);
+        result.put("to", to);
+        result.put("page", page);
+        result.put("size", size);
+        return result;
     }
 
+    /**
+     * Vacía solo el buffer en memoria (las alertas recientes del dashboard).
+     * El historial persistido se conserva y las consultas anteriores a este
+     * momento pasan a resolverse en la base de datos.
+     */
     public void clearAlertHistory() {
         alertHistory.clear();
+        historySince = System.currentTimeMillis();
+    }
+
+    // Reglas
+    public List<AlertRule> getRules() {
+        List<AlertRule> result = new ArrayList<>();
+        for (RuleState state : rules) {
+            result.add(state.rule.copy());
+        }
+        return result;
+    }
+
+    /**
+     * Actualiza los campos presentes en changes (fireLevel, clearLevel,
+     * forSeconds, cooldownSeconds, enabled). Devuelve la regla resultante o
+     * null si no existe; lanza IllegalArgumentException si el resultado no es
+     * válido y entonces la regla no cambia.
+     */
+    public AlertRule updateRule(String id, Map<String, Object> changes) {
+        RuleState state = findRule(id);
+        if (state == null) {
+            return null;
+        }
+        // Dos actualizaciones a la vez no deben pisarse los cambios
+        synchronized (state) {
+            return applyChanges(state, changes);
+        }
+    }
+
+    private AlertRule applyChanges(RuleState state, Map<String, Object> changes) {
+        // La regla se sustituye entera para que el muestreador nunca vea una a medio cambiar
+        AlertRule updated = state.rule.copy();
+        if (changes.get("fireLevel") instanceof Number n) {
+            updated.setFireLevel(n.doubleValue());
+            if (!(changes.get("clearLevel") instanceof Number)) {
+                updated.setClearLevel(n.doubleValue() - hysteresis);
+            }
+        }
+        if (changes.get("clearLevel") instanceof Number n) {
+            updated.setClearLevel(n.doubleValue());
+        }
+        if (changes.get("forSeconds") instanceof Number n) {
+            updated.setForSeconds(n.longValue());
+        }
+        if (changes.get("cooldownSeconds") instanceof Number n) {
+            updated.setCooldownSeconds(n.longValue());
+        }
+        if (changes.get("enabled") instanceof Boolean b) {
+            updated.setEnabled(b);
+        }
+        updated.validate();
+        state.rule = updated;
+        return updated.copy();
+    }
+
+    private RuleState findRule(String id) {
+        for (RuleState state : rules) {
+            if (state.rule.getId().equals(id)) {
+                return state;
+            }
+        }
+        return null;
+    }
+
+    private double getFireLevel(String id) {
+        RuleState state = findRule(id);
+        return state != null ? state.rule.getFireLevel() : 0;
+    }
+
+    private void setFireLevel(String id, double threshold) {
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("fireLevel", threshold);
+        updateRule(id, changes);
     }
 
-    // Getters y Setters para umbrales
+    // Getters y Setters para umbrales (nivel de disparo de cada regla)
     public double getCpuThreshold() {
-        return cpuThreshold;
+        return getFireLevel("cpu");
     }
 
     public void setCpuThreshold(double cpuThreshold) {
-        this.cpuThreshold = cpuThreshold;
+        setFireLevel("cpu", cpuThreshold);
     }
 
     public double getMemoryThreshold() {
-        return memoryThreshold;
+        return getFireLevel("memory");
     }
 
     public void setMemoryThreshold(double memoryThreshold) {
-        this.memoryThreshold = memoryThreshold;
+        setFireLevel("memory", memoryThreshold);
     }
 
     public double getDiskThreshold() {
-        return diskThreshold;
+        return getFireLevel("disk");
     }
 
     public void setDiskThreshold(double diskThreshold) {
-        this.diskThreshold = diskThreshold;
+        setFireLevel("disk", diskThreshold);
     }
 
     public Map<String, Double> getThresholds() {
         Map<String, Double> thresholds = new HashMap<>();
-        thresholds.put("cpu", cpuThreshold);
-        thresholds.put("memory", memoryThreshold);
-        thresholds.put("disk", diskThreshold);
+        thresholds.put("cpu", getCpuThreshold());
+        thresholds.put("memory", getMemoryThreshold());
+        thresholds.put("disk", getDiskThreshold());
         return thresholds;
     }
-}
 
+    private enum Transition { NONE, FIRED, RESOLVED }
+
+    /**
+     * Estado de una regla entre muestras. Solo lo modifica el hilo del
+     * muestreador; los campos son volatile para leerlos desde las peticiones.
+     */
+    private static class RuleState {
+        private volatile AlertRule rule;
+        private volatile boolean firing;
+        private volatile long firedAt;
+        private volatile double lastValue;
+        private long pendingSince = -1;
+        private long lastFired = -1;
+
+        RuleState(AlertRule rule) {
+            this.rule = rule;
+        }
+
+        Transition evaluate(double value, long timestamp) {
+            AlertRule current = rule;
+            lastValue = value;
+
+            if (!current.isEnabled()) {
+                pendingSince = -1;
+                if (firing) {
+                    firing = false;
+                    return Transition.RESOLVED;
+                }
+                return Transition.NONE;
+            }
+
+            if (firing) {
+                if (value < current.getClearLevel()) {
+                    firing = false;
+                    pendingSince = -1;
+                    return Transition.RESOLVED;
+                }
+                return Transition.NONE;
+            }
+
+            if (value <= current.getFireLevel()) {
+                pendingSince = -1;
+                return Transition.NONE;
+            }
+            if (pendingSince < 0) {
+                pendingSince = timestamp;
+            }
+            boolean sustained = timestamp - pendingSince >= current.getForSeconds() * 1000;
+            boolean cooledDown = lastFired < 0 || timestamp - lastFired >= current.getCooldownSeconds() * 1000;
+            if (sustained && cooledDown) {
+                firing = true;
+                firedAt = timestamp;
+                lastFired = timestamp;
+                return Transition.FIRED;
+            }
+            return Transition.NONE;
+        }
+    }
+}
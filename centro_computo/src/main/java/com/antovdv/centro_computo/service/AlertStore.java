@@ -0,0 +1,220 @@
+package com.antovdv.centro_computo.service;
+
+import com.antovdv.centro_computo.database;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persistencia del historial de alertas en la tabla alerts. Quien genera la
+ * alerta solo la encola (sin bloquear); un hilo de fondo la escribe en
+ * inserts por lotes. Si la cola está llena la alerta se descarta de la BD
+ * (sigue en memoria) y se cuenta.
+ */
+@Service
+public class AlertStore {
+
+    private static final String INSERT_SQL = "INSERT INTO alerts " +
+            "(rule_id, alert_type, severity, status, message, value, threshold, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final BlockingQueue<PendingAlert> queue;
+    private final Thread writer;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean running = true;
+
+    public AlertStore(@Value("${app.monitoring.alerts.store.enabled:true}") boolean enabled,
+                      @Value("${app.monitoring.alerts.store.queue-size:10000}") int queueSize,
+                      @Value("${app.monitoring.alerts.store.batch-size:200}") int batchSize) {
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.writer = new Thread(this::writeLoop, "alert-writer");
+        this.writer.setDaemon(true);
+        if (enabled) {
+            this.writer.start();
+        }
+    }
+
+    /**
+     * Encola la alerta para escribirla en la BD. No bloquea nunca.
+     */
+    public void save(long timestamp, Map<String, Object> alert) {
+        if (enabled && !queue.offer(new PendingAlert(timestamp, alert))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    private void writeLoop() {
+        List<PendingAlert> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingAlert first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                // Al parar: se sale del poll y se vacía lo que quede
+                running = false;
+            } catch (RuntimeException e) {
+                // Un error inesperado no debe matar el hilo escritor
+                dropped.addAndGet(batch.size());
+                System.err.println("Error inesperado guardando alertas: " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Escribe el lote en una transacción. Si falla, se deshace y se reintenta
+     * fila a fila para descartar solo las alertas que la BD rechaza.
+     */
+    private void writeBatch(List<PendingAlert> batch) {
+        try (Connection conn = database.getConection();
+             PreparedStatement ps = conn.prepareStatement(INSERT_SQL)) {
+
+            conn.setAutoCommit(false);
+            try {
+                for (PendingAlert pending : batch) {
+                    bind(ps, pending);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                conn.commit();
+                return;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                ps.clearBatch();
+                System.err.println("Error guardando un lote de " + batch.size()
+                        + " alertas, se reintenta una a una: " + e.getMessage());
+            }
+
+            conn.setAutoCommit(true);
+            for (PendingAlert pending : batch) {
+                try {
+                    bind(ps, pending);
+                    ps.executeUpdate();
+                } catch (SQLException | RuntimeException e) {
+                    dropped.incrementAndGet();
+                    System.err.println("Alerta descartada de la BD (" + pending.alert.get("rule") + "): " + e.getMessage());
+                }
+            }
+
+        } catch (SQLException e) {
+            dropped.addAndGet(batch.size());
+            System.err.println("Error guardando " + batch.size() + " alertas en BD: " + e.getMessage());
+        }
+    }
+
+    private static void bind(PreparedStatement ps, PendingAlert pending) throws SQLException {
+        Map<String, Object> alert = pending.alert;
+        ps.setString(1, String.valueOf(alert.get("rule")));
+        ps.setString(2, String.valueOf(alert.get("type")));
+        ps.setString(3, String.valueOf(alert.get("severity")));
+        ps.setString(4, String.valueOf(alert.get("status")));
+        ps.setString(5, String.valueOf(alert.get("message")));
+        ps.setDouble(6, ((Number) alert.get("value")).doubleValue());
+        ps.setDouble(7, ((Number) alert.get("threshold")).doubleValue());
+        ps.setTimestamp(8, new Timestamp(pending.timestamp));
+    }
+
+    /**
+     * Alertas guardadas con created_at en [from, to], de la más reciente a la
+     * más antigua, paginadas con offset/limit
+     */
+    public List<Map<String, Object>> query(long from, long to, int offset, int limit) {
+        List<Map<String, Object>> alerts = new ArrayList<>();
+        String sql = "SELECT rule_id, alert_type, severity, status, message, value, threshold, created_at " +
+                "FROM alerts WHERE created_at BETWEEN ? AND ? " +
+                "ORDER BY created_at DESC, id DESC LIMIT ? OFFSET ?";
+
+        try (Connection conn = database.getConection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setTimestamp(1, new Timestamp(from));
+            ps.setTimestamp(2, new Timestamp(to));
+            ps.setInt(3, limit);
+            ps.setInt(4, offset);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Map<String, Object> alert = new HashMap<>();
+                    alert.put("rule", rs.getString("rule_id"));
+                    alert.put("type", rs.getString("alert_type"));
+                    alert.put("severity", rs.getString("severity"));
+                    alert.put("status", rs.getString("status"));
+                    alert.put("message", rs.getString("message"));
+                    alert.put("value", rs.getDouble("value"));
+                    alert.put("threshold", rs.getDouble("threshold"));
+                    alert.put("timestamp", rs.getTimestamp("created_at").toLocalDateTime().toString());
+                    alerts.add(alert);
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error obteniendo historial de alertas: " + e.getMessage());
+        }
+
+        return alerts;
+    }
+
+    public long count(long from, long to) {
+        String sql = "SELECT COUNT(*) FROM alerts WHERE created_at BETWEEN ? AND ?";
+
+        try (Connection conn = database.getConection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setTimestamp(1, new Timestamp(from));
+            ps.setTimestamp(2, new Timestamp(to));
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error contando alertas: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class PendingAlert {
+        final long timestamp;
+        final Map<String, Object> alert;
+
+        PendingAlert(long timestamp, Map<String, Object> alert) {
+            this.timestamp = timestamp;
+            this.alert = alert;
+        }
+    }
+}
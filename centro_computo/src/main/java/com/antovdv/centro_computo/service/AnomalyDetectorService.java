@@ -0,0 +1,171 @@
+package com.antovdv.centro_computo.service;
+
+import com.antovdv.centro_computo.dto.SystemMetricsDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Detección de anomalías en línea: por cada serie se mantiene una media y
+ * una varianza con media móvil exponencial (EWMA) y cada muestra se puntúa
+ * con su z-score respecto a esa línea base. Memoria constante por serie y
+ * O(1) por muestra. Una anomalía empieza cuando |z| supera z-threshold y
+ * termina cuando baja de la mitad (histéresis); ambas transiciones llegan a
+ * AlertService como alertas de tipo ANOMALY.
+ */
+@Service
+public class AnomalyDetectorService implements MetricsListener {
+
+    private final AlertService alertService;
+    private final double alpha;
+    private final double zThreshold;
+    private final int warmupSamples;
+    private final double minStdDev;
+    private final int maxSeries;
+    // Nombres exactos o prefijos terminados en '*'; solo series en %, a las que se refiere min-stddev
+    private final String[] watchedSeries;
+
+    private final Map<String, SeriesState> series = new ConcurrentHashMap<>();
+
+    public AnomalyDetectorService(AlertService alertService,
+                                  @Value("${app.monitoring.anomaly.alpha:0.01}") double alpha,
+                                  @Value("${app.monitoring.anomaly.z-threshold:4.0}") double zThreshold,
+                                  @Value("${app.monitoring.anomaly.warmup-samples:300}") int warmupSamples,
+                                  @Value("${app.monitoring.anomaly.min-stddev:1.0}") double minStdDev,
+                                  @Value("${app.monitoring.anomaly.max-series:128}") int maxSeries,
+                                  @Value("${app.monitoring.anomaly.series:cpu,memory,disk,fs.*}") String watchedSeries) {
+        this.alertService = alertService;
+        this.alpha = alpha;
+        this.zThreshold = zThreshold;
+        this.warmupSamples = warmupSamples;
+        this.minStdDev = minStdDev;
+        this.maxSeries = maxSeries;
+        this.watchedSeries = Arrays.stream(watchedSeries.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public void onSample(SystemMetricsDTO metrics) {
+        long timestamp = metrics.getTimestamp() != null ? metrics.getTimestamp() : System.currentTimeMillis();
+        MetricSeries.forEach(metrics, (name, value) -> observe(name, value, timestamp));
+    }
+
+    void observe(String name, double value, long timestamp) {
+        if (!isWatched(name) || Double.isNaN(value) || Double.isInfinite(value)) {
+            return;
+        }
+        SeriesState state = series.get(name);
+        if (state == null) {
+            if (series.size() >= maxSeries) {
+                return;
+            }
+            state = series.computeIfAbsent(name, k -> new SeriesState());
+        }
+
+        // Se puntúa contra la línea base anterior y después se actualiza con el valor
+        double std = Math.max(Math.sqrt(state.variance), minStdDev);
+        double z = state.count == 0 ? 0 : (value - state.mean) / std;
+        double baseline = state.mean;
+        state.update(value, alpha);
+        state.lastValue = value;
+        state.lastZ = z;
+
+        if (state.count <= warmupSamples) {
+            return;
+        }
+        if (!state.anomalous && Math.abs(z) > zThreshold) {
+            state.anomalous = true;
+            state.since = timestamp;
+            alertService.reportAnomaly(name, "FIRING", value, baseline, std, z, timestamp);
+        } else if (state.anomalous && Math.abs(z) < zThreshold / 2) {
+            state.anomalous = false;
+            alertService.reportAnomaly(name, "RESOLVED", value, baseline, std, z, timestamp);
+        }
+    }
+
+    private boolean isWatched(String name) {
+        if (watchedSeries.length == 0) {
+            return true;
+        }
+        for (String pattern : watchedSeries) {
+            boolean matches = pattern.endsWith("*")
+                    ? name.startsWith(pattern.substring(0, pattern.length() - 1))
+                    : name.equals(pattern);
+            if (matches) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Estado de cada serie vigilada; con onlyAnomalous solo las que están en anomalía
+     */
+    public List<Map<String, Object>> getSeriesStates(boolean onlyAnomalous) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map.Entry<String, SeriesState> entry : new TreeMap<>(series).entrySet()) {
+            SeriesState state = entry.getValue();
+            if (onlyAnomalous && !state.anomalous) {
+                continue;
+            }
+            Map<String, Object> data = new HashMap<>();
+            data.put("series", entry.getKey());
+            data.put("value", round(state.lastValue));
+            data.put("mean", round(state.mean));
+            data.put("stdDev", round(Math.sqrt(state.variance)));
+            data.put("zScore", round(state.lastZ));
+            data.put("samples", state.count);
+            data.put("warmedUp", state.count > warmupSamples);
+            data.put("anomalous", state.anomalous);
+            if (state.anomalous) {
+                data.put("since", state.since);
+            }
+            result.add(data);
+        }
+        return result;
+    }
+
+    public Map<String, Object> getSettings() {
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("alpha", alpha);
+        settings.put("zThreshold", zThreshold);
+        settings.put("warmupSamples", warmupSamples);
+        settings.put("minStdDev", minStdDev);
+        settings.put("series", watchedSeries);
+        return settings;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    /**
+     * Media y varianza EWMA de una serie. Solo la modifica el hilo del muestreador.
+     */
+    private static class SeriesState {
+        private volatile double mean;
+        private volatile double variance;
+        private volatile long count;
+        private volatile double lastValue;
+        private volatile double lastZ;
+        private volatile boolean anomalous;
+        private volatile long since;
+
+        void update(double value, double alpha) {
+            if (count == 0) {
+                mean = value;
+                variance = 0;
+            } else {
+                double diff = value - mean;
+                double increment = alpha * diff;
+                mean += increment;
+                variance = (1 - alpha) * (variance + diff * increment);
+            }
+            count++;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.antovdv.centro_computo.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Contadores propios de la aplicación que se exponen en /metrics: latencia
+ * de peticiones HTTP, ejecución de comandos y duración de backups. Las
+ * llamadas a base de datos se cuentan en database.getConection().
+ */
+@Service
+public class AppMetrics {
+
+    private static final String[] HTTP_LABELS = {"method", "route", "status"};
+    private static final String[] COMMAND_LABELS = {"result"};
+    private static final String[] COMMAND_WAIT_LABELS = {"priority"};
+    private static final String[] BACKUP_LABELS = {"operation", "result"};
+
+    private final ConcurrentHashMap<String, LatencyHistogram> httpRequests = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LatencyHistogram> commands = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LatencyHistogram> commandWaits = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LatencyHistogram> backups = new ConcurrentHashMap<>();
+
+    /**
+     * route es el patrón de Spring (/api/processes/{pid}), no la URI, para
+     * que el número de series no dependa de los parámetros
+     */
+    public void recordHttpRequest(String method, String route, int status, long nanos) {
+        String key = method + ' ' + route + ' ' + status;
+        httpRequests.computeIfAbsent(key, k -> new LatencyHistogram(HTTP_LABELS,
+                        new String[]{method, route, String.valueOf(status)}, LatencyHistogram.DEFAULT_BUCKETS))
+                .observeNanos(nanos);
+    }
+
+    /**
+     * result: success, failure, timeout o error
+     */
+    public void recordCommand(String result, long nanos) {
+        commands.computeIfAbsent(result, k -> new LatencyHistogram(COMMAND_LABELS,
+                        new String[]{result}, LatencyHistogram.DEFAULT_BUCKETS))
+                .observeNanos(nanos);
+    }
+
+    /**
+     * Tiempo que un comando pasó en la cola del planificador; priority: high, normal o low
+     */
+    public void recordCommandWait(String priority, long nanos) {
+        commandWaits.computeIfAbsent(priority, k -> new LatencyHistogram(COMMAND_WAIT_LABELS,
+                        new String[]{priority}, LatencyHistogram.DEFAULT_BUCKETS))
+                .observeNanos(nanos);
+    }
+
+    public void recordBackup(String operation, boolean success, long nanos) {
+        String result = success ? "success" : "failure";
+        backups.computeIfAbsent(operation + ' ' + result, k -> new LatencyHistogram(BACKUP_LABELS,
+                        new String[]{operation, result}, LatencyHistogram.DEFAULT_BUCKETS))
+                .observeNanos(nanos);
+    }
+
+    public Collection<LatencyHistogram> getHttpRequests() {
+        return httpRequests.values();
+    }
+
+    public Collection<LatencyHistogram> getCommands() {
+        return commands.values();
+    }
+
+    public Collection<LatencyHistogram> getCommandWaits() {
+        return commandWaits.values();
+    }
+
+    public Collection<LatencyHistogram> getBackups() {
+        return backups.values();
+    }
+}
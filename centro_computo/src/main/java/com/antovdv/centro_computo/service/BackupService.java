@@ -10,6 +10,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.Date;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,8 +19,10 @@ public class BackupService {
     private final String backupBasePath;
     private final List<Map<String, Object>> backupHistory;
     private final Map<String, BackupSchedule> schedules;
+    private final AppMetrics appMetrics;
 
-    public BackupService() {
+    public BackupService(AppMetrics appMetrics) {
+        this.appMetrics = appMetrics;
         // Directorio base para backups
         this.backupBasePath = System.getProperty("user.home") + File.separator + "TecnoSolutions_Backups";
         this.backupHistory = new ArrayList<>();
@@ -37,6 +40,10 @@ public class BackupService {
      * Crea un backup de un directorio usando Git
      */
     public Map<String, Object> createBackup(String sourcePath, String backupName, String user) {
+        return timed("create", () -> doCreateBackup(sourcePath, backupName, user));
+    }
+
+    private Map<String, Object> doCreateBackup(String sourcePath, String backupName, String user) {
         Map<String, Object> result = new HashMap<>();
 
         try {
@@ -150,6 +157,10 @@ public class BackupService {
      * Verifica la integridad de un backup usando Git
      */
     public Map<String, Object> verifyBackup(String backupName) {
+        return timed("verify", () -> doVerifyBackup(backupName));
+    }
+
+    private Map<String, Object> doVerifyBackup(String backupName) {
         Map<String, Object> result = new HashMap<>();
         String backupPath = backupBasePath + File.separator + backupName;
 
@@ -186,6 +197,10 @@ public class BackupService {
      * Restaura un backup a una ubicación específica
      */
     public Map<String, Object> restoreBackup(String backupName, String targetPath) {
+        return timed("restore", () -> doRestoreBackup(backupName, targetPath));
+    }
+
+    private Map<String, Object> doRestoreBackup(String backupName, String targetPath) {
         Map<String, Object> result = new HashMap<>();
         String backupPath = backupBasePath + File.separator + backupName;
 
@@ -218,6 +233,16 @@ public class BackupService {
         return result;
     }
 
+    /**
+     * Ejecuta una operación de backup registrando su duración en /metrics
+     */
+    private Map<String, Object> timed(String operation, Supplier<Map<String, Object>> action) {
+        long start = System.nanoTime();
+        Map<String, Object> result = action.get();
+        appMetrics.recordBackup(operation, Boolean.TRUE.equals(result.get("success")), System.nanoTime() - start);
+        return result;
+    }
+
     /**
      * Elimina un backup
      */
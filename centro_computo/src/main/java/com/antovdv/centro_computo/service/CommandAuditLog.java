@@ -0,0 +1,683 @@
+package com.antovdv.centro_computo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Log de auditoría de la consola (comandos ejecutados y procesos
+ * terminados). Es de solo anexado y se guarda en segmentos en disco que
+ * rotan por tamaño; los más antiguos que retention-days se borran.
+ *
+ * append() solo encola la entrada, así que nunca bloquea el camino del
+ * comando (si la cola se llena la entrada se descarta y se cuenta). Un único
+ * hilo escritor agrupa todo lo pendiente en una sola escritura con un solo
+ * force() (group commit).
+ *
+ * Cada segmento tiene en memoria un índice temporal disperso (una entrada
+ * con el timestamp y el offset del primer registro de cada bloque de
+ * index-interval-bytes) y un índice por usuario con el offset de cada
+ * registro. Las consultas recorren los segmentos y bloques del más reciente
+ * al más antiguo y paran al llegar al límite o al inicio del rango. Los
+ * índices se reconstruyen al arrancar leyendo los segmentos; un registro
+ * final incompleto (apagado brusco) se descarta.
+ *
+ * Formato del registro:
+ * longitud (int) | crc32 (int) | timestamp (long) | éxito (byte) | tipo, usuario, comando, salida
+ * (cada texto: longitud en bytes (int) y bytes UTF-8)
+ */
+@Service
+public class CommandAuditLog {
+
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 1024 * 1024;
+    private static final int MAX_COMMAND_CHARS = 8000;
+    private static final int MAX_BATCH = 1000;
+
+    private final boolean enabled;
+    private final Path auditDir;
+    private final long segmentBytes;
+    private final int indexIntervalBytes;
+    private final long retentionMs;
+    private final int maxOutputChars;
+    private final boolean fsync;
+
+    private final BlockingQueue<Entry> queue;
+    private final ExecutorService writer;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+
+    // Segmentos ordenados del más antiguo al más reciente; el último es el activo
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private FileChannel activeChannel;
+    private long lastTimestamp;
+    private volatile boolean running = true;
+
+    public CommandAuditLog(@Value("${app.commands.audit.enabled:true}") boolean enabled,
+                           @Value("${app.commands.audit.dir:${user.home}/TecnoSolutions_Audit}") String auditDir,
+                           @Value("${app.commands.audit.segment-size-mb:16}") int segmentSizeMb,
+                           @Value("${app.commands.audit.index-interval-bytes:4096}") int indexIntervalBytes,
+                           @Value("${app.commands.audit.retention-days:365}") long retentionDays,
+                           @Value("${app.commands.audit.max-output-chars:2000}") int maxOutputChars,
+                           @Value("${app.commands.audit.queue-size:10000}") int queueSize,
+                           @Value("${app.commands.audit.fsync:true}") boolean fsync) {
+        this.enabled = enabled;
+        this.auditDir = Paths.get(auditDir);
+        this.segmentBytes = segmentSizeMb * 1024L * 1024L;
+        this.indexIntervalBytes = indexIntervalBytes;
+        this.retentionMs = retentionDays * 86_400_000L;
+        this.maxOutputChars = maxOutputChars;
+        this.fsync = fsync;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "command-audit-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            openLog();
+            writer.execute(this::writeLoop);
+        }
+    }
+
+    /**
+     * Carga los segmentos existentes reconstruyendo sus índices
+     */
+    private void openLog() {
+        try {
+            Files.createDirectories(auditDir);
+        } catch (IOException e) {
+            System.err.println("Error creando directorio del log de auditoría: " + e.getMessage());
+            return;
+        }
+
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> list = Files.list(auditDir)) {
+            list.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .forEach(files::add);
+        } catch (IOException e) {
+            System.err.println("Error listando el log de auditoría: " + e.getMessage());
+        }
+        // El nombre lleva el timestamp de creación con ceros a la izquierda: el orden alfabético es el temporal
+        files.sort(Comparator.comparing(p -> p.getFileName().toString()));
+
+        for (Path file : files) {
+            try {
+                Segment segment = Segment.load(file, indexIntervalBytes);
+                segments.add(segment);
+                lastTimestamp = Math.max(lastTimestamp, segment.maxTimestamp());
+            } catch (IOException e) {
+                System.err.println("Segmento de auditoría ilegible " + file + ": " + e.getMessage());
+            }
+        }
+        deleteExpired(System.currentTimeMillis());
+    }
+
+    /**
+     * Encola una entrada. No bloquea: si la cola está llena se descarta.
+     */
+    public void append(String type, String user, String command, boolean success, String output) {
+        if (!enabled) {
+            return;
+        }
+        Entry entry = new Entry(System.currentTimeMillis(), type, user != null ? user : "system",
+                truncate(command, MAX_COMMAND_CHARS), success, truncate(output, maxOutputChars));
+        if (!queue.offer(entry)) {
+            if (dropped.incrementAndGet() % 1000 == 1) {
+                System.err.println("Cola del log de auditoría llena, entradas descartadas: " + dropped.get());
+            }
+        }
+    }
+
+    private static String truncate(String text, int max) {
+        if (text == null) {
+            return "";
+        }
+        return text.length() > max ? text.substring(0, max) + "..." : text;
+    }
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>();
+        while (running) {
+            try {
+                Entry first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                break;
+            }
+            // Todo lo que llegó mientras se escribía el lote anterior va en este
+            queue.drainTo(batch, MAX_BATCH - 1);
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private synchronized void writeBatch(List<Entry> batch) {
+        long before = written.get();
+        int skipped = 0;
+        try {
+            Segment segment = activeSegment(batch.get(0).timestamp);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            List<Pending> pending = new ArrayList<>();
+
+            for (Entry entry : batch) {
+                // Timestamps no decrecientes dentro del log, para que el índice temporal sea válido
+                long timestamp = Math.max(entry.timestamp, lastTimestamp);
+                byte[] record = encode(entry, timestamp);
+                if (record == null) {
+                    // Una entrada que no se puede guardar no tumba el resto del lote
+                    System.err.println("Entrada de auditoría descartada (demasiado grande): "
+                            + entry.type + " de " + entry.user);
+                    skipped++;
+                    continue;
+                }
+                lastTimestamp = timestamp;
+
+                long offset = segment.size() + bytes.size();
+                if (offset > 0 && offset + record.length > segmentBytes) {
+                    flush(segment, bytes, pending);
+                    segment = roll(timestamp);
+                    offset = 0;
+                }
+                pending.add(new Pending(offset, record.length, timestamp, entry.user));
+                bytes.write(record);
+            }
+            flush(segment, bytes, pending);
+        } catch (IOException e) {
+            System.err.println("Error escribiendo el log de auditoría: " + e.getMessage());
+            // Solo se pierde lo que no llegó a confirmarse en disco
+            dropped.addAndGet(batch.size() - skipped - (written.get() - before));
+            closeActive();
+        }
+        dropped.addAndGet(skipped);
+    }
+
+    /**
+     * Escribe los registros acumulados del segmento con un solo write y un solo force
+     */
+    private void flush(Segment segment, ByteArrayOutputStream bytes, List<Pending> pending) throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        while (buffer.hasRemaining()) {
+            activeChannel.write(buffer);
+        }
+        if (fsync) {
+            activeChannel.force(false);
+        }
+        // Los índices se publican después del force: una consulta solo ve registros ya en disco
+        segment.publish(pending);
+        written.addAndGet(pending.size());
+        commits.incrementAndGet();
+        bytes.reset();
+        pending.clear();
+    }
+
+    private Segment activeSegment(long timestamp) throws IOException {
+        if (activeChannel == null) {
+            Segment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (last == null || last.size() >= segmentBytes) {
+                return roll(timestamp);
+            }
+            // Se descarta lo que hubiera tras el último registro confirmado (escritura fallida a medias)
+            activeChannel = FileChannel.open(last.file, StandardOpenOption.WRITE);
+            activeChannel.truncate(last.size());
+            activeChannel.position(last.size());
+            return last;
+        }
+        return segments.get(segments.size() - 1);
+    }
+
+    private Segment roll(long timestamp) throws IOException {
+        closeActive();
+        Path file = auditDir.resolve(String.format("%s%015d%s", SEGMENT_PREFIX, timestamp, SEGMENT_SUFFIX));
+        for (int i = 1; Files.exists(file); i++) {
+            file = auditDir.resolve(String.format("%s%015d-%d%s", SEGMENT_PREFIX, timestamp, i, SEGMENT_SUFFIX));
+        }
+        activeChannel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        Segment segment = new Segment(file, indexIntervalBytes);
+        segments.add(segment);
+        deleteExpired(timestamp);
+        return segment;
+    }
+
+    private void closeActive() {
+        if (activeChannel != null) {
+            try {
+                activeChannel.close();
+            } catch (IOException e) {
+                System.err.println("Error cerrando segmento de auditoría: " + e.getMessage());
+            }
+            activeChannel = null;
+        }
+    }
+
+    /**
+     * Borra los segmentos (salvo el activo) cuyo último registro supera la retención
+     */
+    private void deleteExpired(long now) {
+        for (int i = 0; i < segments.size() - 1; i++) {
+            Segment segment = segments.get(i);
+            if (segment.count() > 0 && now - segment.maxTimestamp() > retentionMs) {
+                segments.remove(segment);
+                i--;
+                try {
+                    Files.deleteIfExists(segment.file);
+                } catch (IOException e) {
+                    System.err.println("No se pudo borrar " + segment.file + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Sin interrumpir al escritor: una interrupción en mitad de write() cerraría el canal
+        running = false;
+        writer.shutdown();
+        try {
+            writer.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Lo que quedara en cola se escribe antes de cerrar
+        List<Entry> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            writeBatch(rest);
+        }
+        synchronized (this) {
+            closeActive();
+        }
+    }
+
+    /**
+     * Entradas más recientes primero. from/to (epoch ms), user y type son
+     * opcionales (null = sin filtro); como mucho limit entradas.
+     */
+    public List<Map<String, Object>> query(Long from, Long to, String user, String type, int limit) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        long min = from != null ? from : Long.MIN_VALUE;
+        long max = to != null ? to : Long.MAX_VALUE;
+        if (!enabled || limit <= 0 || min > max) {
+            return result;
+        }
+
+        List<Segment> snapshot = new ArrayList<>(segments);
+        for (int s = snapshot.size() - 1; s >= 0 && result.size() < limit; s--) {
+            Segment segment = snapshot.get(s);
+            if (segment.count() == 0 || segment.minTimestamp() > max) {
+                continue;
+            }
+            if (segment.maxTimestamp() < min) {
+                break;
+            }
+            try (FileChannel channel = FileChannel.open(segment.file, StandardOpenOption.READ)) {
+                boolean done = user != null
+                        ? queryByUser(channel, segment, min, max, user, type, limit, result)
+                        : queryByTime(channel, segment, min, max, type, limit, result);
+                if (done) {
+                    break;
+                }
+            } catch (NoSuchFileException e) {
+                // Borrado por retención mientras se consultaba
+            } catch (IOException e) {
+                System.err.println("Error leyendo el log de auditoría " + segment.file + ": " + e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Recorre los bloques del índice disperso del último al primero. Devuelve
+     * true si ya no puede haber más resultados en segmentos anteriores.
+     */
+    private static boolean queryByTime(FileChannel channel, Segment segment, long min, long max, String type,
+                                       int limit, List<Map<String, Object>> result) throws IOException {
+        long size = segment.size();
+        long[][] index = segment.blockIndex();
+        long[] offsets = index[0];
+        long[] timestamps = index[1];
+
+        for (int b = offsets.length - 1; b >= 0; b--) {
+            if (timestamps[b] > max) {
+                continue;
+            }
+            long end = b + 1 < offsets.length ? offsets[b + 1] : size;
+            List<Map<String, Object>> block = readRange(channel, offsets[b], end);
+            for (int i = block.size() - 1; i >= 0; i--) {
+                Map<String, Object> record = block.get(i);
+                long timestamp = (Long) record.get("epochMs");
+                if (timestamp < min) {
+                    return true;
+                }
+                if (timestamp <= max && (type == null || type.equals(record.get("type")))) {
+                    result.add(record);
+                    if (result.size() >= limit) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lee solo los registros del usuario, del más reciente al más antiguo
+     */
+    private static boolean queryByUser(FileChannel channel, Segment segment, long min, long max, String user,
+                                       String type, int limit, List<Map<String, Object>> result) throws IOException {
+        int[] offsets = segment.userOffsets(user);
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        for (int i = offsets.length - 1; i >= 0; i--) {
+            header.clear();
+            readFully(channel, header, offsets[i]);
+            ByteBuffer body = ByteBuffer.allocate(header.getInt(0));
+            readFully(channel, body, offsets[i] + RECORD_HEADER_BYTES);
+
+            Map<String, Object> record = decode(body.array());
+            long timestamp = (Long) record.get("epochMs");
+            if (timestamp < min) {
+                return true;
+            }
+            if (timestamp <= max && (type == null || type.equals(record.get("type")))) {
+                result.add(record);
+                if (result.size() >= limit) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<Map<String, Object>> readRange(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        readFully(channel, buffer, start);
+        buffer.flip();
+
+        List<Map<String, Object>> records = new ArrayList<>();
+        while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+            int length = buffer.getInt();
+            buffer.getInt();
+            byte[] body = new byte[length];
+            buffer.get(body);
+            records.add(decode(body));
+        }
+        return records;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new EOFException("Registro de auditoría incompleto en " + position);
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.size();
+        }
+        long commitCount = commits.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("dir", auditDir.toString());
+        stats.put("segments", segments.size());
+        stats.put("bytes", bytes);
+        stats.put("written", written.get());
+        stats.put("commits", commitCount);
+        stats.put("avgBatch", commitCount > 0 ? Math.round(written.get() * 10.0 / commitCount) / 10.0 : 0);
+        stats.put("queued", queue.size());
+        stats.put("dropped", dropped.get());
+        return stats;
+    }
+
+    private static Map<String, Object> decode(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        long timestamp = in.readLong();
+        Map<String, Object> record = new HashMap<>();
+        record.put("epochMs", timestamp);
+        record.put("timestamp", LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault()).toString());
+        record.put("success", in.readByte() == 1);
+        record.put("type", readText(in));
+        record.put("user", readText(in));
+        record.put("command", readText(in));
+        record.put("output", readText(in));
+        return record;
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int crc32(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Registro completo (cabecera y cuerpo), o null si supera MAX_RECORD_BYTES
+     */
+    private static byte[] encode(Entry entry, long timestamp) {
+        byte[][] texts = {
+                entry.type.getBytes(StandardCharsets.UTF_8),
+                entry.user.getBytes(StandardCharsets.UTF_8),
+                entry.command.getBytes(StandardCharsets.UTF_8),
+                entry.output.getBytes(StandardCharsets.UTF_8)
+        };
+        long length = 9;
+        for (byte[] text : texts) {
+            length += 4 + text.length;
+        }
+        if (length > MAX_RECORD_BYTES) {
+            return null;
+        }
+
+        ByteBuffer body = ByteBuffer.allocate((int) length);
+        body.putLong(timestamp);
+        body.put((byte) (entry.success ? 1 : 0));
+        for (byte[] text : texts) {
+            body.putInt(text.length);
+            body.put(text);
+        }
+
+        byte[] data = body.array();
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + data.length);
+        record.putInt(data.length);
+        record.putInt(crc32(data));
+        record.put(data);
+        return record.array();
+    }
+
+    private static class Entry {
+        final long timestamp;
+        final String type;
+        final String user;
+        final String command;
+        final boolean success;
+        final String output;
+
+        Entry(long timestamp, String type, String user, String command, boolean success, String output) {
+            this.timestamp = timestamp;
+            this.type = type;
+            this.user = user;
+            this.command = command;
+            this.success = success;
+            this.output = output;
+        }
+    }
+
+    private static class Pending {
+        final long offset;
+        final int length;
+        final long timestamp;
+        final String user;
+
+        Pending(long offset, int length, long timestamp, String user) {
+            this.offset = offset;
+            this.length = length;
+            this.timestamp = timestamp;
+            this.user = user;
+        }
+    }
+
+    /**
+     * Un fichero de segmento con sus índices en memoria. size es el tamaño
+     * confirmado: lo que hay detrás no es visible para las consultas.
+     */
+    private static class Segment {
+        final Path file;
+        final int indexIntervalBytes;
+
+        private long size;
+        private int count;
+        private long minTimestamp = Long.MAX_VALUE;
+        private long maxTimestamp = Long.MIN_VALUE;
+
+        // Índice temporal disperso: primer registro de cada bloque de indexIntervalBytes
+        private long[] blockOffsets = new long[16];
+        private long[] blockTimestamps = new long[16];
+        private int blocks;
+        private long nextBlockAt;
+
+        // Índice por usuario: offset de cada uno de sus registros
+        private final Map<String, IntList> byUser = new HashMap<>();
+
+        Segment(Path file, int indexIntervalBytes) {
+            this.file = file;
+            this.indexIntervalBytes = Math.max(256, indexIntervalBytes);
+        }
+
+        /**
+         * Lee el segmento reconstruyendo los índices. Si el final está
+         * incompleto o corrupto, el fichero se trunca en el último registro válido.
+         */
+        static Segment load(Path file, int indexIntervalBytes) throws IOException {
+            Segment segment = new Segment(file, indexIntervalBytes);
+            long fileSize = Files.size(file);
+            List<Pending> records = new ArrayList<>();
+            long offset = 0;
+
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+                while (offset + RECORD_HEADER_BYTES <= fileSize) {
+                    int length = in.readInt();
+                    int crc = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_BYTES || offset + RECORD_HEADER_BYTES + length > fileSize) {
+                        break;
+                    }
+                    byte[] body = new byte[length];
+                    in.readFully(body);
+                    if (crc32(body) != crc) {
+                        break;
+                    }
+                    Map<String, Object> record = decode(body);
+                    records.add(new Pending(offset, RECORD_HEADER_BYTES + length,
+                            (Long) record.get("epochMs"), (String) record.get("user")));
+                    offset += RECORD_HEADER_BYTES + length;
+                }
+            }
+
+            if (offset < fileSize) {
+                System.err.println("Segmento de auditoría " + file.getFileName() + " truncado en " + offset
+                        + " bytes (registro final incompleto)");
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(offset);
+                }
+            }
+            segment.publish(records);
+            return segment;
+        }
+
+        synchronized void publish(List<Pending> records) {
+            for (Pending record : records) {
+                if (record.offset >= nextBlockAt) {
+                    if (blocks == blockOffsets.length) {
+                        blockOffsets = Arrays.copyOf(blockOffsets, blocks * 2);
+                        blockTimestamps = Arrays.copyOf(blockTimestamps, blocks * 2);
+                    }
+                    blockOffsets[blocks] = record.offset;
+                    blockTimestamps[blocks] = record.timestamp;
+                    blocks++;
+                    nextBlockAt = record.offset + indexIntervalBytes;
+                }
+                byUser.computeIfAbsent(record.user, k -> new IntList()).add((int) record.offset);
+                minTimestamp = Math.min(minTimestamp, record.timestamp);
+                maxTimestamp = Math.max(maxTimestamp, record.timestamp);
+                size = record.offset + record.length;
+                count++;
+            }
+        }
+
+        synchronized long size() {
+            return size;
+        }
+
+        synchronized int count() {
+            return count;
+        }
+
+        synchronized long minTimestamp() {
+            return minTimestamp;
+        }
+
+        synchronized long maxTimestamp() {
+            return maxTimestamp;
+        }
+
+        synchronized long[][] blockIndex() {
+            return new long[][]{Arrays.copyOf(blockOffsets, blocks), Arrays.copyOf(blockTimestamps, blocks)};
+        }
+
+        synchronized int[] userOffsets(String user) {
+            IntList offsets = byUser.get(user);
+            return offsets != null ? offsets.toArray() : new int[0];
+        }
+    }
+
+    /**
+     * Lista creciente de int, para no guardar un Long por registro en el índice de usuarios
+     */
+    private static class IntList {
+        private int[] values = new int[8];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.antovdv.centro_computo.service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Un comando lanzado desde la consola. Guarda el estado, el proceso en curso
+ * y la salida recibida hasta el momento; los suscriptores (SSE) reciben un
+ * aviso cada vez que llega salida nueva o cambia el estado.
+ */
+public class CommandJob {
+
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, TIMEOUT, CANCELLED, ERROR;
+
+        public boolean isFinished() {
+            return this != QUEUED && this != RUNNING;
+        }
+    }
+
+    private final String id;
+    private final String command;
+    private final String user;
+    private final CommandScheduler.Priority priority;
+    private final long createdAt;
+
+    private volatile Status status = Status.QUEUED;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile Integer exitCode;
+    private volatile String error = "";
+    private volatile boolean cancelRequested;
+    private volatile boolean timedOut;
+
+    private final CommandOutputBuffer output;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    private Process process;
+    // Hijos vistos al pedir la terminación: al morir el padre se reasignan a otro y ya no se alcanzan por él
+    private List<ProcessHandle> descendants = List.of();
+
+    CommandJob(String id, String command, String user, CommandScheduler.Priority priority, CommandOutputBuffer output) {
+        this.id = id;
+        this.command = command;
+        this.user = user;
+        this.priority = priority;
+        this.output = output;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public CommandScheduler.Priority getPriority() {
+        return priority;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public boolean isFinished() {
+        return status.isFinished();
+    }
+
+    boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Asocia el proceso lanzado. Devuelve false si el trabajo se canceló
+     * mientras arrancaba (el llamador debe terminar el proceso).
+     */
+    boolean markRunning(Process process) {
+        synchronized (this) {
+            if (status.isFinished()) {
+                return false;
+            }
+            this.process = process;
+            this.startedAt = System.currentTimeMillis();
+            this.status = Status.RUNNING;
+        }
+        notifyListeners();
+        return true;
+    }
+
+    void appendOutput(char[] chars, int offset, int length) {
+        output.append(chars, offset, length);
+        notifyListeners();
+    }
+
+    void finish(Status finalStatus, Integer exitCode, String error) {
+        synchronized (this) {
+            if (status.isFinished()) {
+                return;
+            }
+            this.exitCode = exitCode;
+            this.error = error != null ? error : "";
+            this.finishedAt = System.currentTimeMillis();
+            if (startedAt == 0) {
+                startedAt = finishedAt;
+            }
+            this.process = null;
+            this.status = finalStatus;
+        }
+        output.finish();
+        notifyListeners();
+    }
+
+    /**
+     * Pide la cancelación: si sigue en cola no llega a ejecutarse; si está en
+     * marcha se termina su proceso. Devuelve el estado anterior (QUEUED o
+     * RUNNING), o null si ya había terminado.
+     */
+    Status cancel() {
+        Process running;
+        synchronized (this) {
+            if (status.isFinished()) {
+                return null;
+            }
+            cancelRequested = true;
+            running = process;
+        }
+        if (running == null) {
+            finish(Status.CANCELLED, null, "Cancelado antes de ejecutarse");
+            return Status.QUEUED;
+        }
+        terminate(running);
+        return Status.RUNNING;
+    }
+
+    /**
+     * Marca el trabajo como excedido de tiempo y termina su proceso
+     */
+    void timeout() {
+        Process running;
+        synchronized (this) {
+            running = process;
+            if (running == null || status.isFinished()) {
+                return;
+            }
+            timedOut = true;
+        }
+        terminate(running);
+    }
+
+    /**
+     * Apunta los descendientes antes de pedir que terminen (destroy() solo
+     * llega al padre) y les pide terminar a todos
+     */
+    private void terminate(Process running) {
+        List<ProcessHandle> snapshot = running.descendants().toList();
+        synchronized (this) {
+            descendants = snapshot;
+        }
+        running.destroy();
+        snapshot.forEach(ProcessHandle::destroy);
+    }
+
+    /**
+     * Mata a la fuerza lo que siga vivo tras destroy(): el proceso, los
+     * descendientes apuntados al pedir la terminación (aunque el padre ya
+     * haya muerto) y los que hayan aparecido después. Si no, un hijo que
+     * heredó la salida deja al hilo del pool bloqueado leyéndola.
+     */
+    void destroyForcibly() {
+        Process running;
+        List<ProcessHandle> snapshot;
+        synchronized (this) {
+            running = process;
+            snapshot = descendants;
+        }
+        Set<ProcessHandle> targets = new LinkedHashSet<>(snapshot);
+        if (running != null) {
+            running.descendants().forEach(targets::add);
+        }
+        for (ProcessHandle handle : snapshot) {
+            handle.descendants().forEach(targets::add);
+        }
+        targets.forEach(ProcessHandle::destroyForcibly);
+        if (running != null && running.isAlive()) {
+            running.destroyForcibly();
+        }
+    }
+
+    public CommandOutputBuffer getOutputBuffer() {
+        return output;
+    }
+
+    /**
+     * Cabecera y cola de la salida (lo que se conserva en memoria)
+     */
+    public String getOutput() {
+        return output.getText();
+    }
+
+    void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    private void notifyListeners() {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Estado del trabajo (sin la salida)
+     */
+    public Map<String, Object> toStatusMap() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("jobId", id);
+        data.put("command", command);
+        data.put("user", user);
+        data.put("priority", priority.name().toLowerCase());
+        data.put("status", status.name().toLowerCase());
+        data.put("finished", status.isFinished());
+        data.put("createdAt", timestamp(createdAt));
+        data.put("startedAt", startedAt > 0 ? timestamp(startedAt) : null);
+        data.put("finishedAt", finishedAt > 0 ? timestamp(finishedAt) : null);
+        data.put("exitCode", exitCode);
+        data.put("lines", output.getTotalLines());
+        data.put("outputBytes", output.getTotalBytes());
+        long end = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+        data.put("queuedMs", (startedAt > 0 ? startedAt : end) - createdAt);
+        data.put("runningMs", startedAt > 0 ? end - startedAt : 0);
+        return data;
+    }
+
+    /**
+     * Resultado final con el mismo formato que devolvía la ejecución síncrona
+     */
+    public Map<String, Object> toResultMap() {
+        Map<String, Object> result = toStatusMap();
+        String text = getOutput();
+        result.put("success", status == Status.SUCCEEDED);
+        result.put("output", text.isEmpty() ? "Comando ejecutado sin salida" : text);
+        result.put("omittedLines", output.getOmittedLines());
+        result.put("downloadBytes", output.getDownloadSize());
+        result.put("downloadTruncated", output.isDownloadTruncated());
+        result.put("error", error);
+        result.put("duration", (finishedAt - startedAt) / 1000.0 + " segundos");
+        result.put("timestamp", timestamp(finishedAt));
+        return result;
+    }
+
+    private static String timestamp(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault()).toString();
+    }
+}
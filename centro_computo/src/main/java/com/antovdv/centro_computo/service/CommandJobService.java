@@ -0,0 +1,443 @@
+package com.antovdv.centro_computo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecución asíncrona de comandos. Cada comando es un trabajo con su ID; la
+ * petición HTTP vuelve enseguida y la salida se sigue por SSE o se consulta
+ * al terminar. Qué trabajo arranca y cuándo lo decide el CommandScheduler
+ * (máximo global ligado a los núcleos, máximo por usuario y prioridad por
+ * rol), y se ejecuta en un pool con tantos hilos como ese máximo global.
+ * El mismo hilo del pool lee la salida del proceso, y el tiempo límite lo
+ * aplica un vigilante programado, así que no se crea ningún hilo por
+ * comando. La salida se guarda en un CommandOutputBuffer: cabecera y cola
+ * en memoria y el log completo en un fichero temporal, que se borra al
+ * descartar el trabajo.
+ */
+@Service
+public class CommandJobService {
+
+    // Líneas por evento SSE cuando un cliente va por detrás de la salida
+    private static final int STREAM_BATCH_LINES = 500;
+    // Caracteres por lectura de la salida: nunca se acumula una línea entera en memoria
+    private static final int READ_BUFFER_CHARS = 8192;
+    // Margen entre destroy() y destroyForcibly() al cancelar o agotar el tiempo
+    private static final long KILL_GRACE_MS = 5000;
+
+    private final CommandAuditLog auditLog;
+    private final AppMetrics appMetrics;
+    private final JsonMapper jsonMapper;
+    private final long timeoutMs;
+    private final long retentionMs;
+    private final int maxRetained;
+    private final int headLines;
+    private final int tailLines;
+    private final int maxLineChars;
+    private final long maxSpillBytes;
+    private final Path spillDir;
+
+    private final CommandScheduler scheduler;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService watchdog;
+    private final ExecutorService streamSender;
+    private final Map<String, CommandJob> jobs = new ConcurrentHashMap<>();
+
+    public CommandJobService(CommandAuditLog auditLog,
+                             AppMetrics appMetrics,
+                             JsonMapper jsonMapper,
+                             @Value("${app.commands.scheduler.max-running:0}") int maxRunning,
+                             @Value("${app.commands.scheduler.max-running-per-user:2}") int maxRunningPerUser,
+                             @Value("${app.commands.scheduler.max-queued-per-user:5}") int maxQueuedPerUser,
+                             @Value("${app.commands.scheduler.queue-capacity:50}") int queueCapacity,
+                             @Value("${app.commands.jobs.timeout-ms:300000}") long timeoutMs,
+                             @Value("${app.commands.jobs.retention-ms:600000}") long retentionMs,
+                             @Value("${app.commands.jobs.max-retained:200}") int maxRetained,
+                             @Value("${app.commands.jobs.stream-threads:2}") int streamThreads,
+                             @Value("${app.commands.output.head-lines:500}") int headLines,
+                             @Value("${app.commands.output.tail-lines:500}") int tailLines,
+                             @Value("${app.commands.output.max-line-chars:4000}") int maxLineChars,
+                             @Value("${app.commands.output.max-spill-mb:512}") long maxSpillMb,
+                             @Value("${app.commands.output.spill-dir:${java.io.tmpdir}/centro_computo-commands}") String spillDir) {
+        this.auditLog = auditLog;
+        this.appMetrics = appMetrics;
+        this.jsonMapper = jsonMapper;
+        this.timeoutMs = timeoutMs;
+        this.retentionMs = retentionMs;
+        this.maxRetained = maxRetained;
+        this.headLines = headLines;
+        this.tailLines = tailLines;
+        this.maxLineChars = maxLineChars;
+        this.maxSpillBytes = maxSpillMb * 1024 * 1024;
+        this.spillDir = Paths.get(spillDir);
+
+        // 0: tantos comandos a la vez como núcleos tenga la máquina
+        int threads = maxRunning > 0 ? maxRunning : Runtime.getRuntime().availableProcessors();
+        this.scheduler = new CommandScheduler(threads, maxRunningPerUser, maxQueuedPerUser, queueCapacity,
+                this::launch, appMetrics);
+        // El planificador nunca pasa más trabajos que hilos, así que la cola del pool no crece
+        this.executor = new ThreadPoolExecutor(scheduler.getMaxRunning(), scheduler.getMaxRunning(),
+                0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), daemonThreads("command-job-"));
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(daemonThreads("command-watchdog-"));
+        this.streamSender = Executors.newFixedThreadPool(Math.max(1, streamThreads), daemonThreads("command-stream-"));
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (CommandJob job : jobs.values()) {
+            if (job.cancel() != null) {
+                job.destroyForcibly();
+            }
+        }
+        executor.shutdownNow();
+        watchdog.shutdownNow();
+        streamSender.shutdownNow();
+        for (CommandJob job : jobs.values()) {
+            job.getOutputBuffer().close();
+        }
+    }
+
+    /**
+     * Encola un comando con la prioridad del usuario. Lanza
+     * CommandScheduler.QueueFullException si no cabe en la cola.
+     */
+    public CommandJob submit(String command, String user, CommandScheduler.Priority priority) {
+        evictFinished();
+
+        CommandJob job = new CommandJob(UUID.randomUUID().toString(), command, user, priority,
+                new CommandOutputBuffer(headLines, tailLines, maxLineChars, maxSpillBytes, spillDir));
+        jobs.put(job.getId(), job);
+        try {
+            scheduler.enqueue(job);
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            job.getOutputBuffer().close();
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * Lo llama el planificador cuando el trabajo tiene plaza
+     */
+    private void launch(CommandJob job) {
+        executor.execute(() -> {
+            try {
+                run(job);
+            } finally {
+                scheduler.release(job);
+            }
+        });
+    }
+
+    public CommandJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * Trabajos conservados, los más recientes primero; con user distinto de
+     * null solo los de ese usuario
+     */
+    public List<Map<String, Object>> getJobs(int limit, String user) {
+        List<CommandJob> list = new ArrayList<>();
+        for (CommandJob job : jobs.values()) {
+            if (user == null || user.equals(job.getUser())) {
+                list.add(job);
+            }
+        }
+        list.sort(Comparator.comparingLong(CommandJob::getCreatedAt).reversed());
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (int i = 0; i < list.size() && i < limit; i++) {
+            result.add(list.get(i).toStatusMap());
+        }
+        return result;
+    }
+
+    /**
+     * Cancela un trabajo; false si no existe o ya había terminado
+     */
+    public boolean cancel(String id) {
+        CommandJob job = jobs.get(id);
+        CommandJob.Status previous = job != null ? job.cancel() : null;
+        if (previous == null) {
+            return false;
+        }
+        if (previous == CommandJob.Status.QUEUED) {
+            // No llegó a ejecutarse: se registra aquí porque run() no lo hará
+            scheduler.remove(job);
+            record(job, 0);
+        } else {
+            watchdog.schedule(job::destroyForcibly, KILL_GRACE_MS, TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    /**
+     * Cola del planificador: profundidad y esperas por prioridad y ocupación por usuario
+     */
+    public Map<String, Object> getQueueStats() {
+        return scheduler.getStats();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        Map<String, Object> queue = scheduler.getStats();
+        stats.put("threads", executor.getMaximumPoolSize());
+        stats.put("running", queue.get("running"));
+        stats.put("queued", queue.get("queued"));
+        stats.put("queueCapacity", queue.get("queueCapacity"));
+        stats.put("completed", executor.getCompletedTaskCount());
+        stats.put("retained", jobs.size());
+        stats.put("timeoutMs", timeoutMs);
+        return stats;
+    }
+
+    private void run(CommandJob job) {
+        if (job.isFinished()) {
+            return;
+        }
+        long start = System.nanoTime();
+        boolean started = true;
+        try {
+            // Separar el comando en segmentos (como en el código de referencia)
+            ProcessBuilder pb = new ProcessBuilder(job.getCommand().split(" "));
+            pb.redirectErrorStream(true);
+            Process proceso = pb.start();
+
+            if (!job.markRunning(proceso)) {
+                // Cancelado mientras arrancaba; ya quedó registrado en cancel()
+                started = false;
+                proceso.destroyForcibly();
+                return;
+            }
+
+            ScheduledFuture<?> deadline = watchdog.schedule(() -> {
+                job.timeout();
+                watchdog.schedule(job::destroyForcibly, KILL_GRACE_MS, TimeUnit.MILLISECONDS);
+            }, timeoutMs, TimeUnit.MILLISECONDS);
+
+            String error = "";
+            try (Reader reader = new InputStreamReader(proceso.getInputStream())) {
+                char[] buffer = new char[READ_BUFFER_CHARS];
+                int read;
+                while ((read = reader.read(buffer)) != -1) {
+                    job.appendOutput(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                error = "Error leyendo salida: " + e.getMessage();
+            }
+
+            int exitCode = proceso.waitFor();
+            deadline.cancel(false);
+
+            if (job.isTimedOut()) {
+                job.finish(CommandJob.Status.TIMEOUT, exitCode,
+                        "Comando excedió el tiempo límite (" + timeoutMs / 1000 + " segundos)");
+            } else if (job.isCancelRequested()) {
+                job.finish(CommandJob.Status.CANCELLED, exitCode, "Cancelado por el usuario");
+            } else {
+                job.finish(exitCode == 0 ? CommandJob.Status.SUCCEEDED : CommandJob.Status.FAILED, exitCode, error);
+            }
+
+        } catch (IOException e) {
+            job.finish(CommandJob.Status.ERROR, null, "Error al crear proceso: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.destroyForcibly();
+            job.finish(CommandJob.Status.ERROR, null, "Proceso interrumpido: " + e.getMessage());
+        } catch (Exception e) {
+            job.finish(CommandJob.Status.ERROR, null, "Error inesperado: " + e.getMessage());
+        } finally {
+            if (started) {
+                record(job, System.nanoTime() - start);
+            }
+        }
+    }
+
+    private void record(CommandJob job, long nanos) {
+        appMetrics.recordCommand(metricResult(job.getStatus()), nanos);
+        auditLog.append("command", job.getUser(), job.getCommand(),
+                job.getStatus() == CommandJob.Status.SUCCEEDED, logSummary(job));
+    }
+
+    private static String metricResult(CommandJob.Status status) {
+        switch (status) {
+            case SUCCEEDED:
+                return "success";
+            case FAILED:
+                return "failure";
+            case TIMEOUT:
+                return "timeout";
+            case CANCELLED:
+                return "cancelled";
+            default:
+                return "error";
+        }
+    }
+
+    private static String logSummary(CommandJob job) {
+        switch (job.getStatus()) {
+            case TIMEOUT:
+                return "Timeout";
+            case CANCELLED:
+                return "Cancelado";
+            case ERROR:
+                return String.valueOf(job.toResultMap().get("error"));
+            default:
+                return job.getOutput();
+        }
+    }
+
+    /**
+     * Quita los trabajos terminados hace más de retention-ms y, si aun así
+     * se supera max-retained, los terminados más antiguos
+     */
+    private void evictFinished() {
+        long now = System.currentTimeMillis();
+        for (CommandJob job : jobs.values()) {
+            if (job.isFinished() && now - job.getFinishedAt() > retentionMs) {
+                remove(job);
+            }
+        }
+        if (jobs.size() < maxRetained) {
+            return;
+        }
+        List<CommandJob> finished = new ArrayList<>();
+        for (CommandJob job : jobs.values()) {
+            if (job.isFinished()) {
+                finished.add(job);
+            }
+        }
+        finished.sort(Comparator.comparingLong(CommandJob::getFinishedAt));
+        for (int i = 0; i < finished.size() && jobs.size() >= maxRetained; i++) {
+            remove(finished.get(i));
+        }
+    }
+
+    private void remove(CommandJob job) {
+        jobs.remove(job.getId());
+        job.getOutputBuffer().close();
+    }
+
+    /**
+     * Sigue la salida de un trabajo por SSE: primero lo ya recibido (desde la
+     * línea from) y después cada línea nueva, en eventos "output"; al terminar
+     * envía un evento "status" y cierra. Si el cliente se queda tan atrás que
+     * las líneas ya no están en memoria, el evento indica el salto ("skipped")
+     * y sigue por la cola. Devuelve null si el trabajo no existe.
+     */
+    public SseEmitter stream(String id, long from) {
+        CommandJob job = jobs.get(id);
+        if (job == null) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs + 60_000);
+        JobSubscriber subscriber = new JobSubscriber(job, emitter, Math.max(0, from));
+
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+
+        subscriber.offer();
+        return emitter;
+    }
+
+    /**
+     * Cliente SSE de un trabajo. Como mucho hay un envío en curso por
+     * cliente; los avisos que llegan mientras tanto se agrupan en el
+     * siguiente lote, así el hilo del comando nunca espera al navegador.
+     */
+    private class JobSubscriber {
+        private final CommandJob job;
+        private final SseEmitter emitter;
+        private final AtomicBoolean dirty = new AtomicBoolean();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final Runnable listener = this::offer;
+        private volatile boolean closed;
+        private long sent;
+
+        JobSubscriber(CommandJob job, SseEmitter emitter, long from) {
+            this.job = job;
+            this.emitter = emitter;
+            this.sent = from;
+            job.addListener(listener);
+        }
+
+        void offer() {
+            dirty.set(true);
+            if (!closed && sending.compareAndSet(false, true)) {
+                try {
+                    streamSender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    sending.set(false);
+                }
+            }
+        }
+
+        void close() {
+            closed = true;
+            job.removeListener(listener);
+        }
+
+        private void drain() {
+            try {
+                while (!closed) {
+                    dirty.set(false);
+                    // El estado se lee antes que las líneas: si ya había terminado, no llegarán más
+                    boolean finished = job.isFinished();
+                    CommandOutputBuffer.Chunk chunk = job.getOutputBuffer().read(sent, STREAM_BATCH_LINES);
+                    if (!chunk.getLines().isEmpty()) {
+                        Map<String, Object> data = new HashMap<>();
+                        data.put("from", chunk.getFirst());
+                        data.put("skipped", chunk.getFirst() - sent);
+                        data.put("lines", chunk.getLines());
+                        emitter.send(SseEmitter.event()
+                                .name("output")
+                                .data(jsonMapper.writeValueAsString(data), MediaType.APPLICATION_JSON));
+                        sent = chunk.getFirst() + chunk.getLines().size();
+                        continue;
+                    }
+                    if (finished) {
+                        emitter.send(SseEmitter.event()
+                                .name("status")
+                                .data(jsonMapper.writeValueAsString(job.toStatusMap()), MediaType.APPLICATION_JSON));
+                        close();
+                        emitter.complete();
+                        return;
+                    }
+                    sending.set(false);
+                    // Un aviso pudo llegar entre la lectura y set(false)
+                    if (!dirty.get() || !sending.compareAndSet(false, true)) {
+                        return;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            }
+            sending.set(false);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.antovdv.centro_computo.service;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Salida de un comando con memoria acotada. En memoria solo se guardan las
+ * primeras headLines líneas y las últimas tailLines (en un anillo), cada una
+ * recortada a maxLineChars; en cuanto la salida deja de caber así, todo se
+ * escribe también en un fichero temporal, del que se sirve el log completo.
+ * El fichero deja de crecer al llegar a maxSpillBytes.
+ */
+public class CommandOutputBuffer implements Closeable {
+
+    /**
+     * Líneas consecutivas a partir de la línea first (índice global)
+     */
+    public static final class Chunk {
+        private final long first;
+        private final List<String> lines;
+
+        Chunk(long first, List<String> lines) {
+            this.first = first;
+            this.lines = lines;
+        }
+
+        public long getFirst() {
+            return first;
+        }
+
+        public List<String> getLines() {
+            return lines;
+        }
+    }
+
+    private final int headLines;
+    private final int tailLines;
+    private final int maxLineChars;
+    private final long maxSpillBytes;
+    private final Path spillDir;
+
+    private final List<String> head = new ArrayList<>();
+    private final String[] tail;
+    private long totalLines;
+    private long totalBytes;
+    // Línea en curso (aún sin '\n'), recortada a maxLineChars
+    private final StringBuilder partial = new StringBuilder();
+    private boolean partialTruncated;
+    private char pendingHighSurrogate;
+
+    private Path spillFile;
+    private OutputStream spillOut;
+    private long spilledBytes;
+    private boolean spillTruncated;
+    private boolean spillFailed;
+
+    public CommandOutputBuffer(int headLines, int tailLines, int maxLineChars, long maxSpillBytes, Path spillDir) {
+        this.headLines = Math.max(1, headLines);
+        this.tailLines = Math.max(1, tailLines);
+        this.maxLineChars = maxLineChars;
+        this.maxSpillBytes = maxSpillBytes;
+        this.spillDir = spillDir;
+        this.tail = new String[this.tailLines];
+    }
+
+    /**
+     * Añade una línea completa (sin el salto)
+     */
+    public void append(String line) {
+        char[] chars = (line + "\n").toCharArray();
+        append(chars, 0, chars.length);
+    }
+
+    /**
+     * Añade un trozo de salida tal como se leyó. Las líneas se cierran en
+     * cada '\n'; de la línea en curso solo se guardan maxLineChars en
+     * memoria aunque el comando escriba megas sin salto de línea.
+     */
+    public synchronized void append(char[] chars, int offset, int length) {
+        int end = offset + length;
+        if (pendingHighSurrogate != 0 && length > 0) {
+            // Par sustituto partido entre dos lecturas: se junta con su segunda mitad
+            char[] joined = new char[length + 1];
+            joined[0] = pendingHighSurrogate;
+            System.arraycopy(chars, offset, joined, 1, length);
+            pendingHighSurrogate = 0;
+            chars = joined;
+            offset = 0;
+            end = joined.length;
+        }
+        if (end > offset && Character.isHighSurrogate(chars[end - 1])) {
+            pendingHighSurrogate = chars[end - 1];
+            end--;
+        }
+
+        int start = offset;
+        for (int i = offset; i < end; i++) {
+            if (chars[i] == '\n') {
+                appendPartial(chars, start, i + 1 - start);
+                endLine();
+                start = i + 1;
+            }
+        }
+        appendPartial(chars, start, end - start);
+    }
+
+    private void appendPartial(char[] chars, int offset, int length) {
+        if (length == 0) {
+            return;
+        }
+        String text = new String(chars, offset, length);
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int visible = text.endsWith("\n") ? length - 1 : length;
+        int room = maxLineChars - partial.length();
+
+        // Se vuelca a disco en cuanto algo deja de caber en memoria tal cual
+        boolean overflow = totalLines >= headLines || partialTruncated || visible > room;
+        if (overflow && spillFile == null && !spillFailed) {
+            startSpill();
+        }
+        if (spillOut != null) {
+            writeSpill(bytes);
+        }
+
+        if (visible > room) {
+            partialTruncated = true;
+        }
+        if (room > 0) {
+            partial.append(text, 0, Math.min(visible, room));
+        }
+        totalBytes += bytes.length;
+    }
+
+    private void endLine() {
+        int length = partial.length();
+        if (length > 0 && partial.charAt(length - 1) == '\r') {
+            partial.setLength(length - 1);
+        }
+        String kept = partialTruncated ? partial + " [...]" : partial.toString();
+        partial.setLength(0);
+        partialTruncated = false;
+
+        if (totalLines < headLines) {
+            head.add(kept);
+        } else {
+            tail[(int) (totalLines % tailLines)] = kept;
+        }
+        totalLines++;
+    }
+
+    private void startSpill() {
+        try {
+            Files.createDirectories(spillDir);
+            spillFile = Files.createTempFile(spillDir, "command-", ".log");
+            spillOut = new BufferedOutputStream(Files.newOutputStream(spillFile, StandardOpenOption.APPEND), 64 * 1024);
+            for (String line : head) {
+                writeSpill((line + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            // Lo ya recibido de la línea en curso (aún cabía entero en memoria)
+            writeSpill(partial.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.err.println("No se pudo crear el fichero de salida del comando: " + e.getMessage());
+            spillFailed = true;
+            closeSpill();
+        }
+    }
+
+    private void writeSpill(byte[] bytes) {
+        if (spilledBytes + bytes.length > maxSpillBytes) {
+            spillTruncated = true;
+            closeSpill();
+            return;
+        }
+        try {
+            spillOut.write(bytes);
+            spilledBytes += bytes.length;
+        } catch (IOException e) {
+            System.err.println("Error escribiendo la salida del comando: " + e.getMessage());
+            spillFailed = true;
+            closeSpill();
+        }
+    }
+
+    private void closeSpill() {
+        if (spillOut != null) {
+            try {
+                spillOut.close();
+            } catch (IOException e) {
+                System.err.println("Error cerrando la salida del comando: " + e.getMessage());
+            }
+            spillOut = null;
+        }
+    }
+
+    /**
+     * Hasta max líneas a partir de from. Si from cae en la parte que ya no
+     * está en memoria, se devuelve desde la primera línea del anillo (el
+     * llamador ve el salto comparando first con lo que pidió).
+     */
+    public synchronized Chunk read(long from, int max) {
+        List<String> lines = new ArrayList<>();
+        if (from < head.size()) {
+            for (long i = from; i < head.size() && lines.size() < max; i++) {
+                lines.add(head.get((int) i));
+            }
+            return new Chunk(from, lines);
+        }
+        long first = Math.max(from, firstTailLine());
+        for (long i = first; i < totalLines && lines.size() < max; i++) {
+            lines.add(tail[(int) (i % tailLines)]);
+        }
+        return new Chunk(first, lines);
+    }
+
+    private long firstTailLine() {
+        return Math.max(headLines, totalLines - tailLines);
+    }
+
+    /**
+     * Cabecera y cola en memoria; si se omitieron líneas se indica en medio
+     */
+    public synchronized String getText() {
+        StringBuilder text = new StringBuilder();
+        for (String line : head) {
+            text.append(line).append("\n");
+        }
+        long firstTail = firstTailLine();
+        if (firstTail > headLines) {
+            text.append("\n... ").append(firstTail - headLines)
+                    .append(" líneas omitidas (descargue el log completo) ...\n\n");
+        }
+        for (long i = firstTail; i < totalLines; i++) {
+            text.append(tail[(int) (i % tailLines)]).append("\n");
+        }
+        return text.toString();
+    }
+
+    public synchronized long getTotalLines() {
+        return totalLines;
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized long getOmittedLines() {
+        return Math.max(0, firstTailLine() - headLines);
+    }
+
+    public synchronized boolean isSpilled() {
+        return spillFile != null && !spillFailed;
+    }
+
+    /**
+     * Tamaño del log completo descargable: el fichero si hubo volcado, si no la salida en memoria
+     */
+    public synchronized long getDownloadSize() {
+        return isSpilled() ? spilledBytes : getText().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    public synchronized boolean isDownloadTruncated() {
+        return spillTruncated || spillFailed;
+    }
+
+    /**
+     * Copia count bytes del log completo desde position. Con fichero se usa
+     * FileChannel.transferTo; hacia la salida del servlet no es copia cero
+     * (el JDK copia por un búfer intermedio), pero nunca se carga el fichero
+     * entero en memoria.
+     */
+    public void transferTo(long position, long count, OutputStream out) throws IOException {
+        Path file;
+        synchronized (this) {
+            if (!isSpilled()) {
+                byte[] bytes = getText().getBytes(StandardCharsets.UTF_8);
+                int start = (int) Math.min(position, bytes.length);
+                out.write(bytes, start, (int) Math.min(count, bytes.length - start));
+                return;
+            }
+            if (spillOut != null) {
+                spillOut.flush();
+            }
+            file = spillFile;
+        }
+
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long remaining = Math.min(count, channel.size() - position);
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * Cierra y borra el fichero temporal
+     */
+    @Override
+    public synchronized void close() {
+        closeSpill();
+        if (spillFile != null) {
+            try {
+                Files.deleteIfExists(spillFile);
+            } catch (IOException e) {
+                System.err.println("No se pudo borrar " + spillFile + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Termina la escritura (el comando acabó) pero conserva el fichero para
+     * su descarga. Una última línea sin '\n' cuenta como línea.
+     */
+    public synchronized void finish() {
+        if (pendingHighSurrogate != 0) {
+            char[] rest = {pendingHighSurrogate};
+            pendingHighSurrogate = 0;
+            appendPartial(rest, 0, 1);
+        }
+        if (partial.length() > 0 || partialTruncated) {
+            endLine();
+        }
+        closeSpill();
+    }
+}
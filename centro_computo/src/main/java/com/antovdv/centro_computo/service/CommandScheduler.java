@@ -0,0 +1,310 @@
+package com.antovdv.centro_computo.service;
+
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Planificador de los comandos de la consola. Decide qué trabajo en cola
+ * pasa a ejecutarse respetando un máximo global de comandos en marcha y un
+ * máximo por usuario. Hay una cola por prioridad (los administradores van
+ * primero) y, dentro de cada una, los usuarios se turnan: quien encola
+ * muchos comandos no retrasa a los demás. Los límites de cola (por usuario y
+ * total) hacen que una ráfaga de peticiones se rechace en vez de acumularse.
+ */
+public class CommandScheduler {
+
+    // Esperas recientes que se guardan por prioridad para calcular percentiles
+    private static final int WAIT_SAMPLES = 256;
+
+    public enum Priority {
+        HIGH, NORMAL, LOW;
+
+        /**
+         * ADMINISTRADOR en la cola alta, TECNICO en la normal y el resto en la baja
+         */
+        public static Priority forUserType(String userType) {
+            if ("ADMINISTRADOR".equalsIgnoreCase(userType)) {
+                return HIGH;
+            }
+            if ("TECNICO".equalsIgnoreCase(userType)) {
+                return NORMAL;
+            }
+            return LOW;
+        }
+    }
+
+    /**
+     * El trabajo no cabe en la cola; perUser indica si es por el límite del
+     * usuario (y no por el total)
+     */
+    public static class QueueFullException extends RejectedExecutionException {
+        private final boolean perUser;
+
+        QueueFullException(String message, boolean perUser) {
+            super(message);
+            this.perUser = perUser;
+        }
+
+        public boolean isPerUser() {
+            return perUser;
+        }
+    }
+
+    private static final class Entry {
+        final CommandJob job;
+        final long enqueuedNanos = System.nanoTime();
+
+        Entry(CommandJob job) {
+            this.job = job;
+        }
+    }
+
+    private static final class UserState {
+        int running;
+        int queued;
+    }
+
+    private static final class Lane {
+        // Cola de cada usuario; el orden del mapa es el turno (el atendido pasa al final)
+        final LinkedHashMap<String, ArrayDeque<Entry>> queues = new LinkedHashMap<>();
+        final long[] waits = new long[WAIT_SAMPLES];
+        int queued;
+        int running;
+        long dispatched;
+        long totalWaitNanos;
+    }
+
+    private final int maxRunning;
+    private final int maxRunningPerUser;
+    private final int maxQueuedPerUser;
+    private final int queueCapacity;
+    private final Consumer<CommandJob> launcher;
+    private final AppMetrics appMetrics;
+
+    private final EnumMap<Priority, Lane> lanes = new EnumMap<>(Priority.class);
+    private final Map<String, UserState> users = new HashMap<>();
+    private final Map<CommandJob, Priority> runningJobs = new HashMap<>();
+    private int running;
+    private int queued;
+    private long rejectedPerUser;
+    private long rejectedFull;
+
+    /**
+     * launcher ejecuta el trabajo elegido (fuera del bloqueo) y debe llamar a
+     * release() cuando termine
+     */
+    public CommandScheduler(int maxRunning, int maxRunningPerUser, int maxQueuedPerUser, int queueCapacity,
+                            Consumer<CommandJob> launcher, AppMetrics appMetrics) {
+        this.maxRunning = Math.max(1, maxRunning);
+        this.maxRunningPerUser = Math.max(1, maxRunningPerUser);
+        this.maxQueuedPerUser = Math.max(0, maxQueuedPerUser);
+        this.queueCapacity = Math.max(0, queueCapacity);
+        this.launcher = launcher;
+        this.appMetrics = appMetrics;
+        for (Priority priority : Priority.values()) {
+            lanes.put(priority, new Lane());
+        }
+    }
+
+    public int getMaxRunning() {
+        return maxRunning;
+    }
+
+    /**
+     * Encola el trabajo y arranca lo que quepa. Lanza QueueFullException si
+     * el usuario ya tiene max-queued-per-user en cola o la cola total está llena.
+     */
+    public void enqueue(CommandJob job) {
+        List<CommandJob> toLaunch;
+        synchronized (this) {
+            UserState user = users.computeIfAbsent(job.getUser(), k -> new UserState());
+            boolean mustWait = running >= maxRunning || user.running >= maxRunningPerUser;
+            if (mustWait && user.queued >= maxQueuedPerUser) {
+                rejectedPerUser++;
+                forgetIfIdle(job.getUser(), user);
+                throw new QueueFullException("Tiene demasiados comandos pendientes (máximo "
+                        + maxRunningPerUser + " en ejecución y " + maxQueuedPerUser + " en cola)", true);
+            }
+            if (mustWait && queued >= queueCapacity) {
+                rejectedFull++;
+                forgetIfIdle(job.getUser(), user);
+                throw new QueueFullException("Demasiados comandos en ejecución, inténtelo más tarde", false);
+            }
+
+            Lane lane = lanes.get(job.getPriority());
+            lane.queues.computeIfAbsent(job.getUser(), k -> new ArrayDeque<>()).addLast(new Entry(job));
+            lane.queued++;
+            user.queued++;
+            queued++;
+            toLaunch = selectRunnable();
+        }
+        launch(toLaunch);
+    }
+
+    /**
+     * Quita de la cola un trabajo cancelado antes de arrancar; false si ya
+     * había pasado a ejecución (release() se llamará igualmente)
+     */
+    public boolean remove(CommandJob job) {
+        synchronized (this) {
+            Lane lane = lanes.get(job.getPriority());
+            ArrayDeque<Entry> queue = lane.queues.get(job.getUser());
+            if (queue == null || !queue.removeIf(entry -> entry.job == job)) {
+                return false;
+            }
+            if (queue.isEmpty()) {
+                lane.queues.remove(job.getUser());
+            }
+            lane.queued--;
+            queued--;
+            UserState user = users.get(job.getUser());
+            user.queued--;
+            forgetIfIdle(job.getUser(), user);
+            return true;
+        }
+    }
+
+    /**
+     * El trabajo terminó: libera su plaza y arranca los siguientes
+     */
+    public void release(CommandJob job) {
+        List<CommandJob> toLaunch;
+        synchronized (this) {
+            Priority priority = runningJobs.remove(job);
+            if (priority == null) {
+                return;
+            }
+            running--;
+            lanes.get(priority).running--;
+            UserState user = users.get(job.getUser());
+            user.running--;
+            forgetIfIdle(job.getUser(), user);
+            toLaunch = selectRunnable();
+        }
+        launch(toLaunch);
+    }
+
+    private void launch(List<CommandJob> jobs) {
+        for (CommandJob job : jobs) {
+            try {
+                launcher.accept(job);
+            } catch (RuntimeException e) {
+                System.err.println("No se pudo lanzar el comando " + job.getId() + ": " + e.getMessage());
+                release(job);
+            }
+        }
+    }
+
+    /**
+     * Saca de las colas, por prioridad y por turno de usuario, todo lo que
+     * puede arrancar ya. Se llama con el bloqueo tomado.
+     */
+    private List<CommandJob> selectRunnable() {
+        List<CommandJob> selected = new ArrayList<>();
+        for (Lane lane : lanes.values()) {
+            boolean progress = true;
+            while (running < maxRunning && lane.queued > 0 && progress) {
+                progress = false;
+                for (Iterator<Map.Entry<String, ArrayDeque<Entry>>> it = lane.queues.entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<String, ArrayDeque<Entry>> turn = it.next();
+                    UserState user = users.get(turn.getKey());
+                    if (user.running >= maxRunningPerUser) {
+                        continue;
+                    }
+                    Entry entry = turn.getValue().pollFirst();
+                    it.remove();
+                    if (!turn.getValue().isEmpty()) {
+                        // Al final del turno para que pasen antes los demás usuarios
+                        lane.queues.put(turn.getKey(), turn.getValue());
+                    }
+                    start(lane, user, entry);
+                    selected.add(entry.job);
+                    progress = true;
+                    break;
+                }
+            }
+            if (running >= maxRunning) {
+                break;
+            }
+        }
+        return selected;
+    }
+
+    private void start(Lane lane, UserState user, Entry entry) {
+        long waitNanos = System.nanoTime() - entry.enqueuedNanos;
+        lane.waits[(int) (lane.dispatched % WAIT_SAMPLES)] = waitNanos;
+        lane.dispatched++;
+        lane.totalWaitNanos += waitNanos;
+        lane.queued--;
+        lane.running++;
+        user.queued--;
+        user.running++;
+        queued--;
+        running++;
+        runningJobs.put(entry.job, entry.job.getPriority());
+        if (appMetrics != null) {
+            appMetrics.recordCommandWait(entry.job.getPriority().name().toLowerCase(), waitNanos);
+        }
+    }
+
+    private void forgetIfIdle(String name, UserState user) {
+        if (user.running == 0 && user.queued == 0) {
+            users.remove(name);
+        }
+    }
+
+    /**
+     * Profundidad de cola y esperas por prioridad, y ocupación por usuario
+     */
+    public synchronized Map<String, Object> getStats() {
+        long now = System.nanoTime();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("maxRunning", maxRunning);
+        stats.put("maxRunningPerUser", maxRunningPerUser);
+        stats.put("maxQueuedPerUser", maxQueuedPerUser);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("running", running);
+        stats.put("queued", queued);
+        stats.put("rejectedPerUser", rejectedPerUser);
+        stats.put("rejectedFull", rejectedFull);
+
+        List<Map<String, Object>> laneStats = new ArrayList<>();
+        for (Map.Entry<Priority, Lane> item : lanes.entrySet()) {
+            Lane lane = item.getValue();
+            long oldest = 0;
+            for (ArrayDeque<Entry> queue : lane.queues.values()) {
+                oldest = Math.max(oldest, now - queue.peekFirst().enqueuedNanos);
+            }
+            int samples = (int) Math.min(lane.dispatched, WAIT_SAMPLES);
+            long[] recent = Arrays.copyOf(lane.waits, samples);
+            Arrays.sort(recent);
+
+            Map<String, Object> data = new HashMap<>();
+            data.put("priority", item.getKey().name().toLowerCase());
+            data.put("queued", lane.queued);
+            data.put("running", lane.running);
+            data.put("waitingUsers", lane.queues.size());
+            data.put("dispatched", lane.dispatched);
+            data.put("oldestWaitMs", oldest / 1_000_000);
+            data.put("avgWaitMs", lane.dispatched > 0 ? lane.totalWaitNanos / lane.dispatched / 1_000_000 : 0);
+            data.put("p50WaitMs", samples > 0 ? recent[(samples - 1) / 2] / 1_000_000 : 0);
+            data.put("p95WaitMs", samples > 0 ? recent[(int) Math.ceil(samples * 0.95) - 1] / 1_000_000 : 0);
+            laneStats.add(data);
+        }
+        stats.put("lanes", laneStats);
+
+        List<Map<String, Object>> userStats = new ArrayList<>();
+        for (Map.Entry<String, UserState> item : users.entrySet()) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("user", item.getKey());
+            data.put("running", item.getValue().running);
+            data.put("queued", item.getValue().queued);
+            userStats.add(data);
+        }
+        userStats.sort(Comparator.comparing((Map<String, Object> m) -> (Integer) m.get("queued")
+                + (Integer) m.get("running")).reversed());
+        stats.put("users", userStats);
+        return stats;
+    }
+}
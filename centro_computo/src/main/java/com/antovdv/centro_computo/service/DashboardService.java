@@ -0,0 +1,132 @@
+package com.antovdv.centro_computo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Construye el agregado de /api/monitor/dashboard lanzando las secciones en
+ * paralelo. Cada sección tiene el mismo plazo (section-timeout-ms); si no
+ * llega, se devuelve su último valor conocido marcado como "stale" (o null
+ * si nunca lo hubo) en vez de hacer fallar o esperar toda la respuesta.
+ */
+@Service
+public class DashboardService {
+
+    private final long sectionTimeoutMs;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Section> sections = new LinkedHashMap<>();
+
+    public DashboardService(MetricsCollectorService metricsCollector,
+                            SystemMonitorService monitorService,
+                            AlertService alertService,
+                            @Value("${app.monitoring.dashboard.section-timeout-ms:2000}") long sectionTimeoutMs,
+                            @Value("${app.monitoring.dashboard.threads:4}") int threads) {
+        this.sectionTimeoutMs = sectionTimeoutMs;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(64), r -> {
+                    Thread thread = new Thread(r, "dashboard-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+
+        sections.put("metrics", new Section(metricsCollector::getLatestMetrics));
+        sections.put("topProcesses", new Section(() -> monitorService.getTopProcesses(100)));
+        sections.put("alerts", new Section(alertService::getActiveAlerts));
+        sections.put("systemInfo", new Section(monitorService::getSystemStatus));
+    }
+
+    public Map<String, Object> getDashboard() {
+        Map<String, CompletableFuture<Object>> futures = new LinkedHashMap<>();
+        for (Map.Entry<String, Section> entry : sections.entrySet()) {
+            futures.put(entry.getKey(), entry.getValue().start());
+        }
+
+        Map<String, Object> dashboard = new HashMap<>();
+        Map<String, Object> status = new HashMap<>();
+        boolean partial = false;
+        long deadline = System.currentTimeMillis() + sectionTimeoutMs;
+
+        for (Map.Entry<String, CompletableFuture<Object>> entry : futures.entrySet()) {
+            String name = entry.getKey();
+            Section section = sections.get(name);
+            Map<String, Object> sectionStatus = new HashMap<>();
+
+            try {
+                long remaining = Math.max(0, deadline - System.currentTimeMillis());
+                dashboard.put(name, entry.getValue().get(remaining, TimeUnit.MILLISECONDS));
+                sectionStatus.put("status", "ok");
+            } catch (TimeoutException | ExecutionException e) {
+                partial = true;
+                dashboard.put(name, section.lastValue);
+                sectionStatus.put("status", section.lastValue != null ? "stale" : "missing");
+                if (section.lastValue != null) {
+                    sectionStatus.put("ageMs", System.currentTimeMillis() - section.lastTime);
+                }
+                if (e instanceof ExecutionException) {
+                    sectionStatus.put("error", e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+                } else {
+                    sectionStatus.put("error", "Tiempo límite excedido (" + sectionTimeoutMs + " ms)");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                partial = true;
+                dashboard.put(name, section.lastValue);
+                sectionStatus.put("status", "stale");
+            }
+            status.put(name, sectionStatus);
+        }
+
+        dashboard.put("sections", status);
+        dashboard.put("partial", partial);
+        return dashboard;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Una sección del dashboard. Si la ejecución anterior sigue en marcha
+     * (por ejemplo, tras un timeout) se reutiliza en lugar de lanzar otra, así
+     * un recolector lento no acumula tareas en la cola.
+     */
+    private class Section {
+        private final Supplier<Object> supplier;
+        private CompletableFuture<Object> running;
+        private volatile Object lastValue;
+        private volatile long lastTime;
+
+        Section(Supplier<Object> supplier) {
+            this.supplier = supplier;
+        }
+
+        synchronized CompletableFuture<Object> start() {
+            if (running != null && !running.isDone()) {
+                return running;
+            }
+            try {
+                running = CompletableFuture.supplyAsync(() -> {
+                    Object value = supplier.get();
+                    lastValue = value;
+                    lastTime = System.currentTimeMillis();
+                    return value;
+                }, executor);
+            } catch (RejectedExecutionException e) {
+                running = CompletableFuture.failedFuture(e);
+            }
+            return running;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.antovdv.centro_computo.service;
 
 import com.antovdv.centro_computo.database;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.sql.*;
@@ -10,6 +11,27 @@ import java.util.*;
 @Service
 public class DatabaseManagementService {
 
+    // Las estadísticas se consultan como mucho una vez por TTL, las pida quien las pida
+    private final VersionedCache<Map<String, Object>> statisticsCache;
+
+    public DatabaseManagementService(@Value("${app.database.statistics.ttl-ms:5000}") long statisticsTtlMs) {
+        this.statisticsCache = new VersionedCache<>(this::getDatabaseStatistics, statisticsTtlMs);
+    }
+
+    /**
+     * Estadísticas cacheadas con su versión (para ETag / 304)
+     */
+    public VersionedCache.Entry<Map<String, Object>> getCachedStatistics() {
+        return statisticsCache.get();
+    }
+
+    /**
+     * Descartar las estadísticas cacheadas (p. ej. tras modificar la base de datos)
+     */
+    public void invalidateStatistics() {
+        statisticsCache.invalidate();
+    }
+
     /**
      * Obtiene todas las conexiones activas a la base de datos
      */
@@ -0,0 +1,118 @@
+package com.antovdv.centro_computo.service;
+
+import oshi.software.os.FileSystem;
+import oshi.software.os.OSFileStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Ocupación por punto de montaje (bytes e inodos). Enumerar los sistemas de
+ * archivos es caro, así que la lista se guarda y solo se vuelve a pedir a
+ * OSHI cuando cambian los montajes: en Linux se compara el contenido de
+ * /proc/self/mounts, y en cualquier sistema un updateAttributes() fallido
+ * (montaje desaparecido) o el refresco periódico de seguridad también la
+ * invalidan. En cada muestra solo se actualizan las cifras de cada montaje.
+ */
+public class FileSystemCollector {
+
+    private static final Path MOUNTS = Paths.get("/proc/self/mounts");
+    // Sin /proc/self/mounts no hay forma barata de detectar montajes nuevos
+    private static final long FALLBACK_REFRESH_MS = 5 * 60 * 1000;
+
+    private final FileSystem fileSystem;
+    private final boolean canWatchMounts;
+
+    private List<OSFileStore> fileStores = List.of();
+    private int mountsHash;
+    private long enumeratedAt;
+    private boolean stale = true;
+    private int enumerations;
+
+    public FileSystemCollector(FileSystem fileSystem) {
+        this.fileSystem = fileSystem;
+        this.canWatchMounts = Files.isReadable(MOUNTS);
+    }
+
+    /**
+     * Devuelve un mapa por montaje con: mount, name, type, totalBytes,
+     * usedBytes, freeBytes, usagePercent, totalInodes, freeInodes,
+     * inodeUsagePercent
+     */
+    public synchronized List<Map<String, Object>> collect(long now) {
+        refreshMountsIfChanged(now);
+
+        List<Map<String, Object>> result = new ArrayList<>(fileStores.size());
+        for (OSFileStore store : fileStores) {
+            if (!store.updateAttributes()) {
+                // El montaje ya no existe: se re-enumera en la siguiente muestra
+                stale = true;
+                continue;
+            }
+            long total = store.getTotalSpace();
+            if (total <= 0) {
+                continue;
+            }
+            long free = store.getUsableSpace();
+            long used = total - store.getFreeSpace();
+            long totalInodes = store.getTotalInodes();
+            long freeInodes = store.getFreeInodes();
+
+            Map<String, Object> data = new HashMap<>();
+            data.put("mount", store.getMount());
+            data.put("name", store.getName());
+            data.put("type", store.getType());
+            data.put("totalBytes", total);
+            data.put("usedBytes", used);
+            data.put("freeBytes", free);
+            // Igual que df: usado / (usado + disponible para usuarios)
+            data.put("usagePercent", percent(used, used + free));
+            data.put("totalInodes", totalInodes);
+            data.put("freeInodes", freeInodes);
+            data.put("inodeUsagePercent", percent(totalInodes - freeInodes, totalInodes));
+            result.add(data);
+        }
+        return result;
+    }
+
+    /**
+     * Número de veces que se ha enumerado la lista de montajes
+     */
+    public synchronized int getEnumerations() {
+        return enumerations;
+    }
+
+    private void refreshMountsIfChanged(long now) {
+        if (canWatchMounts) {
+            int hash = readMountsHash();
+            if (hash != mountsHash) {
+                mountsHash = hash;
+                stale = true;
+            }
+        } else if (now - enumeratedAt >= FALLBACK_REFRESH_MS) {
+            stale = true;
+        }
+
+        if (stale) {
+            fileStores = fileSystem.getFileStores(true);
+            enumeratedAt = now;
+            stale = false;
+            enumerations++;
+        }
+    }
+
+    private static int readMountsHash() {
+        try {
+            return Arrays.hashCode(Files.readAllBytes(MOUNTS));
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static double percent(long part, long total) {
+        return total > 0 ? Math.round((double) part / total * 100 * 100.0) / 100.0 : 0;
+    }
+}
@@ -0,0 +1,264 @@
+package com.antovdv.centro_computo.service;
+
+import com.antovdv.centro_computo.dto.FleetBatchDTO;
+import com.antovdv.centro_computo.dto.FleetSampleDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Agregador central de la flota. Cada host tiene su propio almacén (buffers
+ * circulares por métrica, última muestra y procesos más activos) con su
+ * propio cerrojo, de modo que la ingesta de un host no bloquea a los demás
+ * ni a las consultas. Las vistas de toda la flota recorren la última muestra
+ * de cada host y se quedan con los N mayores con un montículo acotado.
+ */
+@Service
+public class FleetService {
+
+    // Métricas que se guardan por host, en el orden de FleetSampleDTO
+    private static final Map<String, ToDoubleFunction<FleetSampleDTO>> METRICS = new LinkedHashMap<>();
+
+    static {
+        METRICS.put("cpu", FleetSampleDTO::getCpu);
+        METRICS.put("memory", FleetSampleDTO::getMemory);
+        METRICS.put("disk", FleetSampleDTO::getDisk);
+        METRICS.put("diskRead", FleetSampleDTO::getDiskReadBytesPerSec);
+        METRICS.put("diskWrite", FleetSampleDTO::getDiskWriteBytesPerSec);
+        METRICS.put("netRx", FleetSampleDTO::getNetRxBytesPerSec);
+        METRICS.put("netTx", FleetSampleDTO::getNetTxBytesPerSec);
+    }
+
+    private final int historyPoints;
+    private final int maxHosts;
+    private final long staleAfterMs;
+    private final String token;
+
+    private final Map<String, HostStore> hosts = new ConcurrentHashMap<>();
+
+    public FleetService(@Value("${app.fleet.history-points:3600}") int historyPoints,
+                        @Value("${app.fleet.max-hosts:500}") int maxHosts,
+                        @Value("${app.fleet.stale-after-seconds:60}") long staleAfterSeconds,
+                        @Value("${app.fleet.token:}") String token) {
+        this.historyPoints = historyPoints;
+        this.maxHosts = maxHosts;
+        this.staleAfterMs = staleAfterSeconds * 1000;
+        this.token = token;
+    }
+
+    public static Set<String> getMetricNames() {
+        return METRICS.keySet();
+    }
+
+    /**
+     * Sin app.fleet.token configurado se acepta cualquier agente
+     */
+    public boolean isAuthorized(String providedToken) {
+        return token.isEmpty() || token.equals(providedToken);
+    }
+
+    /**
+     * Guarda un lote de un agente. Devuelve el número de muestras aceptadas,
+     * o -1 si el host es nuevo y ya se alcanzó max-hosts.
+     */
+    public int ingest(FleetBatchDTO batch) {
+        String hostName = batch.getHost().trim();
+        HostStore store = hosts.get(hostName);
+        if (store == null) {
+            if (hosts.size() >= maxHosts) {
+                return -1;
+            }
+            store = hosts.computeIfAbsent(hostName, HostStore::new);
+        }
+        return store.ingest(batch, System.currentTimeMillis());
+    }
+
+    /**
+     * Resumen de todos los hosts con su última muestra
+     */
+    public List<Map<String, Object>> getHosts() {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (HostStore store : new TreeMap<>(hosts).values()) {
+            result.add(store.summary(now));
+        }
+        return result;
+    }
+
+    /**
+     * Vista de un host: resumen más procesos más activos; null si no existe
+     */
+    public Map<String, Object> getHost(String hostName) {
+        HostStore store = hosts.get(hostName);
+        if (store == null) {
+            return null;
+        }
+        Map<String, Object> data = store.summary(System.currentTimeMillis());
+        data.put("topProcesses", store.getTopProcesses());
+        return data;
+    }
+
+    /**
+     * Puntos [timestamp, valor] de una métrica de un host en [from, to];
+     * null si el host no existe
+     */
+    public List<double[]> getHistory(String hostName, String metric, long from, long to) {
+        HostStore store = hosts.get(hostName);
+        if (store == null) {
+            return null;
+        }
+        return store.history(metric, from, to);
+    }
+
+    /**
+     * Los limit hosts con el valor más alto de la métrica en su última muestra.
+     * Los hosts sin datos recientes no cuentan.
+     */
+    public List<Map<String, Object>> getTopHosts(String metric, int limit) {
+        ToDoubleFunction<FleetSampleDTO> extractor = METRICS.get(metric);
+        long now = System.currentTimeMillis();
+
+        // Montículo de mínimos con los limit mayores vistos hasta ahora
+        PriorityQueue<Map.Entry<HostStore, Double>> heap =
+                new PriorityQueue<>(limit + 1, Map.Entry.comparingByValue());
+        for (HostStore store : hosts.values()) {
+            FleetSampleDTO latest = store.getLatest();
+            if (latest == null || store.isStale(now)) {
+                continue;
+            }
+            heap.offer(Map.entry(store, extractor.applyAsDouble(latest)));
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            Map.Entry<HostStore, Double> entry = heap.poll();
+            Map<String, Object> data = new HashMap<>();
+            data.put("host", entry.getKey().host);
+            data.put("metric", metric);
+            data.put("value", entry.getValue());
+            data.put("lastSeen", entry.getKey().lastSeen);
+            result.add(data);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Los procesos con más CPU de toda la flota, según lo último que envió cada agente
+     */
+    public List<Map<String, Object>> getTopProcesses(int limit) {
+        long now = System.currentTimeMillis();
+        PriorityQueue<Map<String, Object>> heap =
+                new PriorityQueue<>(limit + 1, Comparator.comparingDouble(FleetService::cpuOf));
+        for (HostStore store : hosts.values()) {
+            if (store.isStale(now)) {
+                continue;
+            }
+            for (Map<String, Object> process : store.getTopProcesses()) {
+                Map<String, Object> data = new HashMap<>(process);
+                data.put("host", store.host);
+                heap.offer(data);
+                if (heap.size() > limit) {
+                    heap.poll();
+                }
+            }
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>(heap);
+        result.sort(Comparator.comparingDouble(FleetService::cpuOf).reversed());
+        return result;
+    }
+
+    private static double cpuOf(Map<String, Object> process) {
+        return process.get("cpuUsage") instanceof Number number ? number.doubleValue() : 0;
+    }
+
+    /**
+     * Datos de un host. Todo se accede con el cerrojo del propio almacén.
+     */
+    private class HostStore {
+        private final String host;
+        private final Map<String, MetricRingBuffer> series = new HashMap<>();
+
+        private String osName;
+        private Integer cpuCores;
+        private FleetSampleDTO latest;
+        private List<Map<String, Object>> topProcesses = List.of();
+        private volatile long lastSeen;
+        private long samples;
+
+        HostStore(String host) {
+            this.host = host;
+            for (String metric : METRICS.keySet()) {
+                series.put(metric, new MetricRingBuffer(historyPoints, false));
+            }
+        }
+
+        synchronized int ingest(FleetBatchDTO batch, long now) {
+            if (batch.getOsName() != null) {
+                osName = batch.getOsName();
+            }
+            if (batch.getCpuCores() != null) {
+                cpuCores = batch.getCpuCores();
+            }
+            if (batch.getTopProcesses() != null) {
+                topProcesses = List.copyOf(batch.getTopProcesses());
+            }
+            lastSeen = now;
+
+            int accepted = 0;
+            if (batch.getSamples() != null) {
+                for (FleetSampleDTO sample : batch.getSamples()) {
+                    // Los buffers son cronológicos: se ignoran muestras repetidas o desordenadas
+                    if (latest != null && sample.getTimestamp() <= latest.getTimestamp()) {
+                        continue;
+                    }
+                    for (Map.Entry<String, ToDoubleFunction<FleetSampleDTO>> metric : METRICS.entrySet()) {
+                        series.get(metric.getKey()).add(sample.getTimestamp(), metric.getValue().applyAsDouble(sample));
+                    }
+                    latest = sample;
+                    accepted++;
+                }
+            }
+            samples += accepted;
+            return accepted;
+        }
+
+        synchronized FleetSampleDTO getLatest() {
+            return latest;
+        }
+
+        synchronized List<Map<String, Object>> getTopProcesses() {
+            return topProcesses;
+        }
+
+        boolean isStale(long now) {
+            return now - lastSeen > staleAfterMs;
+        }
+
+        synchronized Map<String, Object> summary(long now) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("host", host);
+            data.put("osName", osName);
+            data.put("cpuCores", cpuCores);
+            data.put("lastSeen", lastSeen);
+            data.put("online", !isStale(now));
+            data.put("samples", samples);
+            data.put("latest", latest);
+            return data;
+        }
+
+        List<double[]> history(String metric, long from, long to) {
+            List<double[]> points = new ArrayList<>();
+            MetricRingBuffer buffer = series.get(metric);
+            buffer.forEach(from, to, (ts, avg, min, max) -> points.add(new double[]{ts, avg}));
+            return points;
+        }
+    }
+}
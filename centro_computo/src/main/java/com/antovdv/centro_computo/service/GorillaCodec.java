@@ -0,0 +1,242 @@
+package com.antovdv.centro_computo.service;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Compresión estilo Gorilla para series (timestamp, valor): timestamps con
+ * delta-de-delta y valores double con XOR respecto al anterior. Un bloque
+ * codifica una única serie; el primer punto se guarda en bruto.
+ */
+public final class GorillaCodec {
+
+    // Bits que puede ocupar un punto en el peor caso (timestamp + valor), redondeado a bytes
+    static final int MAX_POINT_BYTES = 20;
+
+    private GorillaCodec() {
+    }
+
+    /**
+     * Codifica puntos en un buffer de bytes de tamaño fijo
+     */
+    public static class Encoder {
+        private final byte[] buffer;
+        private int bitPos;
+        private int count;
+
+        private long firstTimestamp;
+        private long prevTimestamp;
+        private long prevDelta;
+        private long prevBits;
+        private int prevLeading = -1;
+        private int prevTrailing;
+
+        public Encoder(int capacityBytes) {
+            this.buffer = new byte[capacityBytes];
+        }
+
+        /**
+         * Añade un punto. Devuelve false si no cabe: hay que volcar el bloque
+         * y empezar otro. Los timestamps deben ser no decrecientes.
+         */
+        public boolean append(long timestamp, double value) {
+            if (buffer.length - byteLength() < MAX_POINT_BYTES) {
+                return false;
+            }
+            long bits = Double.doubleToRawLongBits(value);
+
+            if (count == 0) {
+                writeBits(timestamp, 64);
+                writeBits(bits, 64);
+                firstTimestamp = timestamp;
+            } else {
+                long delta = timestamp - prevTimestamp;
+                writeDeltaOfDelta(delta - prevDelta);
+                writeXor(bits ^ prevBits);
+                prevDelta = delta;
+            }
+
+            prevTimestamp = timestamp;
+            prevBits = bits;
+            count++;
+            return true;
+        }
+
+        private void writeDeltaOfDelta(long dod) {
+            if (dod == 0) {
+                writeBits(0b0, 1);
+            } else if (fits(dod, 7)) {
+                writeBits(0b10, 2);
+                writeBits(dod, 7);
+            } else if (fits(dod, 9)) {
+                writeBits(0b110, 3);
+                writeBits(dod, 9);
+            } else if (fits(dod, 12)) {
+                writeBits(0b1110, 4);
+                writeBits(dod, 12);
+            } else if (fits(dod, 32)) {
+                writeBits(0b11110, 5);
+                writeBits(dod, 32);
+            } else {
+                writeBits(0b11111, 5);
+                writeBits(dod, 64);
+            }
+        }
+
+        private void writeXor(long xor) {
+            if (xor == 0) {
+                writeBits(0b0, 1);
+                return;
+            }
+            int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int trailing = Long.numberOfTrailingZeros(xor);
+
+            if (prevLeading >= 0 && leading >= prevLeading && trailing >= prevTrailing) {
+                // Los bits significativos caben en la ventana anterior
+                writeBits(0b10, 2);
+                writeBits(xor >>> prevTrailing, 64 - prevLeading - prevTrailing);
+            } else {
+                int meaningful = 64 - leading - trailing;
+                writeBits(0b11, 2);
+                writeBits(leading, 5);
+                writeBits(meaningful - 1, 6);
+                writeBits(xor >>> trailing, meaningful);
+                prevLeading = leading;
+                prevTrailing = trailing;
+            }
+        }
+
+        private void writeBits(long value, int nbits) {
+            for (int i = nbits - 1; i >= 0; i--) {
+                if (((value >>> i) & 1L) != 0) {
+                    buffer[bitPos >>> 3] |= (byte) (0x80 >>> (bitPos & 7));
+                }
+                bitPos++;
+            }
+        }
+
+        private static boolean fits(long value, int nbits) {
+            long limit = 1L << (nbits - 1);
+            return value >= -limit && value < limit;
+        }
+
+        public void reset() {
+            Arrays.fill(buffer, 0, byteLength(), (byte) 0);
+            bitPos = 0;
+            count = 0;
+            prevDelta = 0;
+            prevLeading = -1;
+            prevTrailing = 0;
+        }
+
+        public int count() {
+            return count;
+        }
+
+        public int byteLength() {
+            return (bitPos + 7) >>> 3;
+        }
+
+        public byte[] buffer() {
+            return buffer;
+        }
+
+        public long firstTimestamp() {
+            return firstTimestamp;
+        }
+
+        public long lastTimestamp() {
+            return prevTimestamp;
+        }
+    }
+
+    /**
+     * Decodifica un bloque leyendo directamente de un ByteBuffer (por ejemplo
+     * un segmento mapeado en memoria), sin copiar los bytes.
+     */
+    public static void decode(ByteBuffer data, int offset, int count, MetricRingBuffer.PointConsumer consumer) {
+        new Decoder(data, offset).decode(count, consumer);
+    }
+
+    private static class Decoder {
+        private final ByteBuffer data;
+        private final int offset;
+        private long bitPos;
+
+        private long prevDelta;
+        private int prevLeading;
+        private int prevTrailing;
+
+        Decoder(ByteBuffer data, int offset) {
+            this.data = data;
+            this.offset = offset;
+        }
+
+        void decode(int count, MetricRingBuffer.PointConsumer consumer) {
+            if (count == 0) {
+                return;
+            }
+            long timestamp = readBits(64);
+            long bits = readBits(64);
+            double value = Double.longBitsToDouble(bits);
+            consumer.accept(timestamp, value, value, value);
+
+            for (int i = 1; i < count; i++) {
+                prevDelta += readDeltaOfDelta();
+                timestamp += prevDelta;
+                bits ^= readXor();
+                value = Double.longBitsToDouble(bits);
+                consumer.accept(timestamp, value, value, value);
+            }
+        }
+
+        private long readDeltaOfDelta() {
+            if (readBit() == 0) {
+                return 0;
+            }
+            if (readBit() == 0) {
+                return readSigned(7);
+            }
+            if (readBit() == 0) {
+                return readSigned(9);
+            }
+            if (readBit() == 0) {
+                return readSigned(12);
+            }
+            return readBit() == 0 ? readSigned(32) : readBits(64);
+        }
+
+        private long readXor() {
+            if (readBit() == 0) {
+                return 0;
+            }
+            if (readBit() == 1) {
+                prevLeading = (int) readBits(5);
+                int meaningful = (int) readBits(6) + 1;
+                prevTrailing = 64 - prevLeading - meaningful;
+            }
+            int meaningful = 64 - prevLeading - prevTrailing;
+            return readBits(meaningful) << prevTrailing;
+        }
+
+        private long readSigned(int nbits) {
+            long value = readBits(nbits);
+            return (value << (64 - nbits)) >> (64 - nbits);
+        }
+
+        private int readBit() {
+            int b = data.get(offset + (int) (bitPos >>> 3));
+            int bit = (b >>> (7 - (int) (bitPos & 7))) & 1;
+            bitPos++;
+            return bit;
+        }
+
+        private long readBits(int nbits) {
+            long value = 0;
+            for (int i = 0; i < nbits; i++) {
+                value = (value << 1) | readBit();
+            }
+            return value;
+        }
+    }
+}
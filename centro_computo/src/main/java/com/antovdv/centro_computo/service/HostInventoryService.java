@@ -0,0 +1,101 @@
+package com.antovdv.centro_computo.service;
+
+import com.antovdv.centro_computo.model.HostInventory;
+import org.springframework.stereotype.Service;
+import oshi.SystemInfo;
+import oshi.hardware.*;
+import oshi.software.os.OperatingSystem;
+
+import java.util.*;
+
+/**
+ * Inventario estático del host. Algunas de estas lecturas son caras (WMI en
+ * Windows, sysfs/udev en Linux), así que se hacen una sola vez al arrancar
+ * y después solo con refresh(). Las métricas periódicas ya no las repiten.
+ */
+@Service
+public class HostInventoryService {
+
+    private final HardwareAbstractionLayer hardware;
+    private final OperatingSystem os;
+
+    private volatile HostInventory inventory;
+    private long version;
+
+    public HostInventoryService(SystemInfo systemInfo) {
+        this.hardware = systemInfo.getHardware();
+        this.os = systemInfo.getOperatingSystem();
+        refresh();
+    }
+
+    public HostInventory getInventory() {
+        return inventory;
+    }
+
+    /**
+     * Vuelve a leer el inventario (p. ej. tras cambiar hardware o actualizar el SO)
+     */
+    public synchronized HostInventory refresh() {
+        HostInventory loaded = new HostInventory();
+        loaded.setLoadedAt(System.currentTimeMillis());
+
+        loaded.setOsName(os.getFamily());
+        loaded.setOsVersion(os.getVersionInfo().toString());
+        loaded.setManufacturer(os.getManufacturer());
+        loaded.setBitness(os.getBitness());
+        loaded.setHostName(os.getNetworkParams().getHostName());
+
+        ComputerSystem computer = hardware.getComputerSystem();
+        loaded.setComputerManufacturer(computer.getManufacturer());
+        loaded.setComputerModel(computer.getModel());
+
+        CentralProcessor processor = hardware.getProcessor();
+        loaded.setCpuModel(processor.getProcessorIdentifier().getName());
+        loaded.setPhysicalCores(processor.getPhysicalProcessorCount());
+        loaded.setLogicalCores(processor.getLogicalProcessorCount());
+        loaded.setTotalMemoryMb(hardware.getMemory().getTotal() / (1024 * 1024));
+
+        List<Map<String, Object>> disks = new ArrayList<>();
+        for (HWDiskStore disk : hardware.getDiskStores()) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("name", disk.getName());
+            data.put("model", disk.getModel());
+            data.put("serial", disk.getSerial());
+            data.put("sizeGb", disk.getSize() / (1024 * 1024 * 1024));
+            disks.add(data);
+        }
+        loaded.setDisks(Collections.unmodifiableList(disks));
+
+        List<Map<String, Object>> interfaces = new ArrayList<>();
+        for (NetworkIF net : hardware.getNetworkIFs()) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("name", net.getName());
+            data.put("displayName", net.getDisplayName());
+            data.put("macAddress", net.getMacaddr());
+            interfaces.add(data);
+        }
+        loaded.setNetworkInterfaces(Collections.unmodifiableList(interfaces));
+
+        // La versión solo cambia si cambió algo: los clientes la usan para saber si recargar
+        HostInventory current = inventory;
+        loaded.setVersion(current != null && sameContent(current, loaded) ? current.getVersion() : ++version);
+        inventory = loaded;
+        return loaded;
+    }
+
+    private static boolean sameContent(HostInventory a, HostInventory b) {
+        return Objects.equals(a.getOsName(), b.getOsName())
+                && Objects.equals(a.getOsVersion(), b.getOsVersion())
+                && Objects.equals(a.getManufacturer(), b.getManufacturer())
+                && a.getBitness() == b.getBitness()
+                && Objects.equals(a.getHostName(), b.getHostName())
+                && Objects.equals(a.getComputerManufacturer(), b.getComputerManufacturer())
+                && Objects.equals(a.getComputerModel(), b.getComputerModel())
+                && Objects.equals(a.getCpuModel(), b.getCpuModel())
+                && a.getPhysicalCores() == b.getPhysicalCores()
+                && a.getLogicalCores() == b.getLogicalCores()
+                && a.getTotalMemoryMb() == b.getTotalMemoryMb()
+                && Objects.equals(a.getDisks(), b.getDisks())
+                && Objects.equals(a.getNetworkInterfaces(), b.getNetworkInterfaces());
+    }
+}
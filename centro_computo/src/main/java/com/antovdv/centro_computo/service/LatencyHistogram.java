@@ -0,0 +1,73 @@
+package com.antovdv.centro_computo.service;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de duraciones con cubetas fijas (en segundos), sin bloqueos:
+ * cada observación solo incrementa un LongAdder. Las etiquetas (método,
+ * ruta, resultado...) se fijan al crearlo.
+ */
+public class LatencyHistogram {
+
+    // Límites superiores de las cubetas en segundos (la de +Inf es el total)
+    public static final double[] DEFAULT_BUCKETS = {
+            0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 300
+    };
+
+    private final String[] labelNames;
+    private final String[] labelValues;
+    private final double[] bounds;
+    private final LongAdder[] buckets;
+    private final LongAdder count = new LongAdder();
+    private final DoubleAdder sum = new DoubleAdder();
+
+    public LatencyHistogram(String[] labelNames, String[] labelValues, double[] bounds) {
+        this.labelNames = labelNames;
+        this.labelValues = labelValues;
+        this.bounds = bounds;
+        this.buckets = new LongAdder[bounds.length];
+        for (int i = 0; i < bounds.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void observeNanos(long nanos) {
+        double seconds = nanos / 1_000_000_000.0;
+        for (int i = 0; i < bounds.length; i++) {
+            if (seconds <= bounds[i]) {
+                buckets[i].increment();
+                break;
+            }
+        }
+        count.increment();
+        sum.add(seconds);
+    }
+
+    public String[] getLabelNames() {
+        return labelNames;
+    }
+
+    public String[] getLabelValues() {
+        return labelValues;
+    }
+
+    public double[] getBounds() {
+        return bounds;
+    }
+
+    /**
+     * Observaciones en la cubeta i (no acumulado)
+     */
+    public long getBucketCount(int i) {
+        return buckets[i].sum();
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getSum() {
+        return sum.sum();
+    }
+}
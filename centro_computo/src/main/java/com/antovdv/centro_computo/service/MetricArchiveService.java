@@ -0,0 +1,669 @@
+package com.antovdv.centro_computo.service;
+
+import com.antovdv.centro_computo.dto.SystemMetricsDTO;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Archivo en disco de las métricas del host. Las muestras se comprimen con
+ * GorillaCodec en bloques por serie y se escriben en segmentos de tamaño fijo
+ * mapeados en memoria. Al cerrar un segmento se escribe un índice (footer)
+ * con el rango temporal de cada bloque, de modo que una consulta solo abre los
+ * segmentos que solapan el rango y solo decodifica los bloques de la serie pedida.
+ *
+ * Formato del segmento:
+ * cabecera (64 bytes) | registros (serie o bloque) ... | footer | ... | trailer (últimos 32 bytes)
+ */
+@Service
+public class MetricArchiveService implements MetricsListener {
+
+    private static final int SEGMENT_MAGIC = 0x47534547;   // "GSEG"
+    private static final int TRAILER_MAGIC = 0x47454E44;   // "GEND"
+    private static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 64;
+    private static final int TRAILER_BYTES = 32;
+    private static final byte RECORD_SERIES = 1;
+    private static final byte RECORD_BLOCK = 2;
+    private static final int BLOCK_HEADER_BYTES = 1 + 4 + 4 + 8 + 8 + 4;
+    private static final int INDEX_ENTRY_BYTES = 4 + 4 + 4 + 8 + 8;
+
+    private static final String SEGMENT_PREFIX = "metrics-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final boolean enabled;
+    private final Path archiveDir;
+    private final int segmentBytes;
+    private final int blockBytes;
+    private final long segmentDurationMs;
+    private final long flushIntervalMs;
+    private final long retentionMs;
+
+    // Segmentos cerrados ordenados por inicio; el activo va aparte
+    private final List<Segment> sealedSegments = new CopyOnWriteArrayList<>();
+    private volatile Segment activeSegment;
+
+    public MetricArchiveService(
+            @Value("${app.monitoring.archive.enabled:true}") boolean enabled,
+            @Value("${app.monitoring.archive.dir:${user.home}/TecnoSolutions_Metrics}") String archiveDir,
+            @Value("${app.monitoring.archive.segment-size-mb:8}") int segmentSizeMb,
+            @Value("${app.monitoring.archive.block-bytes:1024}") int blockBytes,
+            @Value("${app.monitoring.archive.segment-hours:6}") long segmentHours,
+            @Value("${app.monitoring.archive.flush-interval-ms:300000}") long flushIntervalMs,
+            @Value("${app.monitoring.archive.retention-days:30}") long retentionDays) {
+        this.enabled = enabled;
+        this.archiveDir = Paths.get(archiveDir);
+        this.segmentBytes = segmentSizeMb * 1024 * 1024;
+        this.blockBytes = blockBytes;
+        this.segmentDurationMs = segmentHours * 3_600_000L;
+        this.flushIntervalMs = flushIntervalMs;
+        this.retentionMs = retentionDays * 86_400_000L;
+
+        if (enabled) {
+            openArchive();
+        }
+    }
+
+    /**
+     * Carga los segmentos existentes. Solo se lee el trailer de cada uno; los
+     * que no tienen trailer (apagado brusco) se recuperan recorriendo sus registros.
+     */
+    private void openArchive() {
+        try {
+            Files.createDirectories(archiveDir);
+        } catch (IOException e) {
+            System.err.println("Error creando directorio del archivo de métricas: " + e.getMessage());
+            return;
+        }
+
+        List<Segment> loaded = new ArrayList<>();
+        try (Stream<Path> files = Files.list(archiveDir)) {
+            files.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .forEach(p -> {
+                        try {
+                            Segment segment = Segment.open(p);
+                            if (segment != null) {
+                                loaded.add(segment);
+                            }
+                        } catch (IOException e) {
+                            System.err.println("Segmento de métricas ilegible " + p + ": " + e.getMessage());
+                        }
+                    });
+        } catch (IOException e) {
+            System.err.println("Error listando el archivo de métricas: " + e.getMessage());
+        }
+
+        loaded.sort(Comparator.comparingLong(s -> s.startTimestamp));
+        sealedSegments.addAll(loaded);
+    }
+
+    @Override
+    public void onSample(SystemMetricsDTO metrics) {
+        if (!enabled) {
+            return;
+        }
+        long timestamp = metrics.getTimestamp() != null ? metrics.getTimestamp() : System.currentTimeMillis();
+        synchronized (this) {
+            MetricSeries.forEach(metrics, (name, value) -> append(name, timestamp, value));
+            if (activeSegment != null) {
+                activeSegment.flushOlderThan(timestamp - flushIntervalMs);
+            }
+        }
+    }
+
+    /**
+     * Añade un punto al segmento activo, rotando si ya no hay espacio
+     */
+    public synchronized void append(String name, long timestamp, double value) {
+        try {
+            if (activeSegment == null) {
+                roll(timestamp);
+            } else if (timestamp - activeSegment.startTimestamp >= segmentDurationMs) {
+                try {
+                    roll(timestamp);
+                } catch (IOException e) {
+                    // Se sigue en el segmento activo mientras le quede espacio
+                    System.err.println("No se pudo rotar el archivo de métricas: " + e.getMessage());
+                }
+            }
+            Segment segment = activeSegment;
+            if (!segment.hasSeries(name) && !segment.canAddSeries(name)) {
+                segment = roll(timestamp);
+            }
+            int id = segment.seriesId(name);
+
+            if (!segment.appendPoint(id, timestamp, value)) {
+                // Bloque lleno: se vuelca y se sigue en uno nuevo
+                segment.flushBlock(id);
+                if (!segment.hasRoomForOpenBlocks()) {
+                    segment = roll(timestamp);
+                    id = segment.seriesId(name);
+                }
+                segment.appendPoint(id, timestamp, value);
+            }
+        } catch (IOException e) {
+            System.err.println("Error escribiendo el archivo de métricas: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Abre un segmento nuevo y solo entonces cierra el activo (si hay). Si no
+     * se puede crear el nuevo, el activo sigue abierto y utilizable.
+     */
+    private Segment roll(long timestamp) throws IOException {
+        Path path = archiveDir.resolve(SEGMENT_PREFIX + timestamp + SEGMENT_SUFFIX);
+        // Dos rotaciones en el mismo milisegundo no deben chocar con CREATE_NEW
+        for (int i = 1; Files.exists(path); i++) {
+            path = archiveDir.resolve(SEGMENT_PREFIX + timestamp + "-" + i + SEGMENT_SUFFIX);
+        }
+        Segment next = Segment.create(path, timestamp, segmentBytes, blockBytes);
+
+        Segment current = activeSegment;
+        activeSegment = next;
+        if (current != null) {
+            sealedSegments.add(current);
+            current.seal();
+        }
+        return next;
+    }
+
+    /**
+     * Recorre en orden los puntos archivados de una serie entre from y to
+     */
+    public void query(String name, long from, long to, MetricRingBuffer.PointConsumer consumer) {
+        MetricRingBuffer.PointConsumer filter = (ts, avg, min, max) -> {
+            if (ts >= from && ts <= to) {
+                consumer.accept(ts, avg, min, max);
+            }
+        };
+
+        for (Segment segment : sealedSegments) {
+            if (segment.overlaps(from, to)) {
+                try {
+                    segment.read(name, from, to, filter);
+                } catch (IOException e) {
+                    System.err.println("Error leyendo segmento " + segment.path + ": " + e.getMessage());
+                }
+            }
+        }
+
+        Segment active = activeSegment;
+        if (active != null && active.overlaps(from, to)) {
+            try {
+                active.read(name, from, to, filter);
+            } catch (IOException e) {
+                System.err.println("Error leyendo segmento activo: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Igual que MetricsHistoryService.getHistory pero sobre el archivo en disco
+     */
+    public Map<String, Object> getArchivedHistory(String metric, long from, long to, long stepSeconds) {
+        long stepMs = Math.max(1, stepSeconds) * 1000L;
+        MetricBucketer bucketer = new MetricBucketer(stepMs);
+        query(metric, from, to, bucketer);
+        bucketer.flush();
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("metric", metric);
+        result.put("from", from);
+        result.put("to", to);
+        result.put("step", stepMs / 1000);
+        result.put("source", "archive");
+        result.put("points", bucketer.getPoints());
+        return result;
+    }
+
+    public List<Map<String, Object>> getSegments() {
+        List<Map<String, Object>> segments = new ArrayList<>();
+        List<Segment> all = new ArrayList<>(sealedSegments);
+        Segment active = activeSegment;
+        if (active != null) {
+            all.add(active);
+        }
+        for (Segment segment : all) {
+            Map<String, Object> info = new HashMap<>();
+            info.put("file", segment.path.getFileName().toString());
+            info.put("minTimestamp", segment.minTimestamp);
+            info.put("maxTimestamp", segment.maxTimestamp);
+            info.put("sealed", segment.sealed);
+            info.put("usedBytes", segment.usedBytes());
+            segments.add(info);
+        }
+        return segments;
+    }
+
+    /**
+     * Política de retención: borra los segmentos cerrados cuyo último punto es
+     * más antiguo que app.monitoring.archive.retention-days
+     */
+    @Scheduled(fixedDelayString = "${app.monitoring.archive.retention-check-ms:3600000}")
+    public void purgeExpiredSegments() {
+        if (!enabled) {
+            return;
+        }
+        long limit = System.currentTimeMillis() - retentionMs;
+        for (Segment segment : sealedSegments) {
+            if (segment.maxTimestamp < limit) {
+                sealedSegments.remove(segment);
+                try {
+                    Files.deleteIfExists(segment.path);
+                } catch (IOException e) {
+                    System.err.println("Error borrando segmento " + segment.path + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        Segment current = activeSegment;
+        if (current != null) {
+            try {
+                current.seal();
+                sealedSegments.add(current);
+            } catch (IOException e) {
+                System.err.println("Error cerrando segmento de métricas: " + e.getMessage());
+            }
+            activeSegment = null;
+        }
+    }
+
+    /**
+     * Referencia a un bloque comprimido dentro de un segmento
+     */
+    private static class BlockRef {
+        final int seriesId;
+        final int dataOffset;
+        final int count;
+        final long minTimestamp;
+        final long maxTimestamp;
+
+        BlockRef(int seriesId, int dataOffset, int count, long minTimestamp, long maxTimestamp) {
+            this.seriesId = seriesId;
+            this.dataOffset = dataOffset;
+            this.count = count;
+            this.minTimestamp = minTimestamp;
+            this.maxTimestamp = maxTimestamp;
+        }
+    }
+
+    /**
+     * Un fichero de segmento. Mientras está activo se escribe a través de un
+     * MappedByteBuffer y mantiene un encoder abierto por serie; una vez
+     * cerrado es inmutable y su índice se carga bajo demanda desde el footer.
+     */
+    private static class Segment {
+        final Path path;
+        final long startTimestamp;
+        final int size;
+        volatile long minTimestamp = Long.MAX_VALUE;
+        volatile long maxTimestamp = Long.MIN_VALUE;
+        volatile boolean sealed;
+
+        // Índice: nombres de serie por id y bloques escritos
+        private List<String> seriesNames;
+        private Map<String, Integer> seriesIds;
+        private List<BlockRef> blocks;
+
+        // Solo en el segmento activo
+        private FileChannel channel;
+        private MappedByteBuffer buffer;
+        private int writePos;
+        private int footerBytes;
+        private int blockBytes;
+        private List<GorillaCodec.Encoder> encoders;
+
+        private Segment(Path path, long startTimestamp, int size) {
+            this.path = path;
+            this.startTimestamp = startTimestamp;
+            this.size = size;
+        }
+
+        static Segment create(Path path, long startTimestamp, int size, int blockBytes) throws IOException {
+            Segment segment = new Segment(path, startTimestamp, size);
+            segment.blockBytes = blockBytes;
+            segment.seriesNames = new ArrayList<>();
+            segment.seriesIds = new HashMap<>();
+            segment.blocks = new ArrayList<>();
+            segment.encoders = new ArrayList<>();
+            segment.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            segment.buffer = segment.channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            segment.buffer.putInt(0, SEGMENT_MAGIC);
+            segment.buffer.putInt(4, VERSION);
+            segment.buffer.putLong(8, startTimestamp);
+            segment.writePos = HEADER_BYTES;
+            segment.footerBytes = 8;
+            return segment;
+        }
+
+        /**
+         * Abre un segmento existente leyendo solo su trailer. Si no está
+         * cerrado se reconstruye el índice recorriendo los registros y se cierra.
+         */
+        static Segment open(Path path) throws IOException {
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+                long fileSize = ch.size();
+                if (fileSize < HEADER_BYTES + TRAILER_BYTES) {
+                    return null;
+                }
+                ByteBuffer header = ByteBuffer.allocate(16);
+                ch.read(header, 0);
+                if (header.getInt(0) != SEGMENT_MAGIC) {
+                    return null;
+                }
+                Segment segment = new Segment(path, header.getLong(8), (int) fileSize);
+
+                ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES);
+                ch.read(trailer, fileSize - TRAILER_BYTES);
+                if (trailer.getInt(24) == TRAILER_MAGIC) {
+                    segment.minTimestamp = trailer.getLong(8);
+                    segment.maxTimestamp = trailer.getLong(16);
+                    segment.sealed = true;
+                    return segment;
+                }
+            }
+            return recover(path);
+        }
+
+        private static Segment recover(Path path) throws IOException {
+            FileChannel ch = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, ch.size());
+            Segment recovered = new Segment(path, buf.getLong(8), (int) ch.size());
+            recovered.channel = ch;
+            recovered.buffer = buf;
+            recovered.seriesNames = new ArrayList<>();
+            recovered.seriesIds = new HashMap<>();
+            recovered.blocks = new ArrayList<>();
+            recovered.encoders = new ArrayList<>();
+            recovered.footerBytes = 8;
+
+            int pos = HEADER_BYTES;
+            int limit = recovered.size - TRAILER_BYTES;
+            while (pos < limit) {
+                byte type = buf.get(pos);
+                if (type == RECORD_SERIES) {
+                    int nameLen = buf.getShort(pos + 5);
+                    byte[] name = new byte[nameLen];
+                    buf.get(pos + 7, name);
+                    recovered.registerSeries(new String(name, StandardCharsets.UTF_8));
+                    pos += 7 + nameLen;
+                } else if (type == RECORD_BLOCK) {
+                    int id = buf.getInt(pos + 1);
+                    int count = buf.getInt(pos + 5);
+                    long minTs = buf.getLong(pos + 9);
+                    long maxTs = buf.getLong(pos + 17);
+                    int len = buf.getInt(pos + 25);
+                    recovered.registerBlock(new BlockRef(id, pos + BLOCK_HEADER_BYTES, count, minTs, maxTs));
+                    pos += BLOCK_HEADER_BYTES + len;
+                } else {
+                    break;
+                }
+            }
+            recovered.writePos = pos;
+            recovered.seal();
+            return recovered;
+        }
+
+        boolean overlaps(long from, long to) {
+            return minTimestamp <= to && maxTimestamp >= from;
+        }
+
+        synchronized int usedBytes() {
+            return sealed ? size : writePos;
+        }
+
+        synchronized boolean hasSeries(String name) {
+            return seriesIds.containsKey(name);
+        }
+
+        /**
+         * Cabe una serie nueva: su registro, su entrada en el footer y un bloque en el peor caso
+         */
+        synchronized boolean canAddSeries(String name) {
+            int nameLen = name.getBytes(StandardCharsets.UTF_8).length;
+            int extra = (7 + nameLen) + (6 + nameLen) + worstCaseBlock();
+            return writePos + extra + reservedBytes() <= size;
+        }
+
+        synchronized boolean hasRoomForOpenBlocks() {
+            return writePos + reservedBytes() <= size;
+        }
+
+        /**
+         * Espacio reservado para el footer, el trailer y volcar todos los encoders abiertos
+         */
+        private int reservedBytes() {
+            return footerBytes + TRAILER_BYTES + encoders.size() * worstCaseBlock();
+        }
+
+        private int worstCaseBlock() {
+            return BLOCK_HEADER_BYTES + blockBytes + INDEX_ENTRY_BYTES;
+        }
+
+        synchronized int seriesId(String name) {
+            Integer id = seriesIds.get(name);
+            if (id != null) {
+                return id;
+            }
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            id = registerSeries(name);
+            buffer.put(writePos, RECORD_SERIES);
+            buffer.putInt(writePos + 1, id);
+            buffer.putShort(writePos + 5, (short) bytes.length);
+            buffer.put(writePos + 7, bytes);
+            writePos += 7 + bytes.length;
+            return id;
+        }
+
+        private int registerSeries(String name) {
+            int id = seriesNames.size();
+            seriesNames.add(name);
+            seriesIds.put(name, id);
+            encoders.add(new GorillaCodec.Encoder(blockBytes));
+            footerBytes += 6 + name.getBytes(StandardCharsets.UTF_8).length;
+            return id;
+        }
+
+        private void registerBlock(BlockRef block) {
+            blocks.add(block);
+            footerBytes += INDEX_ENTRY_BYTES;
+            minTimestamp = Math.min(minTimestamp, block.minTimestamp);
+            maxTimestamp = Math.max(maxTimestamp, block.maxTimestamp);
+        }
+
+        synchronized boolean appendPoint(int id, long timestamp, double value) {
+            if (!encoders.get(id).append(timestamp, value)) {
+                return false;
+            }
+            minTimestamp = Math.min(minTimestamp, timestamp);
+            maxTimestamp = Math.max(maxTimestamp, timestamp);
+            return true;
+        }
+
+        /**
+         * Escribe el bloque abierto de la serie como registro y reinicia su encoder
+         */
+        synchronized void flushBlock(int id) {
+            GorillaCodec.Encoder encoder = encoders.get(id);
+            if (encoder.count() == 0) {
+                return;
+            }
+            int len = encoder.byteLength();
+            buffer.put(writePos, RECORD_BLOCK);
+            buffer.putInt(writePos + 1, id);
+            buffer.putInt(writePos + 5, encoder.count());
+            buffer.putLong(writePos + 9, encoder.firstTimestamp());
+            buffer.putLong(writePos + 17, encoder.lastTimestamp());
+            buffer.putInt(writePos + 25, len);
+            buffer.put(writePos + BLOCK_HEADER_BYTES, encoder.buffer(), 0, len);
+            registerBlock(new BlockRef(id, writePos + BLOCK_HEADER_BYTES, encoder.count(),
+                    encoder.firstTimestamp(), encoder.lastTimestamp()));
+            writePos += BLOCK_HEADER_BYTES + len;
+            encoder.reset();
+        }
+
+        /**
+         * Vuelca los bloques abiertos desde antes de limit para acotar lo que
+         * se perdería en un apagado brusco
+         */
+        synchronized void flushOlderThan(long limit) {
+            for (int id = 0; id < encoders.size(); id++) {
+                GorillaCodec.Encoder encoder = encoders.get(id);
+                if (encoder.count() > 0 && encoder.firstTimestamp() < limit) {
+                    flushBlock(id);
+                }
+            }
+        }
+
+        /**
+         * Vuelca los encoders, escribe footer y trailer y libera el fichero
+         */
+        synchronized void seal() throws IOException {
+            if (sealed) {
+                return;
+            }
+            for (int id = 0; id < encoders.size(); id++) {
+                flushBlock(id);
+            }
+
+            int footerOffset = writePos;
+            int pos = footerOffset;
+            buffer.putInt(pos, seriesNames.size());
+            pos += 4;
+            for (int id = 0; id < seriesNames.size(); id++) {
+                byte[] bytes = seriesNames.get(id).getBytes(StandardCharsets.UTF_8);
+                buffer.putInt(pos, id);
+                buffer.putShort(pos + 4, (short) bytes.length);
+                buffer.put(pos + 6, bytes);
+                pos += 6 + bytes.length;
+            }
+            buffer.putInt(pos, blocks.size());
+            pos += 4;
+            for (BlockRef block : blocks) {
+                buffer.putInt(pos, block.seriesId);
+                buffer.putInt(pos + 4, block.dataOffset);
+                buffer.putInt(pos + 8, block.count);
+                buffer.putLong(pos + 12, block.minTimestamp);
+                buffer.putLong(pos + 20, block.maxTimestamp);
+                pos += INDEX_ENTRY_BYTES;
+            }
+
+            int trailer = size - TRAILER_BYTES;
+            buffer.putLong(trailer, footerOffset);
+            buffer.putLong(trailer + 8, minTimestamp);
+            buffer.putLong(trailer + 16, maxTimestamp);
+            buffer.putInt(trailer + 24, TRAILER_MAGIC);
+            buffer.putInt(trailer + 28, VERSION);
+            buffer.force();
+            channel.close();
+
+            // El índice sigue en memoria; el buffer de escritura ya no se usa
+            encoders = null;
+            buffer = null;
+            channel = null;
+            sealed = true;
+        }
+
+        /**
+         * Lee el índice del footer de un segmento cerrado (solo la primera vez)
+         */
+        private void loadIndex(ByteBuffer data) {
+            int footerOffset = (int) data.getLong(size - TRAILER_BYTES);
+            List<String> names = new ArrayList<>();
+            Map<String, Integer> ids = new HashMap<>();
+            List<BlockRef> refs = new ArrayList<>();
+
+            int pos = footerOffset;
+            int seriesCount = data.getInt(pos);
+            pos += 4;
+            for (int i = 0; i < seriesCount; i++) {
+                int id = data.getInt(pos);
+                int len = data.getShort(pos + 4);
+                byte[] bytes = new byte[len];
+                data.get(pos + 6, bytes);
+                String name = new String(bytes, StandardCharsets.UTF_8);
+                names.add(name);
+                ids.put(name, id);
+                pos += 6 + len;
+            }
+            int blockCount = data.getInt(pos);
+            pos += 4;
+            for (int i = 0; i < blockCount; i++) {
+                refs.add(new BlockRef(data.getInt(pos), data.getInt(pos + 4), data.getInt(pos + 8),
+                        data.getLong(pos + 12), data.getLong(pos + 20)));
+                pos += INDEX_ENTRY_BYTES;
+            }
+
+            seriesNames = names;
+            seriesIds = ids;
+            blocks = refs;
+        }
+
+        /**
+         * Decodifica solo los bloques de la serie que solapan [from, to]
+         */
+        void read(String name, long from, long to, MetricRingBuffer.PointConsumer consumer) throws IOException {
+            if (sealed) {
+                try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+                    ByteBuffer data = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                    List<BlockRef> refs;
+                    Integer id;
+                    synchronized (this) {
+                        if (blocks == null) {
+                            loadIndex(data);
+                        }
+                        refs = blocks;
+                        id = seriesIds.get(name);
+                    }
+                    if (id != null) {
+                        decodeBlocks(data, refs, id, from, to, consumer);
+                    }
+                }
+                return;
+            }
+
+            synchronized (this) {
+                if (sealed) {
+                    // Se cerró mientras esperábamos: leer como segmento cerrado
+                    read(name, from, to, consumer);
+                    return;
+                }
+                Integer id = seriesIds.get(name);
+                if (id == null) {
+                    return;
+                }
+                decodeBlocks(buffer, blocks, id, from, to, consumer);
+                GorillaCodec.Encoder encoder = encoders.get(id);
+                if (encoder.count() > 0 && encoder.firstTimestamp() <= to && encoder.lastTimestamp() >= from) {
+                    GorillaCodec.decode(ByteBuffer.wrap(encoder.buffer()), 0, encoder.count(), consumer);
+                }
+            }
+        }
+
+        private static void decodeBlocks(ByteBuffer data, List<BlockRef> refs, int id, long from, long to,
+                                         MetricRingBuffer.PointConsumer consumer) {
+            for (BlockRef block : refs) {
+                if (block.seriesId == id && block.minTimestamp <= to && block.maxTimestamp >= from) {
+                    GorillaCodec.decode(data, block.dataOffset, block.count, consumer);
+                }
+            }
+        }
+    }
+}
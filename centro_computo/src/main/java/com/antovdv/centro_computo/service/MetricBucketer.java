@@ -0,0 +1,61 @@
+package com.antovdv.centro_computo.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reagrupa puntos ordenados por tiempo en buckets de tamaño fijo (avg/min/max)
+ */
+public class MetricBucketer implements MetricRingBuffer.PointConsumer {
+
+    private final long stepMs;
+    private final List<Map<String, Object>> points = new ArrayList<>();
+    private long bucketStart = -1;
+    private double sum;
+    private double min;
+    private double max;
+    private int count;
+
+    public MetricBucketer(long stepMs) {
+        this.stepMs = stepMs;
+    }
+
+    @Override
+    public void accept(long timestamp, double avg, double minValue, double maxValue) {
+        long bucket = timestamp - Math.floorMod(timestamp, stepMs);
+        if (bucket != bucketStart) {
+            flush();
+            bucketStart = bucket;
+            min = minValue;
+            max = maxValue;
+        } else {
+            min = Math.min(min, minValue);
+            max = Math.max(max, maxValue);
+        }
+        sum += avg;
+        count++;
+    }
+
+    /**
+     * Cierra el bucket en curso; llamar tras el último punto
+     */
+    public void flush() {
+        if (count == 0) {
+            return;
+        }
+        Map<String, Object> point = new HashMap<>();
+        point.put("timestamp", bucketStart);
+        point.put("avg", Math.round(sum / count * 100.0) / 100.0);
+        point.put("min", Math.round(min * 100.0) / 100.0);
+        point.put("max", Math.round(max * 100.0) / 100.0);
+        points.add(point);
+        sum = 0;
+        count = 0;
+    }
+
+    public List<Map<String, Object>> getPoints() {
+        return points;
+    }
+}
@@ -0,0 +1,89 @@
+package com.antovdv.centro_computo.service;
+
+/**
+ * Buffer circular de tamaño fijo con arrays primitivos. Cada punto guarda
+ * timestamp y media; opcionalmente también mínimo y máximo (tiers agregados).
+ * Al llenarse sobrescribe el punto más antiguo, así que la memoria es constante.
+ */
+public class MetricRingBuffer {
+
+    @FunctionalInterface
+    public interface PointConsumer {
+        void accept(long timestamp, double avg, double min, double max);
+    }
+
+    private final long[] timestamps;
+    private final double[] avg;
+    private final double[] min;
+    private final double[] max;
+
+    private int head;   // siguiente posición a escribir
+    private int size;
+
+    public MetricRingBuffer(int capacity, boolean withRange) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("La capacidad debe ser mayor que 0");
+        }
+        this.timestamps = new long[capacity];
+        this.avg = new double[capacity];
+        this.min = withRange ? new double[capacity] : null;
+        this.max = withRange ? new double[capacity] : null;
+    }
+
+    public synchronized void add(long timestamp, double value) {
+        add(timestamp, value, value, value);
+    }
+
+    public synchronized void add(long timestamp, double avgValue, double minValue, double maxValue) {
+        timestamps[head] = timestamp;
+        avg[head] = avgValue;
+        if (min != null) {
+            min[head] = minValue;
+            max[head] = maxValue;
+        }
+        head = (head + 1) % timestamps.length;
+        if (size < timestamps.length) {
+            size++;
+        }
+    }
+
+    /**
+     * Recorre en orden cronológico los puntos con timestamp en [from, to]
+     */
+    public synchronized void forEach(long from, long to, PointConsumer consumer) {
+        int start = (head - size + timestamps.length) % timestamps.length;
+        for (int i = 0; i < size; i++) {
+            int idx = (start + i) % timestamps.length;
+            long ts = timestamps[idx];
+            if (ts < from) {
+                continue;
+            }
+            if (ts > to) {
+                break;
+            }
+            if (min != null) {
+                consumer.accept(ts, avg[idx], min[idx], max[idx]);
+            } else {
+                consumer.accept(ts, avg[idx], avg[idx], avg[idx]);
+            }
+        }
+    }
+
+    /**
+     * Timestamp del punto más antiguo, o Long.MAX_VALUE si está vacío
+     */
+    public synchronized long getOldestTimestamp() {
+        if (size == 0) {
+            return Long.MAX_VALUE;
+        }
+        return timestamps[(head - size + timestamps.length) % timestamps.length];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return timestamps.length;
+    }
+}
@@ -0,0 +1,72 @@
+package com.antovdv.centro_computo.service;
+
+import com.antovdv.centro_computo.dto.SystemMetricsDTO;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Convierte una instantánea en series numéricas con nombre
+ * (cpu, memory, disk, sampler.intervalMs, sensors.*, disk.&lt;nombre&gt;.*, net.&lt;nombre&gt;.*, fs.&lt;nombre&gt;.*)
+ */
+public final class MetricSeries {
+
+    @FunctionalInterface
+    public interface Consumer {
+        void accept(String name, double value);
+    }
+
+    private MetricSeries() {
+    }
+
+    public static void forEach(SystemMetricsDTO metrics, Consumer consumer) {
+        if (metrics.getCpuUsage() != null) {
+            consumer.accept("cpu", metrics.getCpuUsage());
+        }
+        if (metrics.getMemoryUsagePercent() != null) {
+            consumer.accept("memory", metrics.getMemoryUsagePercent());
+        }
+        if (metrics.getUsedMemory() != null) {
+            consumer.accept("memory.used", metrics.getUsedMemory());
+        }
+        if (metrics.getDiskUsagePercent() != null) {
+            consumer.accept("disk", metrics.getDiskUsagePercent());
+        }
+
+        // Intervalo real de la muestra: con muestreo adaptativo varía y hace falta para interpretar el resto
+        if (metrics.getSampleWindowMs() != null) {
+            consumer.accept("sampler.intervalMs", metrics.getSampleWindowMs());
+        }
+        if (metrics.getSensors() != null
+                && metrics.getSensors().get("cpuTemperature") instanceof Double temperature
+                && temperature > 0) {
+            consumer.accept("sensors.cpuTemperature", temperature);
+        }
+
+        forEachDevice("disk.", metrics.getDisks(), "name", consumer,
+                "readBytesPerSec", "writeBytesPerSec", "readsPerSec", "writesPerSec", "busyPercent");
+        forEachDevice("net.", metrics.getNetworkInterfaces(), "name", consumer,
+                "rxBytesPerSec", "txBytesPerSec", "rxPacketsPerSec", "txPacketsPerSec");
+        forEachDevice("fs.", metrics.getFileSystems(), "mount", consumer,
+                "usagePercent", "inodeUsagePercent");
+    }
+
+    private static void forEachDevice(String prefix, List<Map<String, Object>> devices, String nameKey,
+                                      Consumer consumer, String... keys) {
+        if (devices == null) {
+            return;
+        }
+        for (Map<String, Object> device : devices) {
+            Object name = device.get(nameKey);
+            if (name == null) {
+                continue;
+            }
+            for (String key : keys) {
+                Object value = device.get(key);
+                if (value instanceof Number) {
+                    consumer.accept(prefix + name + "." + key, ((Number) value).doubleValue());
+                }
+            }
+        }
+    }
+}
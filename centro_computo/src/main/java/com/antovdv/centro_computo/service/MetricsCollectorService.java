@@ -0,0 +1,270 @@
+package com.antovdv.centro_computo.service;
+
+import com.antovdv.centro_computo.dto.SystemMetricsDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Muestreo en segundo plano por tiers: cada clase de recolector tiene su
+ * propio periodo y su propio presupuesto de coste (ms por ejecución).
+ * <ul>
+ *   <li>core: CPU y memoria; publica la instantánea y avisa a los MetricsListener</li>
+ *   <li>devices: contadores de discos e interfaces de red</li>
+ *   <li>filesystems: ocupación por montaje</li>
+ *   <li>sensors: temperatura, voltaje y ventiladores</li>
+ *   <li>processes: listado compartido de procesos</li>
+ *   <li>inventory: relectura del inventario estático</li>
+ * </ul>
+ * El periodo del tier core lo ajusta AdaptiveSamplingService según la carga.
+ * Se mide el tiempo real y de CPU de cada ejecución. Si un tier supera su
+ * presupuesto su periodo efectivo se duplica (hasta 8 veces el objetivo)
+ * y vuelve poco a poco al objetivo cuando el coste baja. Un periodo 0
+ * desactiva el tier.
+ */
+@Service
+public class MetricsCollectorService {
+
+    private static final int MAX_BACKOFF = 8;
+
+    private final SystemMonitorService monitorService;
+    private final AdaptiveSamplingService adaptiveSampling;
+    private final List<MetricsListener> listeners;
+    private final Map<String, SamplingTier> tiers = new LinkedHashMap<>();
+    private final SamplingTier coreTier;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    // Última instantánea publicada; no se modifica una vez publicada
+    private volatile SystemMetricsDTO latestMetrics;
+
+    public MetricsCollectorService(SystemMonitorService monitorService,
+                                   ProcessSnapshotService processSnapshots,
+                                   HostInventoryService inventoryService,
+                                   AdaptiveSamplingService adaptiveSampling,
+                                   List<MetricsListener> listeners,
+                                   @Value("${app.monitoring.collectors.threads:2}") int threads,
+                                   @Value("${app.monitoring.collectors.core.period-ms:${app.monitoring.sample-interval-ms:1000}}") long corePeriodMs,
+                                   @Value("${app.monitoring.collectors.core.budget-ms:50}") long coreBudgetMs,
+                                   @Value("${app.monitoring.collectors.devices.period-ms:5000}") long devicesPeriodMs,
+                                   @Value("${app.monitoring.collectors.devices.budget-ms:100}") long devicesBudgetMs,
+                                   @Value("${app.monitoring.collectors.filesystems.period-ms:30000}") long fileSystemsPeriodMs,
+                                   @Value("${app.monitoring.collectors.filesystems.budget-ms:200}") long fileSystemsBudgetMs,
+                                   @Value("${app.monitoring.collectors.sensors.period-ms:10000}") long sensorsPeriodMs,
+                                   @Value("${app.monitoring.collectors.sensors.budget-ms:200}") long sensorsBudgetMs,
+                                   @Value("${app.monitoring.collectors.processes.period-ms:5000}") long processesPeriodMs,
+                                   @Value("${app.monitoring.collectors.processes.budget-ms:500}") long processesBudgetMs,
+                                   @Value("${app.monitoring.collectors.inventory.period-ms:21600000}") long inventoryPeriodMs,
+                                   @Value("${app.monitoring.collectors.inventory.budget-ms:2000}") long inventoryBudgetMs) {
+        this.monitorService = monitorService;
+        this.adaptiveSampling = adaptiveSampling;
+        this.listeners = listeners;
+
+        this.coreTier = new SamplingTier("core", corePeriodMs, coreBudgetMs, this::sample);
+        tiers.put("core", coreTier);
+        tiers.put("devices", new SamplingTier("devices", devicesPeriodMs, devicesBudgetMs, monitorService::sampleDevices));
+        tiers.put("filesystems", new SamplingTier("filesystems", fileSystemsPeriodMs, fileSystemsBudgetMs,
+                monitorService::sampleFileSystems));
+        tiers.put("sensors", new SamplingTier("sensors", sensorsPeriodMs, sensorsBudgetMs, monitorService::sampleSensors));
+        tiers.put("processes", new SamplingTier("processes", processesPeriodMs, processesBudgetMs,
+                processSnapshots::getSnapshot));
+        tiers.put("inventory", new SamplingTier("inventory", inventoryPeriodMs, inventoryBudgetMs,
+                inventoryService::refresh));
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.scheduler = new ScheduledThreadPoolExecutor(Math.max(1, threads), r -> {
+            Thread thread = new Thread(r, "collector-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        // Dispositivos, montajes, etc. se leen ya; la primera muestra de CPU necesita un intervalo
+        // y el inventario se acaba de cargar al arrancar
+        for (SamplingTier tier : tiers.values()) {
+            if (tier.periodMs > 0) {
+                tier.scheduleNext(tier.name.equals("core") || tier.name.equals("inventory") ? tier.periodMs : 0);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Tier core: muestrea CPU y memoria, publica la nueva instantánea y la
+     * entrega a los MetricsListener registrados
+     */
+    void sample() {
+        SystemMetricsDTO metrics;
+        try {
+            metrics = monitorService.sampleCore();
+        } catch (Exception e) {
+            System.err.println("Error muestreando métricas del sistema: " + e.getMessage());
+            return;
+        }
+        latestMetrics = metrics;
+        coreTier.targetPeriodMs = adaptiveSampling.nextInterval(metrics);
+
+        for (MetricsListener listener : listeners) {
+            try {
+                listener.onSample(metrics);
+            } catch (Exception e) {
+                System.err.println("Error procesando muestra en " + listener.getClass().getSimpleName()
+                        + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Devuelve la última instantánea sin bloquear. Solo si todavía no hay ninguna
+     * (arranque) se toma una muestra completa en el momento.
+     */
+    public SystemMetricsDTO getLatestMetrics() {
+        SystemMetricsDTO metrics = latestMetrics;
+        if (metrics == null) {
+            synchronized (this) {
+                if (latestMetrics == null) {
+                    latestMetrics = monitorService.collectSystemMetrics();
+                }
+                metrics = latestMetrics;
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Coste medido de cada tier: periodo configurado y efectivo, presupuesto,
+     * ejecuciones, tiempo real y de CPU (último, medio y máximo) y veces que
+     * se superó el presupuesto
+     */
+    public List<Map<String, Object>> getCollectorStats() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (SamplingTier tier : tiers.values()) {
+            result.add(tier.stats());
+        }
+        return result;
+    }
+
+    private long currentThreadCpuNanos() {
+        return threadBean.isCurrentThreadCpuTimeSupported() ? threadBean.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+
+    /**
+     * Un recolector con su periodo, su presupuesto y su coste medido. Se
+     * reprograma al terminar cada ejecución, así que nunca hay dos
+     * ejecuciones del mismo tier a la vez.
+     */
+    private class SamplingTier implements Runnable {
+        private final String name;
+        private final long periodMs;
+        private final long budgetMs;
+        private final Runnable task;
+
+        // Periodo objetivo (el configurado, o el que fije el muestreo adaptativo) y factor por coste
+        private volatile long targetPeriodMs;
+        private volatile int backoff = 1;
+        private volatile long effectivePeriodMs;
+        private volatile long runs;
+        private volatile long overBudget;
+        private volatile long errors;
+        private volatile long lastRun;
+        private volatile long lastWallNanos;
+        private volatile long lastCpuNanos;
+        private volatile long maxWallNanos;
+        private volatile long totalWallNanos;
+        private volatile long totalCpuNanos;
+
+        SamplingTier(String name, long periodMs, long budgetMs, Runnable task) {
+            this.name = name;
+            this.periodMs = periodMs;
+            this.budgetMs = budgetMs;
+            this.task = task;
+            this.targetPeriodMs = periodMs;
+            this.effectivePeriodMs = periodMs;
+        }
+
+        void scheduleNext(long delayMs) {
+            if (!scheduler.isShutdown()) {
+                scheduler.schedule(this, Math.max(0, delayMs), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        @Override
+        public void run() {
+            long startCpu = currentThreadCpuNanos();
+            long start = System.nanoTime();
+            try {
+                task.run();
+            } catch (Exception e) {
+                errors++;
+                System.err.println("Error en el recolector " + name + ": " + e.getMessage());
+            }
+            long wall = System.nanoTime() - start;
+            long cpu = currentThreadCpuNanos() - startCpu;
+
+            runs++;
+            lastRun = System.currentTimeMillis();
+            lastWallNanos = wall;
+            lastCpuNanos = cpu;
+            maxWallNanos = Math.max(maxWallNanos, wall);
+            totalWallNanos += wall;
+            totalCpuNanos += cpu;
+
+            // Presupuesto: si se supera se espacian las ejecuciones; con holgura se vuelve al periodo objetivo
+            long wallMs = wall / 1_000_000;
+            if (wallMs > budgetMs) {
+                overBudget++;
+                backoff = Math.min(MAX_BACKOFF, backoff * 2);
+            } else if (wallMs <= budgetMs / 2 && backoff > 1) {
+                backoff = backoff / 2;
+            }
+            effectivePeriodMs = targetPeriodMs * backoff;
+
+            scheduleNext(effectivePeriodMs - wallMs);
+        }
+
+        Map<String, Object> stats() {
+            long count = runs;
+            Map<String, Object> data = new HashMap<>();
+            data.put("name", name);
+            data.put("enabled", periodMs > 0);
+            data.put("periodMs", periodMs);
+            data.put("targetPeriodMs", targetPeriodMs);
+            data.put("backoff", backoff);
+            data.put("effectivePeriodMs", effectivePeriodMs);
+            data.put("budgetMs", budgetMs);
+            data.put("runs", count);
+            data.put("overBudget", overBudget);
+            data.put("errors", errors);
+            data.put("lastRun", lastRun);
+            data.put("lastWallMs", millis(lastWallNanos));
+            data.put("lastCpuMs", millis(lastCpuNanos));
+            data.put("avgWallMs", count > 0 ? millis(totalWallNanos / count) : 0);
+            data.put("avgCpuMs", count > 0 ? millis(totalCpuNanos / count) : 0);
+            data.put("maxWallMs", millis(maxWallNanos));
+            // Fracción de un núcleo que consume el tier a su ritmo actual
+            data.put("cpuShare", count > 0 && effectivePeriodMs > 0
+                    ? Math.round((double) totalCpuNanos / count / (effectivePeriodMs * 1_000_000.0) * 10000.0) / 10000.0
+                    : 0);
+            return data;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.antovdv.centro_computo.service;
+
+import com.antovdv.centro_computo.dto.SystemMetricsDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Historial en memoria de las métricas del host. Cada serie guarda tres tiers
+ * de buffers circulares (1 s, 1 min y 1 h) y agrega automáticamente al tier
+ * siguiente, por lo que la memoria queda acotada por series × capacidad.
+ */
+@Service
+public class MetricsHistoryService implements MetricsListener {
+
+    private static final long MINUTE_MS = 60_000L;
+    private static final long HOUR_MS = 3_600_000L;
+    private static final String[] TIER_NAMES = {"1s", "1m", "1h"};
+
+    private final int secondCapacity;
+    private final int minuteCapacity;
+    private final int hourCapacity;
+    private final int maxSeries;
+
+    private final Map<String, SeriesHistory> series = new ConcurrentHashMap<>();
+
+    public MetricsHistoryService(
+            @Value("${app.monitoring.history.second-points:3600}") int secondCapacity,
+            @Value("${app.monitoring.history.minute-points:1440}") int minuteCapacity,
+            @Value("${app.monitoring.history.hour-points:720}") int hourCapacity,
+            @Value("${app.monitoring.history.max-series:128}") int maxSeries) {
+        this.secondCapacity = secondCapacity;
+        this.minuteCapacity = minuteCapacity;
+        this.hourCapacity = hourCapacity;
+        this.maxSeries = maxSeries;
+    }
+
+    @Override
+    public void onSample(SystemMetricsDTO metrics) {
+        long timestamp = metrics.getTimestamp() != null ? metrics.getTimestamp() : System.currentTimeMillis();
+        MetricSeries.forEach(metrics, (name, value) -> record(name, timestamp, value));
+    }
+
+    /**
+     * Añade un punto a la serie indicada. Si se alcanzó el máximo de series,
+     * las series nuevas se descartan para mantener la memoria acotada.
+     */
+    public void record(String name, long timestamp, double value) {
+        SeriesHistory history = series.get(name);
+        if (history == null) {
+            if (series.size() >= maxSeries) {
+                return;
+            }
+            history = series.computeIfAbsent(name, k -> new SeriesHistory());
+        }
+        history.add(timestamp, value);
+    }
+
+    public Set<String> getSeriesNames() {
+        return new TreeSet<>(series.keySet());
+    }
+
+    /**
+     * Devuelve los puntos de una serie entre from y to (epoch ms) agregados en
+     * buckets de stepSeconds. Usa el tier más fino que cubra el rango pedido.
+     * Devuelve null si la serie no existe.
+     */
+    public Map<String, Object> getHistory(String metric, long from, long to, long stepSeconds) {
+        SeriesHistory history = series.get(metric);
+        if (history == null) {
+            return null;
+        }
+
+        long stepMs = Math.max(1, stepSeconds) * 1000L;
+
+        // Tier natural según el step; si no cubre el inicio del rango se pasa al siguiente
+        int first = stepMs < MINUTE_MS ? 0 : stepMs < HOUR_MS ? 1 : 2;
+        int chosen = -1;
+        for (int i = first; i < TIER_NAMES.length; i++) {
+            if (history.tier(i).getOldestTimestamp() <= from) {
+                chosen = i;
+                break;
+            }
+        }
+        if (chosen < 0) {
+            // Ningún tier llega tan atrás: el más grueso que ya tenga datos
+            chosen = first;
+            for (int i = TIER_NAMES.length - 1; i > first; i--) {
+                if (history.tier(i).size() > 0) {
+                    chosen = i;
+                    break;
+                }
+            }
+        }
+        String tierName = TIER_NAMES[chosen];
+        MetricRingBuffer tier = history.tier(chosen);
+        Rollup pending = history.pending(chosen);
+
+        MetricBucketer bucketer = new MetricBucketer(stepMs);
+        tier.forEach(from, to, bucketer);
+        if (pending != null) {
+            pending.forEachPending(from, to, bucketer);
+        }
+        bucketer.flush();
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("metric", metric);
+        result.put("from", from);
+        result.put("to", to);
+        result.put("step", stepMs / 1000);
+        result.put("tier", tierName);
+        result.put("points", bucketer.getPoints());
+        return result;
+    }
+
+    /**
+     * Historial de una serie: los tres tiers y los acumuladores del minuto y
+     * la hora en curso. Solo escribe el hilo del muestreador.
+     */
+    private class SeriesHistory {
+        final MetricRingBuffer seconds = new MetricRingBuffer(secondCapacity, false);
+        final MetricRingBuffer minutes = new MetricRingBuffer(minuteCapacity, true);
+        final MetricRingBuffer hours = new MetricRingBuffer(hourCapacity, true);
+        final Rollup minuteRollup = new Rollup(MINUTE_MS);
+        final Rollup hourRollup = new Rollup(HOUR_MS);
+
+        MetricRingBuffer tier(int index) {
+            return index == 0 ? seconds : index == 1 ? minutes : hours;
+        }
+
+        /**
+         * Bucket en curso que todavía no se ha volcado al tier indicado
+         */
+        Rollup pending(int index) {
+            return index == 0 ? null : index == 1 ? minuteRollup : hourRollup;
+        }
+
+        void add(long timestamp, double value) {
+            seconds.add(timestamp, value);
+            if (minuteRollup.isBoundary(timestamp)) {
+                minuteRollup.flushTo(minutes, hourRollup);
+                if (hourRollup.isBoundary(timestamp)) {
+                    hourRollup.flushTo(hours, null);
+                }
+            }
+            minuteRollup.add(timestamp, value, value, value, 1);
+        }
+    }
+
+    /**
+     * Acumulador del bucket en curso de un tier (suma, mínimo, máximo, cuenta)
+     */
+    private static class Rollup {
+        private final long periodMs;
+        private long bucketStart = -1;
+        private double sum;
+        private double min;
+        private double max;
+        private long count;
+
+        Rollup(long periodMs) {
+            this.periodMs = periodMs;
+        }
+
+        synchronized boolean isBoundary(long timestamp) {
+            return count > 0 && timestamp - Math.floorMod(timestamp, periodMs) != bucketStart;
+        }
+
+        synchronized void add(long timestamp, double avgValue, double minValue, double maxValue, long samples) {
+            if (count == 0) {
+                bucketStart = timestamp - Math.floorMod(timestamp, periodMs);
+                min = minValue;
+                max = maxValue;
+            } else {
+                min = Math.min(min, minValue);
+                max = Math.max(max, maxValue);
+            }
+            sum += avgValue * samples;
+            count += samples;
+        }
+
+        /**
+         * Cierra el bucket: lo escribe en el tier y lo propaga al acumulador superior
+         */
+        synchronized void flushTo(MetricRingBuffer tier, Rollup parent) {
+            if (count == 0) {
+                return;
+            }
+            double average = sum / count;
+            tier.add(bucketStart, average, min, max);
+            if (parent != null) {
+                parent.add(bucketStart, average, min, max, count);
+            }
+            sum = 0;
+            count = 0;
+        }
+
+        synchronized void forEachPending(long from, long to, MetricRingBuffer.PointConsumer consumer) {
+            if (count > 0 && bucketStart >= from && bucketStart <= to) {
+                consumer.accept(bucketStart, sum / count, min, max);
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.antovdv.centro_computo.service;
+
+import com.antovdv.centro_computo.dto.SystemMetricsDTO;
+
+/**
+ * Recibe cada instantánea publicada por MetricsCollectorService.
+ * Se invoca en el hilo del muestreador, así que no debe bloquear.
+ */
+public interface MetricsListener {
+
+    void onSample(SystemMetricsDTO metrics);
+}
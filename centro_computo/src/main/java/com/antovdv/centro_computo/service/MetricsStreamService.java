@@ -0,0 +1,192 @@
+package com.antovdv.centro_computo.service;
+
+import com.antovdv.centro_computo.dto.SystemMetricsDTO;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Difunde por Server-Sent Events los datos del dashboard. El payload se
+ * construye y serializa una sola vez por muestra y se reparte a todos los
+ * suscriptores, así el coste crece con la frecuencia de muestreo y no con
+ * el número de navegadores abiertos.
+ */
+@Service
+public class MetricsStreamService implements MetricsListener {
+
+    private final SystemMonitorService monitorService;
+    private final AlertService alertService;
+    private final JsonMapper jsonMapper;
+
+    private final long emitterTimeoutMs;
+    private final int maxClients;
+    private final int maxDroppedFrames;
+    private final long processIntervalMs;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService sender;
+
+    // Último payload serializado, para que un cliente nuevo no espere a la siguiente muestra
+    private volatile String lastPayload;
+    private List<Map<String, Object>> lastProcesses = List.of();
+    private long lastProcessesTime;
+
+    public MetricsStreamService(SystemMonitorService monitorService,
+                                AlertService alertService,
+                                JsonMapper jsonMapper,
+                                @Value("${app.monitoring.stream.timeout-ms:1800000}") long emitterTimeoutMs,
+                                @Value("${app.monitoring.stream.max-clients:200}") int maxClients,
+                                @Value("${app.monitoring.stream.max-dropped-frames:30}") int maxDroppedFrames,
+                                @Value("${app.monitoring.stream.process-interval-ms:3000}") long processIntervalMs,
+                                @Value("${app.monitoring.stream.sender-threads:4}") int senderThreads) {
+        this.monitorService = monitorService;
+        this.alertService = alertService;
+        this.jsonMapper = jsonMapper;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.maxClients = maxClients;
+        this.maxDroppedFrames = maxDroppedFrames;
+        this.processIntervalMs = processIntervalMs;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread thread = new Thread(r, "sse-sender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Registra un nuevo cliente. Devuelve null si se alcanzó el máximo de clientes.
+     */
+    public SseEmitter subscribe() {
+        if (subscribers.size() >= maxClients) {
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        subscribers.add(subscriber);
+
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        String payload = lastPayload;
+        if (payload != null) {
+            subscriber.offer(payload);
+        }
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void onSample(SystemMetricsDTO metrics) {
+        if (subscribers.isEmpty()) {
+            lastPayload = null;
+            return;
+        }
+
+        // Estamos en el hilo del muestreador: no se recorre /proc, se toma el
+        // último listado (lo refresca el tier processes) con su propio intervalo
+        long now = System.currentTimeMillis();
+        if (now - lastProcessesTime >= processIntervalMs) {
+            lastProcesses = monitorService.getCachedTopProcesses(100);
+            lastProcessesTime = now;
+        }
+
+        Map<String, Object> dashboard = new HashMap<>();
+        dashboard.put("metrics", metrics);
+        dashboard.put("topProcesses", lastProcesses);
+        dashboard.put("alerts", alertService.getActiveAlerts());
+        dashboard.put("systemInfo", monitorService.getSystemStatus());
+
+        String payload = jsonMapper.writeValueAsString(dashboard);
+        lastPayload = payload;
+
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(payload);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    /**
+     * Cliente suscrito. Como mucho hay un envío en curso y un payload pendiente:
+     * si el cliente es lento, el pendiente se sustituye por el más reciente
+     * (se descartan frames intermedios) y, si descarta demasiados seguidos,
+     * se le desconecta para que reconecte.
+     */
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicReference<String> pending = new AtomicReference<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicInteger droppedInRow = new AtomicInteger();
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(String payload) {
+            if (pending.getAndSet(payload) != null
+                    && droppedInRow.incrementAndGet() > maxDroppedFrames) {
+                subscribers.remove(this);
+                emitter.complete();
+                return;
+            }
+            if (sending.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    sending.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                String payload = pending.getAndSet(null);
+                if (payload == null) {
+                    sending.set(false);
+                    // Un offer pudo llegar entre getAndSet y set(false)
+                    if (pending.get() == null || !sending.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                try {
+                    emitter.send(SseEmitter.event()
+                            .name("dashboard")
+                            .data(payload, MediaType.APPLICATION_JSON));
+                    droppedInRow.set(0);
+                } catch (IOException | IllegalStateException e) {
+                    subscribers.remove(this);
+                    pending.set(null);
+                    sending.set(false);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.antovdv.centro_computo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Envío de alertas por email en segundo plano. Las alertas se encolan sin
+ * bloquear (cola acotada) y un único hilo las agrupa en un resumen por
+ * ventana de tiempo: las repetidas dentro de la ventana se cuentan en vez de
+ * enviarse otra vez, y una alerta ya notificada no se repite hasta pasado
+ * dedup-window. Si el SMTP falla se reintenta con espera exponencial.
+ */
+@Service
+public class NotificationService {
+
+    private final JavaMailSender mailSender;
+    private final boolean enabled;
+    private final String[] recipients;
+    private final String from;
+    private final long digestWindowMs;
+    private final long dedupWindowMs;
+    private final int maxRetries;
+    private final long retryBackoffMs;
+
+    private final BlockingQueue<Map<String, Object>> queue;
+    private final ExecutorService dispatcher;
+
+    // Huella -> último envío; solo lo usa el hilo del dispatcher
+    private final Map<String, Long> lastSent = new HashMap<>();
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public NotificationService(Optional<JavaMailSender> mailSender,
+                               @Value("${app.notifications.enabled:false}") boolean enabled,
+                               @Value("${app.notifications.to:}") String recipients,
+                               @Value("${app.notifications.from:${spring.mail.username:}}") String from,
+                               @Value("${app.notifications.queue-size:1000}") int queueSize,
+                               @Value("${app.notifications.digest-window-seconds:60}") long digestWindowSeconds,
+                               @Value("${app.notifications.dedup-window-seconds:900}") long dedupWindowSeconds,
+                               @Value("${app.notifications.max-retries:5}") int maxRetries,
+                               @Value("${app.notifications.retry-backoff-ms:2000}") long retryBackoffMs) {
+        this.mailSender = mailSender.orElse(null);
+        this.recipients = Arrays.stream(recipients.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toArray(String[]::new);
+        this.enabled = enabled && this.mailSender != null && this.recipients.length > 0;
+        this.from = from;
+        this.digestWindowMs = digestWindowSeconds * 1000;
+        this.dedupWindowMs = dedupWindowSeconds * 1000;
+        this.maxRetries = maxRetries;
+        this.retryBackoffMs = retryBackoffMs;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+
+        this.dispatcher = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "notification-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (this.enabled) {
+            dispatcher.execute(this::dispatchLoop);
+        } else if (enabled) {
+            System.err.println("Notificaciones habilitadas pero sin JavaMailSender o sin app.notifications.to: no se enviarán");
+        }
+    }
+
+    /**
+     * Encola una alerta para notificarla. Nunca bloquea: si la cola está
+     * llena la alerta se descarta y se cuenta.
+     */
+    public void notify(Map<String, Object> alert) {
+        if (enabled && !queue.offer(alert)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("queued", queue.size());
+        stats.put("sent", sent.get());
+        stats.put("failed", failed.get());
+        stats.put("dropped", dropped.get());
+        stats.put("suppressed", suppressed.get());
+        return stats;
+    }
+
+    private void dispatchLoop() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                // Esperar la primera alerta; a partir de ella se abre la ventana del resumen
+                Map<String, Object> first = queue.take();
+                long deadline = System.currentTimeMillis() + digestWindowMs;
+                Map<String, DigestEntry> digest = new LinkedHashMap<>();
+                addToDigest(digest, first);
+
+                long remaining;
+                while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+                    Map<String, Object> alert = queue.poll(remaining, TimeUnit.MILLISECONDS);
+                    if (alert != null) {
+                        addToDigest(digest, alert);
+                    }
+                }
+
+                if (!digest.isEmpty()) {
+                    try {
+                        sendWithRetry(digest);
+                    } catch (RuntimeException e) {
+                        // Un resumen que no se puede construir o enviar no debe parar el envío de los siguientes
+                        failed.incrementAndGet();
+                        System.err.println("Error inesperado enviando notificación: " + e.getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void addToDigest(Map<String, DigestEntry> digest, Map<String, Object> alert) {
+        String fingerprint = fingerprint(alert);
+        DigestEntry entry = digest.get(fingerprint);
+        if (entry != null) {
+            entry.count++;
+            entry.last = alert;
+            suppressed.incrementAndGet();
+            return;
+        }
+        Long previous = lastSent.get(fingerprint);
+        if (previous != null && System.currentTimeMillis() - previous < dedupWindowMs) {
+            suppressed.incrementAndGet();
+            return;
+        }
+        digest.put(fingerprint, new DigestEntry(alert));
+    }
+
+    /**
+     * Dos alertas son "la misma" si vienen de la misma regla con el mismo estado
+     */
+    static String fingerprint(Map<String, Object> alert) {
+        Object rule = alert.get("rule") != null ? alert.get("rule") : alert.get("type");
+        return rule + "|" + alert.get("status");
+    }
+
+    private void sendWithRetry(Map<String, DigestEntry> digest) throws InterruptedException {
+        SimpleMailMessage message = buildMessage(digest);
+        long backoff = retryBackoffMs;
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                mailSender.send(message);
+                sent.incrementAndGet();
+                long now = System.currentTimeMillis();
+                for (String fingerprint : digest.keySet()) {
+                    lastSent.put(fingerprint, now);
+                }
+                lastSent.values().removeIf(time -> now - time >= dedupWindowMs);
+                return;
+            } catch (MailException e) {
+                if (attempt > maxRetries) {
+                    failed.incrementAndGet();
+                    System.err.println("Error enviando notificación tras " + attempt + " intentos: " + e.getMessage());
+                    return;
+                }
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, 5 * 60 * 1000);
+            }
+        }
+    }
+
+    private SimpleMailMessage buildMessage(Map<String, DigestEntry> digest) {
+        StringBuilder text = new StringBuilder();
+        text.append("Alertas del Centro de Cómputo\n\n");
+        for (DigestEntry entry : digest.values()) {
+            Map<String, Object> alert = entry.last;
+            text.append("[").append(alert.get("status")).append("] ")
+                    .append(alert.get("type")).append(": ")
+                    .append(alert.get("message"))
+                    .append(" (").append(alert.get("timestamp")).append(")");
+            if (entry.count > 1) {
+                text.append(" x").append(entry.count);
+            }
+            text.append("\n");
+        }
+
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(from);
+        message.setTo(recipients);
+        message.setSubject("[Centro de Cómputo] " + digest.size()
+                + (digest.size() == 1 ? " alerta" : " alertas"));
+        message.setText(text.toString());
+        return message;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    private static class DigestEntry {
+        private Map<String, Object> last;
+        private int count = 1;
+
+        DigestEntry(Map<String, Object> alert) {
+            this.last = alert;
+        }
+    }
+}
@@ -1,137 +1,43 @@
 package com.antovdv.centro_computo.service;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import oshi.SystemInfo;
 import oshi.software.os.OSProcess;
 import oshi.software.os.OperatingSystem;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.regex.Pattern;
 
 @Service
 public class ProcessManagerService {
 
+    // Cada cuánto se comprueba si los procesos señalizados ya terminaron
+    private static final long KILL_POLL_MS = 50;
+    // Tope del graceMs que puede pedir el cliente: la espera ocupa un hilo de la petición
+    private static final long MAX_KILL_GRACE_MS = 10_000;
+
     private final SystemInfo systemInfo;
     private final OperatingSystem os;
-    private final List<Map<String, Object>> commandLog;
-
-    public ProcessManagerService() {
-        this.systemInfo = new SystemInfo();
+    private final ProcessSnapshotService processSnapshots;
+    private final CommandAuditLog auditLog;
+    private final long killGraceMs;
+    private final long killForceWaitMs;
+    private final int maxKillTargets;
+
+    public ProcessManagerService(SystemInfo systemInfo,
+                                 ProcessSnapshotService processSnapshots,
+                                 CommandAuditLog auditLog,
+                                 @Value("${app.commands.kill.grace-ms:5000}") long killGraceMs,
+                                 @Value("${app.commands.kill.force-wait-ms:2000}") long killForceWaitMs,
+                                 @Value("${app.commands.kill.max-targets:200}") int maxKillTargets) {
+        this.systemInfo = systemInfo;
         this.os = systemInfo.getOperatingSystem();
-        this.commandLog = new ArrayList<>();
-    }
-
-    /**
-     * Ejecuta un comando externo
-     */
-    public Map<String, Object> executeCommand(String command, String user) {
-        Map<String, Object> result = new HashMap<>();
-        StringBuilder output = new StringBuilder();
-        StringBuilder error = new StringBuilder();
-
-        try {
-            // Separar el comando en segmentos (como en el código de referencia)
-            String[] segmentos = command.split(" ");
-
-            // Crear el proceso con los segmentos
-            ProcessBuilder pb = new ProcessBuilder(segmentos);
-
-            // Redirigir errores al stream de salida (como en el código de referencia)
-            pb.redirectErrorStream(true);
-
-            // Iniciar el proceso
-            Process proceso = pb.start();
-
-            // Tiempo inicial
-            long tiempoInicial = System.currentTimeMillis();
-
-            // Leer la salida del proceso
-            try (BufferedReader br = new BufferedReader(
-                    new InputStreamReader(proceso.getInputStream()))) {
-
-                // Crear hilo lector (como en el código de referencia)
-                Thread leer = new Thread(() -> {
-                    String linea;
-                    try {
-                        while ((linea = br.readLine()) != null) {
-                            output.append(linea).append("\n");
-                        }
-                    } catch (IOException e) {
-                        error.append("Error leyendo salida: ").append(e.getMessage());
-                    }
-                });
-
-                leer.start();
-
-                // Esperar a que el proceso termine con timeout de 30 segundos
-                boolean finished = proceso.waitFor(30, java.util.concurrent.TimeUnit.SECONDS);
-
-                if (!finished) {
-                    proceso.destroy();
-                    result.put("success", false);
-                    result.put("error", "Comando excedió el tiempo límite (30 segundos)");
-                    result.put("command", command);
-                    result.put("timestamp", LocalDateTime.now().toString());
-                    logCommand(command, user, false, "Timeout");
-                    return result;
-                }
-
-                // Esperar a que el hilo lector termine
-                leer.join(2000);
-
-                int exitCode = proceso.exitValue();
-                long tiempoFinal = System.currentTimeMillis();
-                double duracion = (tiempoFinal - tiempoInicial) / 1000.0;
-
-                String outputStr = output.toString();
-
-                result.put("success", exitCode == 0);
-                result.put("exitCode", exitCode);
-                result.put("output", outputStr.isEmpty() ? "Comando ejecutado sin salida" : outputStr);
-                result.put("error", error.toString());
-                result.put("command", command);
-                result.put("duration", duracion + " segundos");
-                result.put("timestamp", LocalDateTime.now().toString());
-
-                // Registrar en el log
-                logCommand(command, user, exitCode == 0, outputStr);
-
-            } catch (IOException e) {
-                result.put("success", false);
-                result.put("error", "Error de I/O: " + e.getMessage());
-                result.put("command", command);
-                result.put("timestamp", LocalDateTime.now().toString());
-                logCommand(command, user, false, "IOException: " + e.getMessage());
-
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                result.put("success", false);
-                result.put("error", "Proceso interrumpido: " + e.getMessage());
-                result.put("command", command);
-                result.put("timestamp", LocalDateTime.now().toString());
-                logCommand(command, user, false, "Interrumpido: " + e.getMessage());
-            }
-
-        } catch (IOException e) {
-            result.put("success", false);
-            result.put("error", "Error al crear proceso: " + e.getMessage());
-            result.put("command", command);
-            result.put("timestamp", LocalDateTime.now().toString());
-            logCommand(command, user, false, "Error creación: " + e.getMessage());
-
-        } catch (Exception e) {
-            result.put("success", false);
-            result.put("error", "Error inesperado: " + e.getMessage());
-            result.put("command", command);
-            result.put("timestamp", LocalDateTime.now().toString());
-            logCommand(command, user, false, "Error: " + e.getMessage());
-        }
-
-        return result;
+        this.processSnapshots = processSnapshots;
+        this.auditLog = auditLog;
+        this.killGraceMs = killGraceMs;
+        this.killForceWaitMs = killForceWaitMs;
+        this.maxKillTargets = maxKillTargets;
     }
 
     /**
@@ -151,7 +57,7 @@ public class ProcessManagerService {
         details.put("commandLine", process.getCommandLine());
         details.put("user", process.getUser());
         details.put("state", process.getState().name());
-        details.put("cpuUsage", Math.round(process.getProcessCpuLoadCumulative() * 100 * 100.0) / 100.0);
+        details.put("cpuUsage", Math.round(cpuPercent(process) * 100.0) / 100.0);
         details.put("memoryUsage", process.getResidentSetSize() / (1024 * 1024)); // MB
         details.put("virtualMemory", process.getVirtualSize() / (1024 * 1024)); // MB
         details.put("threadCount", process.getThreadCount());
@@ -161,131 +67,288 @@ public class ProcessManagerService {
         return details;
     }
 
+    public int getMaxKillTargets() {
+        return maxKillTargets;
+    }
+
     /**
-     * Termina un proceso por PID
+     * true si el patrón solo tiene comodines (por ejemplo "*" o "?*"): encajaría
+     * con todos los procesos, así que no se acepta
      */
-    public Map<String, Object> killProcess(int pid, String user) {
-        Map<String, Object> result = new HashMap<>();
+    public static boolean isWildcardOnly(String pattern) {
+        return pattern.trim().chars().allMatch(c -> c == '*' || c == '?');
+    }
 
-        try {
-            OSProcess process = os.getProcess(pid);
-            if (process == null) {
-                result.put("success", false);
-                result.put("message", "Proceso no encontrado");
-                return result;
-            }
+    /**
+     * Termina un proceso por PID (y opcionalmente todos sus descendientes)
+     */
+    public Map<String, Object> killProcess(int pid, String user, boolean tree, Long graceMs) {
+        List<Map<String, Object>> results = terminate(List.of(pid), tree, graceMs, user);
+        Map<String, Object> result = new HashMap<>();
 
-            String processName = process.getName();
+        // El primer resultado es siempre el PID pedido; los demás, sus descendientes
+        Map<String, Object> target = results.get(0);
+        boolean killed = isTerminated(target);
+        result.put("success", killed);
+        result.put("message", killed ?
+                "Proceso terminado correctamente" :
+                "No se pudo terminar el proceso: " + target.get("result"));
+        result.put("pid", pid);
+        result.put("processName", target.get("name"));
+        result.put("forced", target.get("forced"));
+        result.put("results", results);
+        return result;
+    }
 
-            // Intentar terminar el proceso
-            boolean killed = process.getProcessID() > 0 && killProcessByPid(pid);
+    /**
+     * Termina varios procesos a la vez: los PID indicados y/o los que tengan
+     * un nombre que encaje con el patrón (comodines * y ?, sin distinguir
+     * mayúsculas). Devuelve el resultado de cada PID.
+     */
+    public Map<String, Object> killProcesses(List<Integer> pids, String pattern, boolean tree, Long graceMs,
+                                             String user) {
+        Map<String, Object> response = new HashMap<>();
+        if (pattern != null && !pattern.isBlank() && isWildcardOnly(pattern)) {
+            response.put("success", false);
+            response.put("message", "El patrón debe incluir parte del nombre, no solo comodines");
+            return response;
+        }
 
-            result.put("success", killed);
-            result.put("message", killed ?
-                    "Proceso terminado correctamente" :
-                    "No se pudo terminar el proceso");
-            result.put("pid", pid);
-            result.put("processName", processName);
+        Set<Integer> targets = new LinkedHashSet<>(pids != null ? pids : List.of());
+        if (pattern != null && !pattern.isBlank()) {
+            targets.addAll(findByName(pattern.trim()));
+        }
 
-            // Registrar en el log
-            logCommand("KILL_PROCESS " + pid + " (" + processName + ")",
-                    user, killed,
-                    killed ? "Proceso terminado" : "Error al terminar proceso");
+        if (targets.size() > maxKillTargets) {
+            response.put("success", false);
+            response.put("message", "La petición afecta a " + targets.size()
+                    + " procesos (máximo " + maxKillTargets + ")");
+            return response;
+        }
 
-        } catch (Exception e) {
-            result.put("success", false);
-            result.put("message", "Error: " + e.getMessage());
-            logCommand("KILL_PROCESS " + pid, user, false, e.getMessage());
+        List<Map<String, Object>> results = terminate(targets, tree, graceMs, user);
+        int terminated = 0;
+        for (Map<String, Object> result : results) {
+            if (isTerminated(result)) {
+                terminated++;
+            }
         }
+        response.put("success", !results.isEmpty() && terminated == results.size());
+        response.put("message", terminated + " de " + results.size() + " procesos terminados");
+        response.put("requested", targets.size());
+        response.put("terminated", terminated);
+        response.put("results", results);
+        return response;
+    }
+
+    private static boolean isTerminated(Map<String, Object> result) {
+        Object value = result.get("result");
+        return "terminated".equals(value) || "killed".equals(value);
+    }
 
+    /**
+     * PIDs cuyo ejecutable encaja con el patrón (con o sin extensión)
+     */
+    private List<Integer> findByName(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : pattern.toCharArray()) {
+            if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        Pattern compiled = Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE);
+
+        List<Integer> result = new ArrayList<>();
+        ProcessHandle.allProcesses().forEach(handle -> {
+            String name = processName(handle);
+            int dot = name.lastIndexOf('.');
+            if (compiled.matcher(name).matches() || (dot > 0 && compiled.matcher(name.substring(0, dot)).matches())) {
+                result.add((int) handle.pid());
+            }
+        });
         return result;
     }
 
     /**
-     * Mata un proceso usando comandos del sistema
+     * Termina los procesos con ProcessHandle, sin lanzar ningún proceso
+     * externo. Primero se pide una terminación normal (SIGTERM) y se espera
+     * hasta graceMs (como mucho MAX_KILL_GRACE_MS); los que siguen vivos se matan (SIGKILL) y se espera
+     * hasta force-wait-ms. Con tree también se incluyen todos los
+     * descendientes de cada PID. Cada terminación queda en el log de auditoría.
      */
-    private boolean killProcessByPid(int pid) {
-        try {
-            String osName = System.getProperty("os.name").toLowerCase();
-            ProcessBuilder processBuilder;
+    private List<Map<String, Object>> terminate(Collection<Integer> pids, boolean tree, Long graceMs, String user) {
+        long grace = graceMs != null ? Math.min(Math.max(0, graceMs), MAX_KILL_GRACE_MS) : killGraceMs;
+        long selfPid = ProcessHandle.current().pid();
+        Map<Long, KillTarget> targets = new LinkedHashMap<>();
+        List<Map<String, Object>> results = new ArrayList<>();
+
+        for (int pid : pids) {
+            Optional<ProcessHandle> handle = ProcessHandle.of(pid);
+            if (handle.isEmpty() || !handle.get().isAlive()) {
+                results.add(killResult(pid, null, null, "not_found", false));
+                continue;
+            }
+            if (pid <= 1 || pid == selfPid) {
+                results.add(killResult(pid, processName(handle.get()), null, "protected", false));
+                continue;
+            }
+            targets.putIfAbsent((long) pid, new KillTarget(handle.get(), null));
+            if (tree) {
+                handle.get().descendants().forEach(child -> {
+                    if (child.pid() != selfPid) {
+                        targets.putIfAbsent(child.pid(), new KillTarget(child, pid));
+                    }
+                });
+            }
+        }
 
-            if (osName.contains("win")) {
-                processBuilder = new ProcessBuilder("taskkill", "/F", "/PID", String.valueOf(pid));
+        // Terminación normal; donde no se admite (Windows) o sin espera, directamente forzada
+        for (KillTarget target : targets.values()) {
+            if (grace > 0 && target.handle.supportsNormalTermination()) {
+                target.signalled = target.handle.destroy();
             } else {
-                processBuilder = new ProcessBuilder("kill", "-9", String.valueOf(pid));
+                target.forced = true;
+                target.signalled = target.handle.destroyForcibly();
             }
+        }
+        waitForExit(targets.values(), grace);
 
-            Process process = processBuilder.start();
-            int exitCode = process.waitFor();
-
-            return exitCode == 0;
-        } catch (IOException | InterruptedException e) {
-            if (e instanceof InterruptedException) {
-                Thread.currentThread().interrupt();
+        for (KillTarget target : targets.values()) {
+            if (target.signalled && !target.forced && !hasExited(target)) {
+                target.forced = true;
+                target.handle.destroyForcibly();
             }
-            return false;
         }
+        waitForExit(targets.values(), killForceWaitMs);
+
+        for (KillTarget target : targets.values()) {
+            String outcome;
+            if (!target.signalled) {
+                outcome = target.handle.isAlive() ? "denied" : "terminated";
+            } else if (!hasExited(target)) {
+                outcome = "alive";
+            } else {
+                outcome = target.forced ? "killed" : "terminated";
+            }
+            int pid = (int) target.handle.pid();
+            results.add(killResult(pid, target.name, target.parentPid, outcome, target.forced));
+
+            logKill("KILL_PROCESS " + pid + " (" + target.name + ")"
+                            + (target.parentPid != null ? " [árbol de " + target.parentPid + "]" : ""),
+                    user, "terminated".equals(outcome) || "killed".equals(outcome),
+                    outcome + (target.forced ? " (forzado)" : ""));
+        }
+
+        // Los PID pedidos primero, en el orden de la petición
+        results.sort(Comparator.comparingInt(r -> r.get("parentPid") != null ? 1 : 0));
+        return results;
     }
 
     /**
-     * Registra un comando en el log
+     * Espera, sondeando, a que terminen todos los procesos señalizados o se agote el tiempo
      */
-    private void logCommand(String command, String user, boolean success, String output) {
-        Map<String, Object> logEntry = new HashMap<>();
-        logEntry.put("command", command);
-        logEntry.put("user", user != null ? user : "system");
-        logEntry.put("success", success);
-        logEntry.put("output", output);
-        logEntry.put("timestamp", LocalDateTime.now().toString());
-
-        commandLog.add(logEntry);
-
-        // Mantener solo los últimos 100 registros
-        if (commandLog.size() > 100) {
-            commandLog.remove(0);
+    private static void waitForExit(Collection<KillTarget> targets, long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (true) {
+            boolean anyAlive = false;
+            for (KillTarget target : targets) {
+                if (target.signalled && !hasExited(target)) {
+                    anyAlive = true;
+                    break;
+                }
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (!anyAlive || remaining <= 0) {
+                return;
+            }
+            try {
+                Thread.sleep(Math.min(KILL_POLL_MS, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
         }
     }
 
     /**
-     * Obtiene el log de comandos ejecutados
+     * Un proceso ya muerto cuyo padre aún no lo ha recogido (zombie) sigue
+     * "vivo" para ProcessHandle, pero ya no tiene ejecutable
      */
-    public List<Map<String, Object>> getCommandLog(int limit) {
-        int size = commandLog.size();
-        int fromIndex = Math.max(0, size - limit);
+    private static boolean hasExited(KillTarget target) {
+        return !target.handle.isAlive()
+                || (!"?".equals(target.name) && target.handle.info().command().isEmpty());
+    }
+
+    private static Map<String, Object> killResult(int pid, String name, Integer parentPid, String outcome,
+                                                  boolean forced) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("pid", pid);
+        result.put("name", name);
+        result.put("parentPid", parentPid);
+        result.put("result", outcome);
+        result.put("forced", forced);
+        return result;
+    }
+
+    private static String processName(ProcessHandle handle) {
+        String command = handle.info().command().orElse("");
+        int slash = Math.max(command.lastIndexOf('/'), command.lastIndexOf('\\'));
+        return command.isEmpty() ? "?" : command.substring(slash + 1);
+    }
 
-        List<Map<String, Object>> recentLogs = new ArrayList<>(
-                commandLog.subList(fromIndex, size)
-        );
+    /**
+     * Proceso a terminar; parentPid es el PID pedido cuando llega por el árbol
+     */
+    private static class KillTarget {
+        final ProcessHandle handle;
+        final Integer parentPid;
+        final String name;
+        boolean signalled;
+        boolean forced;
+
+        KillTarget(ProcessHandle handle, Integer parentPid) {
+            this.handle = handle;
+            this.parentPid = parentPid;
+            this.name = processName(handle);
+        }
+    }
 
-        // Invertir para mostrar los más recientes primero
-        Collections.reverse(recentLogs);
+    /**
+     * Registra la terminación de un proceso en el log de auditoría (no bloquea)
+     */
+    private void logKill(String command, String user, boolean success, String output) {
+        auditLog.append("kill", user, command, success, output);
+    }
 
-        return recentLogs;
+    /**
+     * Obtiene el log de comandos ejecutados y procesos terminados, los más
+     * recientes primero. from/to (epoch ms), user y type son opcionales.
+     */
+    public List<Map<String, Object>> getCommandLog(Long from, Long to, String user, String type, int limit) {
+        return auditLog.query(from, to, user, type, limit);
     }
 
     /**
-     * Limpia el log de comandos
+     * Busca procesos por nombre, usuario o línea de comandos (ordenados por relevancia)
      */
-    public void clearCommandLog() {
-        commandLog.clear();
+    public List<Map<String, Object>> searchProcesses(String searchTerm, int limit) {
+        return processSnapshots.search(searchTerm, limit);
+    }
+
+    public Map<String, Object> getSearchIndexStats() {
+        return processSnapshots.getSearchIndexStats();
     }
 
     /**
-     * Obtiene procesos filtrados por nombre
+     * % de CPU del último intervalo según el listado compartido; si el proceso
+     * todavía no aparece en él, la media desde su arranque
      */
-    public List<Map<String, Object>> searchProcesses(String searchTerm) {
-        return os.getProcesses().stream()
-                .filter(p -> p.getName().toLowerCase().contains(searchTerm.toLowerCase()))
-                .limit(50)
-                .map(process -> {
-                    Map<String, Object> processData = new HashMap<>();
-                    processData.put("pid", process.getProcessID());
-                    processData.put("name", process.getName());
-                    processData.put("cpuUsage", Math.round(process.getProcessCpuLoadCumulative() * 100 * 100.0) / 100.0);
-                    processData.put("memoryUsage", process.getResidentSetSize() / (1024 * 1024));
-                    processData.put("status", process.getState().name());
-                    return processData;
-                })
-                .collect(Collectors.toList());
+    private double cpuPercent(OSProcess process) {
+        double cpu = processSnapshots.getCpuPercent(process.getProcessID());
+        return cpu >= 0 ? cpu : process.getProcessCpuLoadCumulative() * 100;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,272 @@
+package com.antovdv.centro_computo.service;
+
+import oshi.software.os.OSProcess;
+
+import java.util.*;
+
+/**
+ * Índice de búsqueda de procesos por nombre, línea de comandos y usuario.
+ * Guarda los textos ya en minúsculas y un índice de trigramas (trigrama ->
+ * BitSet de documentos), de modo que una búsqueda intersecta unos pocos
+ * BitSet y solo verifica los candidatos. Se actualiza de forma incremental
+ * con cada listado compartido: un proceso que sigue vivo (mismo PID, misma
+ * hora de inicio y mismo nombre) no se vuelve a indexar, y así tampoco se
+ * vuelve a leer su línea de comandos.
+ */
+public class ProcessSearchIndex {
+
+    // Las líneas de comandos muy largas (classpaths de Java, etc.) se recortan al indexar
+    private static final int MAX_COMMAND_LINE = 512;
+
+    private final Map<Integer, Doc> byPid = new HashMap<>();
+    private final List<Doc> docs = new ArrayList<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final Map<Long, BitSet> postings = new HashMap<>();
+
+    private long generation;
+    private long lastUpdate;
+    private long indexed;
+
+    /**
+     * Aplica un nuevo listado: indexa los procesos nuevos o cambiados,
+     * actualiza memoria y estado de los demás y quita los que ya no existen
+     */
+    public synchronized void update(List<OSProcess> processes, long timestamp) {
+        generation++;
+
+        for (OSProcess process : processes) {
+            Doc doc = byPid.get(process.getProcessID());
+            if (doc != null && (doc.startTime != process.getStartTime() || !doc.name.equals(process.getName()))) {
+                remove(doc);
+                doc = null;
+            }
+            if (doc == null) {
+                doc = add(process);
+            }
+            doc.state = process.getState().name();
+            doc.residentSetSize = process.getResidentSetSize();
+            doc.generation = generation;
+        }
+
+        for (Doc doc : new ArrayList<>(byPid.values())) {
+            if (doc.generation != generation) {
+                remove(doc);
+            }
+        }
+        lastUpdate = timestamp;
+    }
+
+    private Doc add(OSProcess process) {
+        Doc doc = new Doc();
+        doc.slot = freeSlots.isEmpty() ? docs.size() : freeSlots.pop();
+        doc.pid = process.getProcessID();
+        doc.startTime = process.getStartTime();
+        doc.name = process.getName() != null ? process.getName() : "";
+        doc.user = process.getUser() != null ? process.getUser() : "";
+        String commandLine = process.getCommandLine() != null ? process.getCommandLine() : "";
+        doc.commandLine = commandLine.length() > MAX_COMMAND_LINE ? commandLine.substring(0, MAX_COMMAND_LINE) : commandLine;
+        doc.nameLower = doc.name.toLowerCase(Locale.ROOT);
+        doc.userLower = doc.user.toLowerCase(Locale.ROOT);
+        doc.commandLineLower = doc.commandLine.toLowerCase(Locale.ROOT);
+
+        if (doc.slot == docs.size()) {
+            docs.add(doc);
+        } else {
+            docs.set(doc.slot, doc);
+        }
+        byPid.put(doc.pid, doc);
+        for (long trigram : trigrams(doc)) {
+            postings.computeIfAbsent(trigram, k -> new BitSet()).set(doc.slot);
+        }
+        indexed++;
+        return doc;
+    }
+
+    private void remove(Doc doc) {
+        for (long trigram : trigrams(doc)) {
+            BitSet set = postings.get(trigram);
+            if (set != null) {
+                set.clear(doc.slot);
+                if (set.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+        docs.set(doc.slot, null);
+        freeSlots.push(doc.slot);
+        byPid.remove(doc.pid);
+    }
+
+    /**
+     * Busca el texto (sin distinguir mayúsculas) en nombre, usuario y línea
+     * de comandos. Los resultados se ordenan por relevancia: nombre exacto,
+     * nombre que empieza por el texto, el texto al inicio de una palabra del
+     * nombre, en cualquier parte del nombre, usuario y, por último, línea de
+     * comandos. Cada resultado incluye pid, name, user, commandLine,
+     * memoryUsage, status, score y matchedOn.
+     */
+    public synchronized List<Map<String, Object>> search(String query, int limit) {
+        String term = query.trim().toLowerCase(Locale.ROOT);
+        if (term.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        if (term.length() < 3) {
+            // Sin trigramas: se recorren los textos ya en minúsculas
+            for (Doc doc : byPid.values()) {
+                addIfMatches(doc, term, hits);
+            }
+        } else {
+            BitSet candidates = candidates(term);
+            if (candidates != null) {
+                for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                    addIfMatches(docs.get(slot), term, hits);
+                }
+            }
+        }
+
+        hits.sort(Comparator.comparingInt((Hit h) -> h.score).reversed()
+                .thenComparing(h -> h.doc.nameLower)
+                .thenComparingInt(h -> h.doc.pid));
+
+        List<Map<String, Object>> result = new ArrayList<>(Math.min(limit, hits.size()));
+        for (int i = 0; i < hits.size() && i < limit; i++) {
+            result.add(hits.get(i).toMap());
+        }
+        return result;
+    }
+
+    /**
+     * Intersección de los BitSet de los trigramas del texto; null si alguno no aparece
+     */
+    private BitSet candidates(String term) {
+        BitSet result = null;
+        for (int i = 0; i + 3 <= term.length(); i++) {
+            BitSet set = postings.get(pack(term, i));
+            if (set == null) {
+                return null;
+            }
+            if (result == null) {
+                result = (BitSet) set.clone();
+            } else {
+                result.and(set);
+            }
+            if (result.isEmpty()) {
+                return null;
+            }
+        }
+        return result;
+    }
+
+    private static void addIfMatches(Doc doc, String term, List<Hit> hits) {
+        int score = 0;
+        String field = null;
+
+        int index = doc.nameLower.indexOf(term);
+        if (index >= 0) {
+            field = "name";
+            if (doc.nameLower.length() == term.length()) {
+                score = 100;
+            } else if (index == 0) {
+                score = 80;
+            } else if (isWordStart(doc.nameLower, index)) {
+                score = 60;
+            } else {
+                score = 50;
+            }
+        } else if (doc.userLower.contains(term)) {
+            field = "user";
+            score = doc.userLower.length() == term.length() ? 40 : 30;
+        } else {
+            index = doc.commandLineLower.indexOf(term);
+            if (index >= 0) {
+                field = "commandLine";
+                score = isWordStart(doc.commandLineLower, index) ? 20 : 10;
+            }
+        }
+
+        if (field != null) {
+            hits.add(new Hit(doc, score, field));
+        }
+    }
+
+    private static boolean isWordStart(String text, int index) {
+        return index == 0 || !Character.isLetterOrDigit(text.charAt(index - 1));
+    }
+
+    private static List<Long> trigrams(Doc doc) {
+        Set<Long> result = new HashSet<>();
+        addTrigrams(doc.nameLower, result);
+        addTrigrams(doc.userLower, result);
+        addTrigrams(doc.commandLineLower, result);
+        return new ArrayList<>(result);
+    }
+
+    private static void addTrigrams(String text, Set<Long> result) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            result.add(pack(text, i));
+        }
+    }
+
+    // Tres caracteres UTF-16 en un long
+    private static long pack(String text, int i) {
+        return ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+    }
+
+    public synchronized long getLastUpdate() {
+        return lastUpdate;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("processes", byPid.size());
+        stats.put("trigrams", postings.size());
+        stats.put("indexed", indexed);
+        stats.put("lastUpdate", lastUpdate);
+        return stats;
+    }
+
+    /**
+     * Coincidencia de una búsqueda; los datos son los del último listado
+     */
+    private static class Hit {
+        private final Doc doc;
+        private final int score;
+        private final String matchedOn;
+
+        Hit(Doc doc, int score, String matchedOn) {
+            this.doc = doc;
+            this.score = score;
+            this.matchedOn = matchedOn;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> data = new HashMap<>();
+            data.put("pid", doc.pid);
+            data.put("name", doc.name);
+            data.put("user", doc.user);
+            data.put("commandLine", doc.commandLine);
+            data.put("memoryUsage", doc.residentSetSize / (1024 * 1024)); // MB
+            data.put("status", doc.state);
+            data.put("score", score);
+            data.put("matchedOn", matchedOn);
+            return data;
+        }
+    }
+
+    private static class Doc {
+        int slot;
+        int pid;
+        long startTime;
+        String name;
+        String user;
+        String commandLine;
+        String nameLower;
+        String userLower;
+        String commandLineLower;
+        String state;
+        long residentSetSize;
+        long generation;
+    }
+}
@@ -0,0 +1,146 @@
+package com.antovdv.centro_computo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import oshi.SystemInfo;
+import oshi.software.os.OSProcess;
+import oshi.software.os.OperatingSystem;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Listado de procesos compartido por el monitor y la gestión de procesos.
+ * Recorrer /proc es caro, así que el listado se reutiliza mientras tenga
+ * menos de app.monitoring.process-snapshot.max-age-ms y, si varias
+ * peticiones lo encuentran caducado a la vez, solo una lo refresca y el
+ * resto espera ese mismo resultado.
+ */
+@Service
+public class ProcessSnapshotService {
+
+    // Antigüedad máxima del índice de búsqueda antes de forzar un listado nuevo
+    private static final long SEARCH_MAX_AGE_MS = 10_000;
+
+    private final OperatingSystem os;
+    private final long maxAgeMs;
+
+    private final ProcessTable processTable = new ProcessTable();
+    private final ProcessSearchIndex searchIndex = new ProcessSearchIndex();
+    private final AtomicReference<CompletableFuture<Snapshot>> inFlight = new AtomicReference<>();
+    private volatile Snapshot snapshot;
+
+    public ProcessSnapshotService(SystemInfo systemInfo,
+                                  @Value("${app.monitoring.process-snapshot.max-age-ms:1000}") long maxAgeMs) {
+        this.os = systemInfo.getOperatingSystem();
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    /**
+     * Devuelve un listado con antigüedad máxima max-age-ms
+     */
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (isFresh(current)) {
+            return current;
+        }
+
+        CompletableFuture<Snapshot> mine = new CompletableFuture<>();
+        CompletableFuture<Snapshot> running = inFlight.compareAndExchange(null, mine);
+        if (running != null) {
+            // Ya hay un refresco en curso: esperar su resultado
+            return running.join();
+        }
+
+        try {
+            // Otro hilo pudo terminar un refresco justo antes de que ganáramos
+            current = snapshot;
+            if (!isFresh(current)) {
+                long now = System.currentTimeMillis();
+                List<OSProcess> processes = os.getProcesses();
+                processTable.update(processes, now);
+                searchIndex.update(processes, now);
+                current = new Snapshot(processes, now);
+                snapshot = current;
+            }
+            mine.complete(current);
+            return current;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.set(null);
+        }
+    }
+
+    /**
+     * Procesos con más CPU en el último intervalo entre listados
+     */
+    public List<Map<String, Object>> getTopProcesses(int limit) {
+        getSnapshot();
+        return processTable.top(limit);
+    }
+
+    /**
+     * Igual que getTopProcesses pero sin recorrer /proc: usa la tabla tal como
+     * la dejó el último listado. Para hilos que no deben bloquearse.
+     */
+    public List<Map<String, Object>> getCachedTopProcesses(int limit) {
+        return processTable.top(limit);
+    }
+
+    /**
+     * Búsqueda en el índice de procesos (nombre, usuario, línea de comandos)
+     * ordenada por relevancia. No recorre /proc: usa el índice tal como lo dejó
+     * el último listado (lo refresca el tier processes del muestreador) y solo
+     * pide uno nuevo si el índice tiene más de SEARCH_MAX_AGE_MS.
+     */
+    public List<Map<String, Object>> search(String query, int limit) {
+        if (System.currentTimeMillis() - searchIndex.getLastUpdate() > SEARCH_MAX_AGE_MS) {
+            getSnapshot();
+        }
+        List<Map<String, Object>> results = searchIndex.search(query, limit);
+        for (Map<String, Object> result : results) {
+            double cpu = processTable.getCpuPercent((Integer) result.get("pid"));
+            result.put("cpuUsage", Math.round(Math.max(cpu, 0) * 100.0) / 100.0);
+        }
+        return results;
+    }
+
+    public Map<String, Object> getSearchIndexStats() {
+        return searchIndex.getStats();
+    }
+
+    /**
+     * % de CPU de un PID en el último intervalo, o -1 si no estaba en el listado
+     */
+    public double getCpuPercent(int pid) {
+        return processTable.getCpuPercent(pid);
+    }
+
+    private boolean isFresh(Snapshot current) {
+        return current != null && System.currentTimeMillis() - current.getTimestamp() < maxAgeMs;
+    }
+
+    /**
+     * Listado inmutable de procesos tomado en un instante
+     */
+    public static class Snapshot {
+        private final List<OSProcess> processes;
+        private final long timestamp;
+
+        Snapshot(List<OSProcess> processes, long timestamp) {
+            this.processes = Collections.unmodifiableList(processes);
+            this.timestamp = timestamp;
+        }
+
+        public List<OSProcess> getProcesses() {
+            return processes;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.antovdv.centro_computo.service;
+
+import oshi.software.os.OSProcess;
+
+import java.util.*;
+
+/**
+ * Tabla incremental de procesos indexada por PID y hora de inicio. Guarda el
+ * tiempo de CPU de la actualización anterior para calcular el % de CPU del
+ * último intervalo (no la media desde que arrancó el proceso) y permite
+ * sacar los K procesos con más CPU con un heap acotado, sin ordenar todo.
+ */
+public class ProcessTable {
+
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private long generation;
+    private long lastUpdate;
+
+    /**
+     * Aplica una nueva lista de procesos tomada en el instante timestamp.
+     * Las entradas cuyo PID ya no aparece se eliminan.
+     */
+    public synchronized void update(List<OSProcess> processes, long timestamp) {
+        generation++;
+        long elapsed = timestamp - lastUpdate;
+
+        for (OSProcess process : processes) {
+            int pid = process.getProcessID();
+            Entry entry = entries.get(pid);
+            long cpuTime = process.getKernelTime() + process.getUserTime();
+
+            if (entry == null || entry.startTime != process.getStartTime()) {
+                // Proceso nuevo (o PID reutilizado): todavía no hay intervalo, se usa la media acumulada
+                if (entry == null) {
+                    entry = new Entry(pid);
+                    entries.put(pid, entry);
+                }
+                entry.startTime = process.getStartTime();
+                entry.cpuPercent = process.getProcessCpuLoadCumulative() * 100;
+            } else if (elapsed > 0) {
+                long delta = Math.max(0, cpuTime - entry.cpuTime);
+                entry.cpuPercent = delta * 100.0 / elapsed;
+            }
+
+            entry.cpuTime = cpuTime;
+            entry.name = process.getName();
+            entry.state = process.getState().name();
+            entry.residentSetSize = process.getResidentSetSize();
+            entry.generation = generation;
+        }
+
+        // Expulsar los procesos que ya no existen
+        entries.values().removeIf(entry -> entry.generation != generation);
+        lastUpdate = timestamp;
+    }
+
+    public synchronized long getLastUpdate() {
+        return lastUpdate;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Los limit procesos con más CPU en el último intervalo, de mayor a menor.
+     * Usa un min-heap de tamaño limit: O(n log k) en lugar de ordenar n procesos.
+     */
+    public synchronized List<Map<String, Object>> top(int limit) {
+        // Nunca más que los procesos que hay: evita un heap enorme (o limit + 1 desbordado)
+        limit = Math.min(limit, entries.size());
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<Entry> heap = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(e -> e.cpuPercent));
+        for (Entry entry : entries.values()) {
+            if (heap.size() < limit) {
+                heap.add(entry);
+            } else if (entry.cpuPercent > heap.peek().cpuPercent) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+
+        Entry[] ordered = new Entry[heap.size()];
+        for (int i = ordered.length - 1; i >= 0; i--) {
+            ordered[i] = heap.poll();
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>(ordered.length);
+        for (Entry entry : ordered) {
+            result.add(entry.toMap());
+        }
+        return result;
+    }
+
+    /**
+     * % de CPU del último intervalo de un PID, o -1 si no está en la tabla
+     */
+    public synchronized double getCpuPercent(int pid) {
+        Entry entry = entries.get(pid);
+        return entry != null ? entry.cpuPercent : -1;
+    }
+
+    private static class Entry {
+        final int pid;
+        long startTime;
+        long cpuTime;
+        double cpuPercent;
+        String name;
+        String state;
+        long residentSetSize;
+        long generation;
+
+        Entry(int pid) {
+            this.pid = pid;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> processData = new HashMap<>();
+            processData.put("pid", pid);
+            processData.put("name", name);
+            processData.put("cpuUsage", Math.round(cpuPercent * 100.0) / 100.0);
+            processData.put("memoryUsage", residentSetSize / (1024 * 1024)); // MB
+            processData.put("status", state);
+            return processData;
+        }
+    }
+}
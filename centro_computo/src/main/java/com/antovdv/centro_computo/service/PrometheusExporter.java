@@ -0,0 +1,238 @@
+package com.antovdv.centro_computo.service;
+
+import com.antovdv.centro_computo.database;
+import com.antovdv.centro_computo.dto.SystemMetricsDTO;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Genera el formato de texto de Prometheus (0.0.4) con la última muestra del
+ * host y los contadores de la aplicación. El texto se escribe en un
+ * StringBuilder y un ByteBuffer que se reutilizan entre scrapes, así que un
+ * scrape apenas crea objetos aunque haya miles de series.
+ */
+@Service
+public class PrometheusExporter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MetricsCollectorService metricsCollector;
+    private final AppMetrics appMetrics;
+
+    private final StringBuilder text = new StringBuilder(64 * 1024);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private ByteBuffer bytes = ByteBuffer.allocate(64 * 1024);
+
+    public PrometheusExporter(MetricsCollectorService metricsCollector, AppMetrics appMetrics) {
+        this.metricsCollector = metricsCollector;
+        this.appMetrics = appMetrics;
+    }
+
+    /**
+     * Escribe todas las métricas en out. Los scrapes concurrentes se serializan
+     * porque comparten los buffers.
+     */
+    public synchronized void scrape(OutputStream out) throws IOException {
+        text.setLength(0);
+        writeHost(metricsCollector.getLatestMetrics());
+        writeApp();
+
+        ByteBuffer encoded = encode();
+        out.write(encoded.array(), 0, encoded.limit());
+    }
+
+    private void writeHost(SystemMetricsDTO metrics) {
+        gauge("host_cpu_usage_percent", "Uso de CPU del host en el último intervalo", metrics.getCpuUsage());
+        gauge("host_cpu_cores", "Procesadores lógicos", metrics.getCpuCores());
+        gauge("host_memory_total_bytes", "Memoria total", metrics.getTotalMemory() * 1024.0 * 1024.0);
+        gauge("host_memory_used_bytes", "Memoria en uso", metrics.getUsedMemory() * 1024.0 * 1024.0);
+        gauge("host_memory_available_bytes", "Memoria disponible", metrics.getAvailableMemory() * 1024.0 * 1024.0);
+        gauge("host_memory_usage_percent", "Uso de memoria", metrics.getMemoryUsagePercent());
+        if (metrics.getTimestamp() != null) {
+            gauge("host_sample_timestamp_seconds", "Instante de la última muestra", metrics.getTimestamp() / 1000.0);
+        }
+
+        List<Map<String, Object>> disks = metrics.getDisks();
+        if (disks != null) {
+            deviceGauge("host_disk_read_bytes_per_second", "Bytes leídos por segundo", "device", disks, "readBytesPerSec");
+            deviceGauge("host_disk_write_bytes_per_second", "Bytes escritos por segundo", "device", disks, "writeBytesPerSec");
+            deviceGauge("host_disk_reads_per_second", "Operaciones de lectura por segundo", "device", disks, "readsPerSec");
+            deviceGauge("host_disk_writes_per_second", "Operaciones de escritura por segundo", "device", disks, "writesPerSec");
+            deviceGauge("host_disk_busy_percent", "Porcentaje del tiempo con el disco ocupado", "device", disks, "busyPercent");
+        }
+
+        List<Map<String, Object>> fileSystems = metrics.getFileSystems();
+        if (fileSystems != null) {
+            deviceGauge("host_filesystem_size_bytes", "Tamaño del sistema de archivos", "mount", "mount", fileSystems, "totalBytes");
+            deviceGauge("host_filesystem_used_bytes", "Espacio usado", "mount", "mount", fileSystems, "usedBytes");
+            deviceGauge("host_filesystem_free_bytes", "Espacio disponible para usuarios", "mount", "mount", fileSystems, "freeBytes");
+            deviceGauge("host_filesystem_inodes", "Inodos totales", "mount", "mount", fileSystems, "totalInodes");
+            deviceGauge("host_filesystem_inodes_free", "Inodos libres", "mount", "mount", fileSystems, "freeInodes");
+        }
+        if (metrics.getDiskUsagePercent() != null) {
+            gauge("host_disk_usage_percent", "Ocupación del sistema de archivos más lleno", metrics.getDiskUsagePercent());
+        }
+
+        List<Map<String, Object>> nics = metrics.getNetworkInterfaces();
+        if (nics != null) {
+            deviceGauge("host_network_receive_bytes_per_second", "Bytes recibidos por segundo", "interface", nics, "rxBytesPerSec");
+            deviceGauge("host_network_transmit_bytes_per_second", "Bytes enviados por segundo", "interface", nics, "txBytesPerSec");
+            deviceGauge("host_network_receive_packets_per_second", "Paquetes recibidos por segundo", "interface", nics, "rxPacketsPerSec");
+            deviceGauge("host_network_transmit_packets_per_second", "Paquetes enviados por segundo", "interface", nics, "txPacketsPerSec");
+        }
+    }
+
+    private void writeApp() {
+        histogram("http_server_requests_seconds", "Latencia de las peticiones HTTP", appMetrics.getHttpRequests());
+        histogram("command_execution_seconds", "Duración de los comandos ejecutados", appMetrics.getCommands());
+        histogram("command_queue_wait_seconds", "Espera de los comandos en la cola del planificador", appMetrics.getCommandWaits());
+        histogram("backup_duration_seconds", "Duración de las operaciones de backup", appMetrics.getBackups());
+
+        header("db_connections_total", "Conexiones abiertas a la base de datos (una por operación)", "counter");
+        sample("db_connections_total", database.getConnectionCount());
+        header("db_connection_errors_total", "Conexiones a la base de datos fallidas", "counter");
+        sample("db_connection_errors_total", database.getConnectionErrorCount());
+        header("db_connect_seconds_total", "Tiempo total abriendo conexiones", "counter");
+        sample("db_connect_seconds_total", database.getConnectNanos() / 1_000_000_000.0);
+    }
+
+    private void gauge(String name, String help, double value) {
+        header(name, help, "gauge");
+        sample(name, value);
+    }
+
+    private void deviceGauge(String name, String help, String label, List<Map<String, Object>> devices, String key) {
+        deviceGauge(name, help, label, "name", devices, key);
+    }
+
+    private void deviceGauge(String name, String help, String label, String nameKey,
+                             List<Map<String, Object>> devices, String key) {
+        header(name, help, "gauge");
+        for (Map<String, Object> device : devices) {
+            Object value = device.get(key);
+            if (value instanceof Number) {
+                text.append(name).append('{').append(label).append("=\"");
+                escape(String.valueOf(device.get(nameKey)));
+                text.append("\"} ");
+                value(((Number) value).doubleValue());
+                text.append('\n');
+            }
+        }
+    }
+
+    private void histogram(String name, String help, Collection<LatencyHistogram> histograms) {
+        header(name, help, "histogram");
+        for (LatencyHistogram histogram : histograms) {
+            double[] bounds = histogram.getBounds();
+            long cumulative = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                cumulative += histogram.getBucketCount(i);
+                text.append(name).append("_bucket");
+                labels(histogram, "le");
+                value(bounds[i]);
+                text.append("\"} ").append(cumulative).append('\n');
+            }
+            long count = histogram.getCount();
+            text.append(name).append("_bucket");
+            labels(histogram, "le");
+            text.append("+Inf\"} ").append(count).append('\n');
+
+            text.append(name).append("_sum");
+            labels(histogram, null);
+            value(histogram.getSum());
+            text.append('\n');
+
+            text.append(name).append("_count");
+            labels(histogram, null);
+            text.append(count).append('\n');
+        }
+    }
+
+    /**
+     * Escribe {a="x",b="y" y, si extra no es null, deja abierto extra="
+     * para que el llamante escriba el valor y cierre
+     */
+    private void labels(LatencyHistogram histogram, String extra) {
+        String[] names = histogram.getLabelNames();
+        String[] values = histogram.getLabelValues();
+        text.append('{');
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(names[i]).append("=\"");
+            escape(values[i]);
+            text.append('"');
+        }
+        if (extra != null) {
+            text.append(names.length > 0 ? "," : "").append(extra).append("=\"");
+        } else {
+            text.append("} ");
+        }
+    }
+
+    private void header(String name, String help, String type) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private void sample(String name, double value) {
+        text.append(name).append(' ');
+        value(value);
+        text.append('\n');
+    }
+
+    private void value(double value) {
+        if (Double.isInfinite(value)) {
+            text.append(value > 0 ? "+Inf" : "-Inf");
+        } else if (value == (long) value) {
+            text.append((long) value);
+        } else {
+            text.append(value);
+        }
+    }
+
+    private void escape(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                text.append('\\').append(c);
+            } else if (c == '\n') {
+                text.append("\\n");
+            } else {
+                text.append(c);
+            }
+        }
+    }
+
+    /**
+     * Codifica el texto en UTF-8 sobre el ByteBuffer reutilizable, ampliándolo si no cabe
+     */
+    private ByteBuffer encode() {
+        while (true) {
+            bytes.clear();
+            encoder.reset();
+            CharBuffer chars = CharBuffer.wrap(text);
+            CoderResult result = encoder.encode(chars, bytes, true);
+            if (!result.isOverflow()) {
+                result = encoder.flush(bytes);
+            }
+            if (result.isOverflow()) {
+                bytes = ByteBuffer.allocate(bytes.capacity() * 2);
+                continue;
+            }
+            bytes.flip();
+            return bytes;
+        }
+    }
+}
@@ -1,14 +1,14 @@
 package com.antovdv.centro_computo.service;
 
 import com.antovdv.centro_computo.dto.SystemMetricsDTO;
+import com.antovdv.centro_computo.model.HostInventory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import oshi.SystemInfo;
 import oshi.hardware.*;
-import oshi.software.os.OSProcess;
 import oshi.software.os.OperatingSystem;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class SystemMonitorService {
@@ -17,29 +17,84 @@ public class SystemMonitorService {
     private final HardwareAbstractionLayer hardware;
     private final OperatingSystem os;
 
-    public SystemMonitorService() {
-        this.systemInfo = new SystemInfo();
+    // Ticks de CPU de la muestra anterior: la carga se calcula entre dos muestras consecutivas
+    private long[] prevTicks;
+    private long prevTicksTime;
+
+    // Discos e interfaces se enumeran de vez en cuando; en cada muestra solo se actualizan sus contadores
+    private static final long DEVICE_REFRESH_MS = 5 * 60 * 1000;
+    private List<HWDiskStore> diskStores = List.of();
+    private List<NetworkIF> networkIFs = List.of();
+    private long devicesRefreshTime;
+
+    // Estado por dispositivo para calcular tasas entre muestras (se reutiliza, no se crea por muestra).
+    // diskRates hace también de cerrojo del tier de dispositivos
+    private final Map<String, DiskRate> diskRates = new HashMap<>();
+    private final Map<String, NetRate> netRates = new HashMap<>();
+
+    // Última lectura de cada tier; sampleCore() las incluye tal cual en la muestra
+    private volatile List<Map<String, Object>> lastDisks = List.of();
+    private volatile List<Map<String, Object>> lastNetworkInterfaces = List.of();
+    private volatile List<Map<String, Object>> lastFileSystems = List.of();
+    private volatile Map<String, Object> lastSensors = Map.of();
+
+    private final ProcessSnapshotService processSnapshots;
+    private final HostInventoryService inventoryService;
+    private final FileSystemCollector fileSystemCollector;
+
+    // Respuesta de /api/monitor/info, recalculada como mucho una vez por TTL
+    private final VersionedCache<Map<String, Object>> systemInfoCache;
+
+    public SystemMonitorService(SystemInfo systemInfo, ProcessSnapshotService processSnapshots,
+                                HostInventoryService inventoryService,
+                                @Value("${app.monitoring.info.ttl-ms:5000}") long systemInfoTtlMs) {
+        this.systemInfo = systemInfo;
+        this.processSnapshots = processSnapshots;
+        this.inventoryService = inventoryService;
         this.hardware = systemInfo.getHardware();
         this.os = systemInfo.getOperatingSystem();
+        this.fileSystemCollector = new FileSystemCollector(os.getFileSystem());
+        this.systemInfoCache = new VersionedCache<>(this::getSystemInfo, systemInfoTtlMs);
+        this.prevTicks = hardware.getProcessor().getSystemCpuLoadTicks();
+        this.prevTicksTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Toma una muestra completa (CPU, memoria, discos, red, montajes y
+     * sensores) en una sola pasada. La usan el agente de flota y el primer
+     * acceso antes de que arranque el muestreo por tiers.
+     */
+    public SystemMetricsDTO collectSystemMetrics() {
+        sampleDevices();
+        sampleFileSystems();
+        sampleSensors();
+        return sampleCore();
     }
 
-    public SystemMetricsDTO getSystemMetrics() {
+    /**
+     * CPU y memoria, que se miden en cada muestra. Discos, red, montajes y
+     * sensores se toman de la última lectura de su propio tier
+     * (MetricsCollectorService). La CPU se mide desde la muestra anterior,
+     * por lo que solo debe llamarla el recolector periódico; el resto lee la
+     * última instantánea publicada.
+     */
+    public SystemMetricsDTO sampleCore() {
         SystemMetricsDTO metrics = new SystemMetricsDTO();
 
         // CPU
-        CentralProcessor processor = hardware.getProcessor();
-        long[] prevTicks = processor.getSystemCpuLoadTicks();
-        try {
-            Thread.sleep(1000);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-        long[] ticks = processor.getSystemCpuLoadTicks();
-        double cpuLoad = processor.getSystemCpuLoadBetweenTicks(prevTicks) * 100;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            metrics.setTimestamp(now);
+            metrics.setSampleWindowMs(now - prevTicksTime);
 
-        metrics.setCpuUsage(Math.round(cpuLoad * 100.0) / 100.0);
-        metrics.setCpuCores(processor.getLogicalProcessorCount());
-        metrics.setCpuModel(processor.getProcessorIdentifier().getName());
+            CentralProcessor processor = hardware.getProcessor();
+            double cpuLoad = processor.getSystemCpuLoadBetweenTicks(prevTicks) * 100;
+            prevTicks = processor.getSystemCpuLoadTicks();
+            prevTicksTime = now;
+            metrics.setCpuUsage(Math.round(cpuLoad * 100.0) / 100.0);
+        }
+        // Modelo, nombres de discos e interfaces, etc. están en el inventario (HostInventoryService)
+        metrics.setCpuCores(inventoryService.getInventory().getLogicalCores());
 
         // Memoria
         GlobalMemory memory = hardware.getMemory();
@@ -52,66 +107,255 @@ public class SystemMonitorService {
         metrics.setAvailableMemory(availableMemory / (1024 * 1024)); // MB
         metrics.setMemoryUsagePercent(Math.round(((double) usedMemory / totalMemory) * 100 * 100.0) / 100.0);
 
-        // Disco
-        List<Map<String, Object>> diskInfo = new ArrayList<>();
-        for (HWDiskStore disk : hardware.getDiskStores()) {
-            Map<String, Object> diskData = new HashMap<>();
-            diskData.put("name", disk.getName());
-            diskData.put("model", disk.getModel());
-            diskData.put("size", disk.getSize() / (1024 * 1024 * 1024)); // GB
-            diskData.put("reads", disk.getReads());
-            diskData.put("writes", disk.getWrites());
-            diskInfo.add(diskData);
+        // Lo que muestrean los demás tiers (listas inmutables, se comparten entre muestras)
+        metrics.setDisks(lastDisks);
+        metrics.setNetworkInterfaces(lastNetworkInterfaces);
+
+        // Ocupación por montaje; la del más lleno es la que dispara la alerta de disco
+        List<Map<String, Object>> fileSystems = lastFileSystems;
+        double maxDiskUsage = 0;
+        for (Map<String, Object> fs : fileSystems) {
+            maxDiskUsage = Math.max(maxDiskUsage, (Double) fs.get("usagePercent"));
         }
-        metrics.setDisks(diskInfo);
-
-        // Red
-        List<Map<String, Object>> networkInfo = new ArrayList<>();
-        for (NetworkIF net : hardware.getNetworkIFs()) {
-            if (net.getBytesRecv() > 0 || net.getBytesSent() > 0) {
-                Map<String, Object> netData = new HashMap<>();
-                netData.put("name", net.getName());
-                netData.put("displayName", net.getDisplayName());
-                netData.put("ipv4", Arrays.toString(net.getIPv4addr()));
-                netData.put("bytesReceived", net.getBytesRecv() / (1024 * 1024)); // MB
-                netData.put("bytesSent", net.getBytesSent() / (1024 * 1024)); // MB
-                netData.put("speed", net.getSpeed() / (1000 * 1000)); // Mbps
-                networkInfo.add(netData);
+        metrics.setFileSystems(fileSystems);
+        metrics.setDiskUsagePercent(maxDiskUsage);
+        metrics.setSensors(lastSensors);
+
+        return metrics;
+    }
+
+    /**
+     * Contadores de discos e interfaces de red y sus tasas desde la lectura anterior
+     */
+    public void sampleDevices() {
+        synchronized (diskRates) {
+            long now = System.currentTimeMillis();
+            refreshDevicesIfNeeded(now);
+
+            // Disco: contadores acumulados y tasas calculadas desde la lectura anterior
+            List<Map<String, Object>> diskInfo = new ArrayList<>();
+            for (HWDiskStore disk : diskStores) {
+                disk.updateAttributes();
+                DiskRate rate = diskRates.computeIfAbsent(disk.getName(), k -> new DiskRate());
+                rate.update(disk);
+
+                Map<String, Object> diskData = new HashMap<>();
+                diskData.put("name", disk.getName());
+                diskData.put("reads", disk.getReads());
+                diskData.put("writes", disk.getWrites());
+                diskData.put("readBytesPerSec", rate.readBytesPerSec);
+                diskData.put("writeBytesPerSec", rate.writeBytesPerSec);
+                diskData.put("readsPerSec", rate.readsPerSec);
+                diskData.put("writesPerSec", rate.writesPerSec);
+                diskData.put("busyPercent", rate.busyPercent);
+                diskInfo.add(diskData);
             }
+            lastDisks = Collections.unmodifiableList(diskInfo);
+
+            // Red
+            List<Map<String, Object>> networkInfo = new ArrayList<>();
+            for (NetworkIF net : networkIFs) {
+                net.updateAttributes();
+                if (net.getBytesRecv() > 0 || net.getBytesSent() > 0) {
+                    NetRate rate = netRates.computeIfAbsent(net.getName(), k -> new NetRate());
+                    rate.update(net);
+
+                    Map<String, Object> netData = new HashMap<>();
+                    netData.put("name", net.getName());
+                    netData.put("ipv4", Arrays.toString(net.getIPv4addr()));
+                    netData.put("bytesReceived", net.getBytesRecv() / (1024 * 1024)); // MB
+                    netData.put("bytesSent", net.getBytesSent() / (1024 * 1024)); // MB
+                    netData.put("speed", net.getSpeed() / (1000 * 1000)); // Mbps
+                    netData.put("rxBytesPerSec", rate.rxBytesPerSec);
+                    netData.put("txBytesPerSec", rate.txBytesPerSec);
+                    netData.put("rxPacketsPerSec", rate.rxPacketsPerSec);
+                    netData.put("txPacketsPerSec", rate.txPacketsPerSec);
+                    networkInfo.add(netData);
+                }
+            }
+            lastNetworkInterfaces = Collections.unmodifiableList(networkInfo);
         }
-        metrics.setNetworkInterfaces(networkInfo);
+    }
 
-        return metrics;
+    /**
+     * Ocupación de cada punto de montaje
+     */
+    public void sampleFileSystems() {
+        lastFileSystems = Collections.unmodifiableList(fileSystemCollector.collect(System.currentTimeMillis()));
+    }
+
+    /**
+     * Temperatura y voltaje de la CPU y velocidad de los ventiladores. Según
+     * la plataforma pueden no estar disponibles (0 o NaN) o requerir permisos.
+     */
+    public void sampleSensors() {
+        Sensors sensors = hardware.getSensors();
+        Map<String, Object> data = new HashMap<>();
+        data.put("cpuTemperature", sensors.getCpuTemperature());
+        data.put("cpuVoltage", sensors.getCpuVoltage());
+        data.put("fanSpeeds", sensors.getFanSpeeds());
+        lastSensors = Collections.unmodifiableMap(data);
     }
 
+    private void refreshDevicesIfNeeded(long now) {
+        if (devicesRefreshTime != 0 && now - devicesRefreshTime < DEVICE_REFRESH_MS) {
+            return;
+        }
+        diskStores = hardware.getDiskStores();
+        networkIFs = hardware.getNetworkIFs();
+        devicesRefreshTime = now;
+
+        // Olvidar el estado de los dispositivos que ya no existen
+        Set<String> diskNames = new HashSet<>();
+        diskStores.forEach(d -> diskNames.add(d.getName()));
+        diskRates.keySet().retainAll(diskNames);
+        Set<String> netNames = new HashSet<>();
+        networkIFs.forEach(n -> netNames.add(n.getName()));
+        netRates.keySet().retainAll(netNames);
+    }
+
+    /**
+     * Diferencia entre dos lecturas de un contador acumulado. Si el contador
+     * bajó se trata como un reinicio (driver, interfaz recreada...) y el
+     * intervalo cuenta como 0: OSHI no dice si el contador es de 32 o 64
+     * bits, y suponer una vuelta de 32 bits daría un pico ficticio de ~4 GiB.
+     */
+    static long counterDelta(long previous, long current) {
+        return current >= previous ? current - previous : 0;
+    }
+
+    private static double perSecond(long delta, long elapsedMs) {
+        return Math.round(delta * 1000.0 / elapsedMs * 100.0) / 100.0;
+    }
+
+    /**
+     * Tasas de un disco: bytes/s, IOPS y porcentaje del intervalo con el
+     * disco ocupado (transferTime de OSHI es tiempo ocupado, no latencia)
+     */
+    private static class DiskRate {
+        private boolean initialized;
+        private long timestamp;
+        private long reads;
+        private long writes;
+        private long readBytes;
+        private long writeBytes;
+        private long transferTime;
+
+        double readBytesPerSec;
+        double writeBytesPerSec;
+        double readsPerSec;
+        double writesPerSec;
+        double busyPercent;
+
+        void update(HWDiskStore disk) {
+            long now = disk.getTimeStamp();
+            long elapsed = now - timestamp;
+            if (initialized && elapsed > 0) {
+                long dReads = counterDelta(reads, disk.getReads());
+                long dWrites = counterDelta(writes, disk.getWrites());
+                long dTransfer = counterDelta(transferTime, disk.getTransferTime());
+
+                readBytesPerSec = perSecond(counterDelta(readBytes, disk.getReadBytes()), elapsed);
+                writeBytesPerSec = perSecond(counterDelta(writeBytes, disk.getWriteBytes()), elapsed);
+                readsPerSec = perSecond(dReads, elapsed);
+                writesPerSec = perSecond(dWrites, elapsed);
+                busyPercent = Math.min(100.0, Math.round(dTransfer * 100.0 / elapsed * 100.0) / 100.0);
+            } else if (initialized) {
+                return; // mismos contadores que la vez anterior
+            }
+            initialized = true;
+            timestamp = now;
+            reads = disk.getReads();
+            writes = disk.getWrites();
+            readBytes = disk.getReadBytes();
+            writeBytes = disk.getWriteBytes();
+            transferTime = disk.getTransferTime();
+        }
+    }
+
+    /**
+     * Tasas de una interfaz de red: bytes/s y paquetes/s en cada sentido
+     */
+    private static class NetRate {
+        private boolean initialized;
+        private long timestamp;
+        private long bytesRecv;
+        private long bytesSent;
+        private long packetsRecv;
+        private long packetsSent;
+
+        double rxBytesPerSec;
+        double txBytesPerSec;
+        double rxPacketsPerSec;
+        double txPacketsPerSec;
+
+        void update(NetworkIF net) {
+            long now = net.getTimeStamp();
+            long elapsed = now - timestamp;
+            if (initialized && elapsed > 0) {
+                rxBytesPerSec = perSecond(counterDelta(bytesRecv, net.getBytesRecv()), elapsed);
+                txBytesPerSec = perSecond(counterDelta(bytesSent, net.getBytesSent()), elapsed);
+                rxPacketsPerSec = perSecond(counterDelta(packetsRecv, net.getPacketsRecv()), elapsed);
+                txPacketsPerSec = perSecond(counterDelta(packetsSent, net.getPacketsSent()), elapsed);
+            } else if (initialized) {
+                return;
+            }
+            initialized = true;
+            timestamp = now;
+            bytesRecv = net.getBytesRecv();
+            bytesSent = net.getBytesSent();
+            packetsRecv = net.getPacketsRecv();
+            packetsSent = net.getPacketsSent();
+        }
+    }
+
+    /**
+     * Procesos con más CPU en el último intervalo, a partir del listado compartido
+     */
     public List<Map<String, Object>> getTopProcesses(int limit) {
-        List<OSProcess> processes = os.getProcesses();
-
-        return processes.stream()
-                .sorted(Comparator.comparingDouble(OSProcess::getProcessCpuLoadCumulative).reversed())
-                .limit(limit)
-                .map(process -> {
-                    Map<String, Object> processData = new HashMap<>();
-                    processData.put("pid", process.getProcessID());
-                    processData.put("name", process.getName());
-                    processData.put("cpuUsage", Math.round(process.getProcessCpuLoadCumulative() * 100 * 100.0) / 100.0);
-                    processData.put("memoryUsage", process.getResidentSetSize() / (1024 * 1024)); // MB
-                    processData.put("status", process.getState().name());
-                    return processData;
-                })
-                .collect(Collectors.toList());
+        return processSnapshots.getTopProcesses(limit);
+    }
+
+    /**
+     * Procesos del último listado, sin pedir uno nuevo
+     */
+    public List<Map<String, Object>> getCachedTopProcesses(int limit) {
+        return processSnapshots.getCachedTopProcesses(limit);
     }
 
+    /**
+     * Datos básicos del inventario junto con el estado actual
+     */
     public Map<String, Object> getSystemInfo() {
-        Map<String, Object> info = new HashMap<>();
+        HostInventory inventory = inventoryService.getInventory();
+        Map<String, Object> info = getSystemStatus();
 
-        info.put("osName", os.getFamily());
-        info.put("osVersion", os.getVersionInfo().toString());
-        info.put("manufacturer", os.getManufacturer());
-        info.put("uptime", os.getSystemUptime() / 3600); // horas
-        info.put("processCount", os.getProcessCount());
-        info.put("threadCount", os.getThreadCount());
+        info.put("osName", inventory.getOsName());
+        info.put("osVersion", inventory.getOsVersion());
+        info.put("manufacturer", inventory.getManufacturer());
 
         return info;
     }
+
+    /**
+     * getSystemInfo() cacheado con su versión (para ETag / 304)
+     */
+    public VersionedCache.Entry<Map<String, Object>> getCachedSystemInfo() {
+        return systemInfoCache.get();
+    }
+
+    /**
+     * Solo lo que cambia con el tiempo; lo estático se pide una vez a /api/monitor/inventory
+     */
+    public Map<String, Object> getSystemStatus() {
+        Map<String, Object> status = new HashMap<>();
+
+        status.put("uptime", os.getSystemUptime() / 3600); // horas
+        status.put("processCount", os.getProcessCount());
+        status.put("threadCount", os.getThreadCount());
+        // El cliente vuelve a pedir el inventario si cambia la versión
+        status.put("inventoryVersion", inventoryService.getInventory().getVersion());
+
+        return status;
+    }
 }
\ No newline at end of file
@@ -7,10 +7,38 @@ import java.sql.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class TicketService {
 
+    // Versión de los datos de tickets: aumenta con cada modificación (ETag de /api/tickets/list)
+    private final AtomicLong version = new AtomicLong(1);
+    private volatile long lastModified = System.currentTimeMillis();
+    // La versión vuelve a 1 al reiniciar: el ETag lleva además un identificador de arranque
+    private final String epoch = VersionedCache.newEpoch();
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public String getETag() {
+        return epoch + "-" + version.get();
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Marcar los tickets como modificados. Lo llaman las operaciones de este
+     * servicio y quien cambie las tablas por otra vía (consola SQL, restauración).
+     */
+    public void markChanged() {
+        lastModified = System.currentTimeMillis();
+        version.incrementAndGet();
+    }
+
     /**
      * Genera un número de ticket único
      */
@@ -67,6 +95,7 @@ public class TicketService {
                     logTicketHistory(ticketId, userEmail, userName, "CREATED", null, "ABIERTO",
                             "Ticket creado");
 
+                    markChanged();
                     result.put("success", true);
                     result.put("ticketId", ticketId);
                     result.put("ticketNumber", ticketNumber);
@@ -212,6 +241,7 @@ public class TicketService {
                         oldAssigned, technicianEmail,
                         "Ticket asignado a " + technicianName);
 
+                markChanged();
                 result.put("success", true);
                 result.put("message", "Ticket asignado correctamente");
             } else {
@@ -260,6 +290,7 @@ public class TicketService {
                         oldStatus, newStatus,
                         "Estado cambiado de " + oldStatus + " a " + newStatus);
 
+                markChanged();
                 result.put("success", true);
                 result.put("message", "Estado actualizado correctamente");
             } else {
@@ -300,6 +331,7 @@ public class TicketService {
                         oldPriority, newPriority,
                         "Prioridad cambiada de " + oldPriority + " a " + newPriority);
 
+                markChanged();
                 result.put("success", true);
                 result.put("message", "Prioridad actualizada correctamente");
             } else {
@@ -346,6 +378,7 @@ public class TicketService {
                 logTicketHistory(ticketId, userEmail, userName, "COMMENT_ADDED",
                         null, null, "Comentario agregado" + (isInternal ? " (interno)" : ""));
 
+                markChanged();
                 result.put("success", true);
                 result.put("commentId", commentId);
                 result.put("message", "Comentario agregado correctamente");
@@ -0,0 +1,98 @@
+package com.antovdv.centro_computo.service;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Valor cacheado durante ttlMs con un número de versión creciente. Al
+ * caducar se vuelve a cargar (una sola carga aunque haya varias peticiones
+ * a la vez) y la versión solo aumenta si el contenido cambió. El ETag es
+ * la versión precedida de un identificador de la instancia: la versión
+ * vuelve a 1 al reiniciar y, sin él, el ETag que guardó el navegador en la
+ * ejecución anterior podría coincidir y dar un 304 con datos viejos.
+ */
+public class VersionedCache<T> {
+
+    /**
+     * Valor con su versión y el instante (epoch ms) en que cambió por última vez
+     */
+    public static final class Entry<T> {
+        private final T value;
+        private final long version;
+        private final long lastModified;
+        private final String eTag;
+
+        Entry(T value, long version, long lastModified, String epoch) {
+            this.value = value;
+            this.version = version;
+            this.lastModified = lastModified;
+            this.eTag = epoch + "-" + version;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+    }
+
+    private final Supplier<T> loader;
+    private final long ttlMs;
+    private final String epoch = newEpoch();
+
+    private volatile Entry<T> entry;
+    private volatile long loadedAt;
+    private long version;
+
+    public VersionedCache(Supplier<T> loader, long ttlMs) {
+        this.loader = loader;
+        this.ttlMs = ttlMs;
+    }
+
+    public Entry<T> get() {
+        Entry<T> current = entry;
+        if (current != null && System.currentTimeMillis() - loadedAt < ttlMs) {
+            return current;
+        }
+        synchronized (this) {
+            current = entry;
+            long now = System.currentTimeMillis();
+            if (current != null && now - loadedAt < ttlMs) {
+                return current;
+            }
+            T value = loader.get();
+            if (current == null || !Objects.equals(current.value, value)) {
+                current = new Entry<>(value, ++version, now, epoch);
+                entry = current;
+            }
+            loadedAt = now;
+            return current;
+        }
+    }
+
+    /**
+     * Identificador aleatorio de arranque para anteponer a contadores de
+     * versión que empiezan de nuevo en cada ejecución
+     */
+    public static String newEpoch() {
+        return Long.toHexString(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Fuerza la recarga en el siguiente get()
+     */
+    public void invalidate() {
+        loadedAt = 0;
+    }
+}
@@ -178,4 +178,19 @@ CREATE TABLE IF NOT EXISTS ticket_history (
 
     FOREIGN KEY (ticket_id) REFERENCES tickets(id) ON DELETE CASCADE,
     INDEX idx_ticket_history (ticket_id)
-);
\ No newline at end of file
+);
+
+-- Historial de alertas del monitor (escritas por lotes desde AlertStore)
+CREATE TABLE IF NOT EXISTS alerts (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    rule_id VARCHAR(50) NOT NULL,
+    alert_type VARCHAR(50) NOT NULL,
+    severity VARCHAR(20) NOT NULL,
+    status ENUM('FIRING', 'RESOLVED') NOT NULL,
+    message VARCHAR(500),
+    value DOUBLE,
+    threshold DOUBLE,
+    created_at TIMESTAMP(3) NOT NULL,
+    INDEX idx_created (created_at),
+    INDEX idx_rule (rule_id, created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -1,10 +1,42 @@
 // Dashboard - Sistema de Monitoreo en Tiempo Real
 
 // Configuración
-const UPDATE_INTERVAL = 3000; // 3 segundos
+const UPDATE_INTERVAL = 3000; // 3 segundos (solo si no hay stream SSE)
+const STREAM_URL = '/api/monitor/stream';
 const NETWORKS_PER_PAGE = 6; // Interfaces de red por página
 let currentNetworkPage = 1;
 let allNetworkInterfaces = [];
+let eventSource = null;
+let pollingTimer = null;
+
+// Inventario estático del host: se pide una vez y solo se vuelve a pedir si cambia su versión
+let inventory = null;
+let inventoryRequest = null;
+let lastSystemInfo = null;
+
+function loadInventory() {
+    if (inventoryRequest) return inventoryRequest;
+    inventoryRequest = fetch('/api/monitor/inventory')
+        .then(response => {
+            if (!response.ok) {
+                throw new Error('Error al cargar el inventario');
+            }
+            return response.json();
+        })
+        .then(data => {
+            inventory = data;
+            if (lastSystemInfo) updateSystemInfo(lastSystemInfo);
+        })
+        .catch(error => console.error('Error al cargar inventario:', error))
+        .finally(() => { inventoryRequest = null; });
+    return inventoryRequest;
+}
+
+// Dato estático de un disco o interfaz por nombre
+function inventoryDevice(kind, name) {
+    if (!inventory || !inventory[kind]) return null;
+    return inventory[kind].find(device => device.name === name) || null;
+}
 
 // Actualizar dashboard completo
 function updateDashboard() {
@@ -15,18 +47,58 @@ function updateDashboard() {
             }
             return response.json();
         })
-        .then(data => {
-            updateMetrics(data.metrics);
-            updateSystemInfo(data.systemInfo);
-            updateProcesses(data.topProcesses);
-            updateAlerts(data.alerts);
-        })
+        .then(renderDashboard)
         .catch(error => {
             console.error('Error al actualizar dashboard:', error);
             showError('No se pudo conectar con el servidor');
         });
 }
 
+// Pintar los datos recibidos (por polling o por el stream)
+function renderDashboard(data) {
+    updateMetrics(data.metrics);
+    updateSystemInfo(data.systemInfo);
+    updateProcesses(data.topProcesses);
+    updateAlerts(data.alerts);
+}
+
+// Suscribirse al stream SSE; si no está disponible se vuelve al polling
+function startStream() {
+    if (!window.EventSource) {
+        startPolling();
+        return;
+    }
+
+    eventSource = new EventSource(STREAM_URL);
+
+    eventSource.addEventListener('dashboard', event => {
+        stopPolling();
+        renderDashboard(JSON.parse(event.data));
+    });
+
+    eventSource.onerror = () => {
+        // CONNECTING: el navegador reintenta solo. CLOSED: el servidor rechazó el stream
+        if (eventSource.readyState === EventSource.CLOSED) {
+            console.warn('Stream SSE no disponible, usando polling');
+            eventSource = null;
+            startPolling();
+        }
+    };
+}
+
+function startPolling() {
+    if (pollingTimer) return;
+    updateDashboard();
+    pollingTimer = setInterval(updateDashboard, UPDATE_INTERVAL);
+}
+
+function stopPolling() {
+    if (pollingTimer) {
+        clearInterval(pollingTimer);
+        pollingTimer = null;
+    }
+}
+
 // Actualizar métricas principales
 function updateMetrics(metrics) {
     if (!metrics) return;
@@ -37,6 +109,7 @@ function updateMetrics(metrics) {
     if (cpuValue && cpuDetail) {
         cpuValue.textContent = metrics.cpuUsage.toFixed(1) + '%';
         cpuDetail.textContent = `${metrics.cpuCores} núcleos`;
+        if (inventory) cpuDetail.title = inventory.cpuModel || '';
 
         // Cambiar color según uso
         cpuValue.style.color = metrics.cpuUsage > 80 ? '#e74c3c' :
@@ -60,9 +133,24 @@ function updateMetrics(metrics) {
     const diskValue = document.getElementById('diskValue');
     const diskDetail = document.getElementById('diskDetail');
     if (diskValue && diskDetail && metrics.disks && metrics.disks.length > 0) {
-        const totalSize = metrics.disks.reduce((sum, disk) => sum + disk.size, 0);
+        const totalSize = metrics.disks.reduce((sum, disk) => {
+            const info = inventoryDevice('disks', disk.name);
+            return sum + (info ? info.sizeGb : 0);
+        }, 0);
+        const readRate = metrics.disks.reduce((sum, disk) => sum + (disk.readBytesPerSec || 0), 0);
+        const writeRate = metrics.disks.reduce((sum, disk) => sum + (disk.writeBytesPerSec || 0), 0);
         diskValue.textContent = totalSize.toFixed(0) + ' GB';
-        diskDetail.textContent = `${metrics.disks.length} disco(s)`;
+        diskDetail.textContent =
+            `${metrics.disks.length} disco(s) · L ${formatRate(readRate)} / E ${formatRate(writeRate)}`;
+
+        // Montaje más lleno (el que vigila la alerta de disco)
+        if (metrics.fileSystems && metrics.fileSystems.length > 0) {
+            const fullest = metrics.fileSystems.reduce((a, b) => b.usagePercent > a.usagePercent ? b : a);
+            diskDetail.title = metrics.fileSystems
+                .map(fs => `${fs.mount}: ${fs.usagePercent.toFixed(1)}% (inodos ${fs.inodeUsagePercent.toFixed(1)}%)`)
+                .join('\n');
+            diskDetail.textContent += ` · ${fullest.mount} ${fullest.usagePercent.toFixed(0)}%`;
+        }
     }
 
     // Red (actualizar sección)
@@ -74,10 +162,18 @@ function updateMetrics(metrics) {
 // Actualizar información del sistema
 function updateSystemInfo(info) {
     if (!info) return;
+    lastSystemInfo = info;
+
+    // Sin inventario (falló la petición) o cambió en el servidor: volver a pedirlo en este refresco
+    if (!inventory || (info.inventoryVersion && info.inventoryVersion !== inventory.version)) {
+        loadInventory();
+    }
 
     const container = document.getElementById('systemInfo');
     if (!container) return;
 
+    const host = inventory || {};
+
     const uptimeHours = info.uptime || 0;
     const uptimeDays = Math.floor(uptimeHours / 24);
     const remainingHours = uptimeHours % 24;
@@ -88,11 +184,11 @@ function updateSystemInfo(info) {
     container.innerHTML = `
         <div class="info-item">
             <div class="info-label">Sistema Operativo</div>
-            <div>${escapeHtml(info.osName || 'N/A')}</div>
+            <div>${escapeHtml(host.osName || 'N/A')}</div>
         </div>
         <div class="info-item">
             <div class="info-label">Versión</div>
-            <div>${escapeHtml(info.osVersion || 'N/A')}</div>
+            <div>${escapeHtml(host.osVersion || 'N/A')}</div>
         </div>
         <div class="info-item">
             <div class="info-label">Tiempo Activo</div>
@@ -108,7 +204,7 @@ function updateSystemInfo(info) {
         </div>
         <div class="info-item">
             <div class="info-label">Fabricante</div>
-            <div>${escapeHtml(info.manufacturer || 'N/A')}</div>
+            <div>${escapeHtml(host.manufacturer || 'N/A')}</div>
         </div>
     `;
 }
@@ -148,7 +244,7 @@ function killProcessFromDashboard(pid, name) {
         return;
     }
 
-    fetch(`/api/processes/${pid}?user=admin`, {
+    fetch(`/api/processes/${pid}`, {
         method: 'DELETE'
     })
     .then(response => response.json())
@@ -158,7 +254,7 @@ function killProcessFromDashboard(pid, name) {
             // Actualizar dashboard inmediatamente
             updateDashboard();
         } else {
-            alert(`✗ Error: ${data.message}`);
+            alert(`✗ Error: ${data.message || data.error}`);
         }
     })
     .catch(error => {
@@ -198,7 +294,8 @@ function updateNetworkInfo(interfaces) {
 
     // Renderizar interfaces de la página actual
     container.innerHTML = currentInterfaces.map(net => {
-        const displayName = escapeHtml(net.displayName || net.name);
+        const info = inventoryDevice('networkInterfaces', net.name);
+        const displayName = escapeHtml((info && info.displayName) || net.name);
         const shortName = displayName.length > 50 ? displayName.substring(0, 47) + '...' : displayName;
 
         return `
@@ -208,6 +305,7 @@ function updateNetworkInfo(interfaces) {
                 <div><strong>IP:</strong> ${escapeHtml(net.ipv4 || 'N/A')}</div>
                 <div><strong>Recibido:</strong> ${net.bytesReceived} MB</div>
                 <div><strong>Enviado:</strong> ${net.bytesSent} MB</div>
+                <div><strong>Tráfico:</strong> ↓ ${formatRate(net.rxBytesPerSec)} / ↑ ${formatRate(net.txBytesPerSec)}</div>
                 <div><strong>Velocidad:</strong> ${net.speed} Mbps</div>
             </div>
         </div>
@@ -287,6 +385,13 @@ function truncateText(text, maxLength) {
     return text.substring(0, maxLength) + '...';
 }
 
+function formatRate(bytesPerSec) {
+    const value = bytesPerSec || 0;
+    if (value >= 1024 * 1024) return (value / (1024 * 1024)).toFixed(1) + ' MB/s';
+    if (value >= 1024) return (value / 1024).toFixed(1) + ' KB/s';
+    return value.toFixed(0) + ' B/s';
+}
+
 function formatNumber(num) {
     return new Intl.NumberFormat('es-ES').format(num);
 }
@@ -294,16 +399,17 @@ function formatNumber(num) {
 // Inicialización
 document.addEventListener('DOMContentLoaded', function() {
     console.log('Dashboard inicializado');
+    loadInventory();
     updateDashboard();
-    setInterval(updateDashboard, UPDATE_INTERVAL);
+    startStream();
 });
 
 // Hacer la función global para el onclick
 window.changeNetworkPage = changeNetworkPage;
 
-// Recargar al recuperar visibilidad de la pestaña
+// Recargar al recuperar visibilidad de la pestaña (con stream activo llegan solos)
 document.addEventListener('visibilitychange', function() {
-    if (!document.hidden) {
+    if (!document.hidden && !eventSource) {
         updateDashboard();
     }
 });
\ No newline at end of file
@@ -2,8 +2,10 @@
 
 let currentProcessPid = null;
 let searchTimeout = null;
+let currentJobId = null;
+let jobStream = null;
 
-// Ejecutar comando
+// Ejecutar comando (trabajo asíncrono: la salida llega por SSE)
 function executeCommand() {
     const commandInput = document.getElementById('commandInput');
     const command = commandInput.value.trim();
@@ -16,8 +18,9 @@ function executeCommand() {
     const outputDiv = document.getElementById('commandOutput');
     const outputContent = document.getElementById('outputContent');
 
+    closeJobStream();
     outputDiv.style.display = 'block';
-    outputContent.textContent = 'Ejecutando comando...\n';
+    outputContent.textContent = 'Encolando comando...\n';
 
     fetch('/api/processes/execute', {
         method: 'POST',
@@ -28,45 +31,119 @@ function executeCommand() {
             command: command
         })
     })
-    .then(response => {
+    .then(response => response.json().then(data => {
         if (!response.ok) {
-            throw new Error(`HTTP error! status: ${response.status}`);
+            throw new Error(data.error || `HTTP error! status: ${response.status}`);
         }
-        return response.json();
-    })
+        return data;
+    }))
     .then(data => {
-        console.log('Respuesta recibida:', data);
+        currentJobId = data.jobId;
+        outputContent.textContent = `Comando: ${data.command}\nTrabajo: ${data.jobId} (prioridad ${data.priority})\n\n--- Salida ---\n`;
+        document.getElementById('cancelJobBtn').style.display = 'inline-block';
+        followJob(data.jobId, data.streamUrl);
+    })
+    .catch(error => {
+        console.error('Error:', error);
+        outputContent.textContent = `Error al ejecutar comando:\n${error.message}\n\nVerifica que:\n1. El servidor está corriendo\n2. La URL es correcta\n3. El comando existe`;
+    });
+}
 
-        let output = `Comando: ${data.command}\n`;
-        output += `Fecha: ${data.timestamp}\n`;
-        output += `Estado: ${data.success ? '✓ Éxito' : '✗ Error'}\n`;
-        output += `Código de salida: ${data.exitCode !== undefined ? data.exitCode : 'N/A'}\n`;
+// Sigue la salida del trabajo y muestra el resultado al terminar
+function followJob(jobId, streamUrl) {
+    const outputContent = document.getElementById('outputContent');
 
-        if (data.duration) {
-            output += `Duración: ${data.duration}\n`;
+    jobStream = new EventSource(streamUrl);
+    jobStream.addEventListener('output', event => {
+        const data = JSON.parse(event.data);
+        if (data.skipped > 0) {
+            outputContent.textContent += `\n... ${data.skipped} líneas omitidas (descargue el log completo) ...\n\n`;
         }
+        outputContent.textContent += data.lines.join('\n') + '\n';
+        outputContent.scrollTop = outputContent.scrollHeight;
+    });
+    jobStream.addEventListener('status', () => {
+        closeJobStream();
+        showJobResult(jobId);
+    });
+    jobStream.onerror = () => {
+        // Si se corta el stream se consulta el resultado directamente
+        closeJobStream();
+        showJobResult(jobId);
+    };
+}
 
-        output += `\n--- Salida ---\n`;
-        output += data.output || 'Sin salida';
+function showJobResult(jobId) {
+    const outputContent = document.getElementById('outputContent');
 
-        if (data.error && data.error.trim() !== '') {
-            output += `\n\n--- Errores ---\n`;
-            output += data.error;
-        }
+    fetch(`/api/processes/jobs/${jobId}/result`)
+        .then(response => response.json())
+        .then(data => {
+            if (!data.finished) {
+                setTimeout(() => showJobResult(jobId), 1000);
+                return;
+            }
+            if (currentJobId === jobId) {
+                currentJobId = null;
+                document.getElementById('cancelJobBtn').style.display = 'none';
+            }
 
-        outputContent.textContent = output;
+            let summary = `\n--- Fin ---\n`;
+            summary += `Fecha: ${data.timestamp}\n`;
+            summary += `Estado: ${data.success ? '✓ Éxito' : '✗ ' + data.status}\n`;
+            summary += `Código de salida: ${data.exitCode !== null && data.exitCode !== undefined ? data.exitCode : 'N/A'}\n`;
+            summary += `Duración: ${data.duration}\n`;
+            if (data.error && data.error.trim() !== '') {
+                summary += `\n--- Errores ---\n${data.error}\n`;
+            }
+            outputContent.textContent += summary;
+
+            if (data.omittedLines > 0) {
+                const link = document.createElement('a');
+                link.href = `/api/processes/jobs/${jobId}/output`;
+                link.textContent = `Descargar log completo (${data.lines} líneas, ${formatBytes(data.downloadBytes)})`;
+                outputContent.appendChild(document.createElement('br'));
+                outputContent.appendChild(link);
+            }
 
-        // Recargar log
-        loadCommandLog();
-    })
-    .catch(error => {
-        console.error('Error:', error);
-        outputContent.textContent = `Error al ejecutar comando:\n${error.message}\n\nVerifica que:\n1. El servidor está corriendo\n2. La URL es correcta\n3. El comando existe`;
-    });
+            // Recargar log
+            loadCommandLog();
+        })
+        .catch(error => {
+            outputContent.textContent += `\nError obteniendo el resultado: ${error.message}\n`;
+        });
+}
+
+// Cancelar el comando en curso
+function cancelJob() {
+    if (!currentJobId) {
+        return;
+    }
+    fetch(`/api/processes/jobs/${currentJobId}/cancel`, { method: 'POST' })
+        .then(response => response.json())
+        .then(data => {
+            document.getElementById('outputContent').textContent += `\n[${data.message}]\n`;
+        })
+        .catch(error => console.error('Error:', error));
+}
+
+function formatBytes(bytes) {
+    if (bytes >= 1024 * 1024) {
+        return (bytes / (1024 * 1024)).toFixed(1) + ' MB';
+    }
+    return (bytes / 1024).toFixed(1) + ' KB';
+}
+
+function closeJobStream() {
+    if (jobStream) {
+        jobStream.close();
+        jobStream = null;
+    }
 }
 
 // Limpiar salida
 function clearOutput() {
+    closeJobStream();
     const outputDiv = document.getElementById('commandOutput');
     outputDiv.style.display = 'none';
 }
@@ -82,7 +159,7 @@ function searchProcesses() {
         return;
     }
 
-    // Debounce
+    // Debounce (la búsqueda usa el índice del servidor, así que puede ser corto)
     clearTimeout(searchTimeout);
     searchTimeout = setTimeout(() => {
         resultsDiv.innerHTML = '<p class="loading">Buscando...</p>';
@@ -102,8 +179,11 @@ function searchProcesses() {
                             <div class="process-details">
                                 CPU: ${proc.cpuUsage.toFixed(1)}% |
                                 Memoria: ${proc.memoryUsage.toFixed(0)} MB |
-                                Estado: ${proc.status}
+                                Estado: ${proc.status} |
+                                Usuario: ${escapeHtml(proc.user || '')}
                             </div>
+                            ${proc.matchedOn === 'commandLine' ? `
+                            <div class="process-details">${escapeHtml(proc.commandLine.substring(0, 120))}</div>` : ''}
                         </div>
                         <div class="process-actions">
                             <button class="btn-details" onclick="showProcessDetails(${proc.pid})">
@@ -119,7 +199,7 @@ function searchProcesses() {
             .catch(error => {
                 resultsDiv.innerHTML = `<p class="info-text">Error: ${error.message}</p>`;
             });
-    }, 500);
+    }, 150);
 }
 
 // Mostrar detalles del proceso
@@ -220,7 +300,7 @@ function killProcess(pid) {
     })
     .then(response => response.json())
     .then(data => {
-        alert(data.message);
+        alert(data.message || data.error);
 
         if (data.success) {
             closeModal();
@@ -243,7 +323,16 @@ function loadCommandLog() {
     const tbody = document.getElementById('logTableBody');
     tbody.innerHTML = '<tr><td colspan="5" class="loading">Cargando log...</td></tr>';
 
-    fetch('/api/processes/logs?limit=50')
+    // Filtros opcionales: usuario y rango de fechas (el log completo se conserva en disco)
+    const params = new URLSearchParams({ limit: 50 });
+    const user = document.getElementById('logUser').value.trim();
+    const from = document.getElementById('logFrom').value;
+    const to = document.getElementById('logTo').value;
+    if (user) params.append('user', user);
+    if (from) params.append('from', from);
+    if (to) params.append('to', to);
+
+    fetch(`/api/processes/logs?${params}`)
         .then(response => response.json())
         .then(data => {
             if (data.length === 0) {
@@ -270,25 +359,6 @@ function loadCommandLog() {
         });
 }
 
-// Limpiar log
-function clearCommandLog() {
-    if (!confirm('¿Está seguro de limpiar todo el log de comandos?')) {
-        return;
-    }
-
-    fetch('/api/processes/logs', {
-        method: 'DELETE'
-    })
-    .then(response => response.json())
-    .then(data => {
-        alert(data.message);
-        loadCommandLog();
-    })
-    .catch(error => {
-        alert(`Error: ${error.message}`);
-    });
-}
-
 // Utilidades
 function escapeHtml(text) {
     const map = {
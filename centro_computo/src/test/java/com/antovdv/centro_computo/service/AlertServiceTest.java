@@ -0,0 +1,104 @@
+package com.antovdv.centro_computo.service;
+
+import com.antovdv.centro_computo.dto.SystemMetricsDTO;
+import com.antovdv.centro_computo.model.AlertRule;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertServiceTest {
+
+    // Sin BD ni correo: CPU a 80 %, histéresis de 5, 10 s seguidos y 300 s de enfriamiento
+    private final AlertService alerts = new AlertService(new AlertStore(false, 10, 10),
+            new NotificationService(Optional.empty(), false, "", "", 10, 60, 900, 0, 0),
+            100, 80.0, 85.0, 90.0, 5.0, 10, 300);
+
+    // Después de crear el servicio: el historial en memoria cubre desde su arranque
+    private final long start = System.currentTimeMillis();
+
+    private void sample(long second, double cpu) {
+        SystemMetricsDTO metrics = new SystemMetricsDTO();
+        metrics.setTimestamp(start + second * 1000);
+        metrics.setCpuUsage(cpu);
+        alerts.onSample(metrics);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> history() {
+        Map<String, Object> result = alerts.getAlertHistory(start, start + 3600_000L, 0, 100);
+        return ((List<Map<String, Object>>) result.get("alerts")).stream()
+                .map(alert -> (String) alert.get("status"))
+                .toList();
+    }
+
+    @Test
+    void firesAfterForSecondsAndResolvesBelowTheClearLevel() {
+        sample(0, 90);
+        sample(5, 70);
+        // Bajar del umbral reinicia la cuenta de forSeconds
+        sample(6, 90);
+        sample(12, 90);
+        assertTrue(alerts.getActiveAlerts().isEmpty());
+        sample(16, 90);
+        assertEquals(1, alerts.getActiveAlerts().size());
+
+        // Entre clearLevel (75) y fireLevel (80) sigue disparada
+        sample(17, 78);
+        assertEquals(1, alerts.getActiveAlerts().size());
+        sample(18, 74);
+        assertTrue(alerts.getActiveAlerts().isEmpty());
+        assertEquals(List.of("RESOLVED", "FIRING"), history());
+    }
+
+    @Test
+    void cooldownPreventsFiringAgainUntilItExpires() {
+        alerts.updateRule("cpu", Map.of("forSeconds", 0));
+        sample(0, 90);
+        sample(1, 70);
+        sample(2, 90);
+        assertTrue(alerts.getActiveAlerts().isEmpty(), "en enfriamiento");
+        sample(299, 90);
+        assertTrue(alerts.getActiveAlerts().isEmpty());
+        sample(300, 90);
+        assertEquals(1, alerts.getActiveAlerts().size());
+        assertEquals(List.of("FIRING", "RESOLVED", "FIRING"), history());
+    }
+
+    @Test
+    void invalidUpdatesAreRejectedAndLeaveTheRuleUnchanged() {
+        assertThrows(IllegalArgumentException.class, () -> alerts.updateRule("cpu", Map.of("forSeconds", -1)));
+        assertThrows(IllegalArgumentException.class, () -> alerts.updateRule("cpu", Map.of("cooldownSeconds", -5)));
+        assertThrows(IllegalArgumentException.class,
+                () -> alerts.updateRule("cpu", Map.of("fireLevel", 70, "clearLevel", 75)));
+        assertThrows(IllegalArgumentException.class, () -> alerts.updateRule("cpu", Map.of("clearLevel", 81)));
+        assertThrows(IllegalArgumentException.class, () -> alerts.updateRule("cpu", Map.of("fireLevel", Double.NaN)));
+        assertNull(alerts.updateRule("gpu", Map.of("fireLevel", 50)));
+
+        AlertRule rule = alerts.getRules().get(0);
+        assertEquals(80.0, rule.getFireLevel());
+        assertEquals(75.0, rule.getClearLevel());
+        assertEquals(10, rule.getForSeconds());
+        assertEquals(300, rule.getCooldownSeconds());
+
+        // Sin clearLevel se mueve con fireLevel manteniendo la histéresis
+        AlertRule updated = alerts.updateRule("cpu", Map.of("fireLevel", 60));
+        assertEquals(55.0, updated.getClearLevel());
+    }
+
+    @Test
+    void anomalyRuleIdsFitTheRuleIdColumn() {
+        assertEquals("anomaly:cpu", AlertService.anomalyRuleId("cpu"));
+
+        String longSeries = "fs./var/lib/docker/overlay2/0123456789abcdef.used";
+        String other = "fs./var/lib/docker/overlay2/0123456789abcdef.free";
+        String id = AlertService.anomalyRuleId(longSeries);
+        assertEquals(AlertService.MAX_RULE_ID_LENGTH, id.length());
+        assertTrue(id.startsWith("anomaly:fs./var/lib/docker"));
+        assertNotEquals(id, AlertService.anomalyRuleId(other));
+        assertEquals(id, AlertService.anomalyRuleId(longSeries));
+    }
+}
@@ -0,0 +1,70 @@
+package com.antovdv.centro_computo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnomalyDetectorServiceTest {
+
+    private final AlertService alerts = new AlertService(new AlertStore(false, 10, 10),
+            new NotificationService(Optional.empty(), false, "", "", 10, 60, 900, 0, 0),
+            100, 80.0, 85.0, 90.0, 5.0, 10, 300);
+
+    // alpha 0.1, z 4, 10 muestras de calentamiento y desviación mínima de 1 punto
+    private final AnomalyDetectorService detector = new AnomalyDetectorService(alerts, 0.1, 4.0, 10, 1.0, 128, "cpu,fs.*");
+
+    private long time = System.currentTimeMillis();
+
+    private void observe(String series, double value) {
+        time += 1000;
+        detector.observe(series, value, time);
+    }
+
+    private Map<String, Object> state(String series) {
+        return detector.getSeriesStates(false).stream()
+                .filter(s -> series.equals(s.get("series")))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void noAnomaliesDuringWarmUpAndOnlyForWatchedSeries() {
+        for (int i = 0; i < 5; i++) {
+            observe("cpu", 50);
+        }
+        observe("cpu", 100);
+        observe("memory", 1000);
+        assertTrue(alerts.getActiveAlerts().isEmpty());
+        assertEquals(false, state("cpu").get("warmedUp"));
+        assertEquals(1, detector.getSeriesStates(false).size(), "memory no está en la lista");
+    }
+
+    @Test
+    void minStdDevFloorsAFlatBaselineAndAnomaliesFireAndResolve() {
+        for (int i = 0; i < 20; i++) {
+            observe("fs./data.used", 50);
+        }
+        assertEquals(true, state("fs./data.used").get("warmedUp"));
+
+        // Con varianza 0 cualquier cambio daría z infinito: el suelo de 1 lo deja en z=3
+        observe("fs./data.used", 53);
+        assertTrue(alerts.getActiveAlerts().isEmpty());
+        assertEquals(3.0, state("fs./data.used").get("zScore"));
+
+        observe("fs./data.used", 55);
+        List<Map<String, Object>> active = alerts.getActiveAlerts();
+        assertEquals(1, active.size());
+        assertEquals("ANOMALY", active.get(0).get("type"));
+        assertEquals(AlertService.anomalyRuleId("fs./data.used"), active.get(0).get("rule"));
+        assertEquals(1, detector.getSeriesStates(true).size());
+
+        // De vuelta cerca de la media: |z| baja de la mitad del umbral
+        observe("fs./data.used", 51);
+        assertTrue(alerts.getActiveAlerts().isEmpty());
+        assertTrue(detector.getSeriesStates(true).isEmpty());
+    }
+}
@@ -0,0 +1,99 @@
+package com.antovdv.centro_computo.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandAuditLogTest {
+
+    @TempDir
+    Path dir;
+
+    private CommandAuditLog newLog() {
+        // Segmentos de 1 MB e índice cada 512 bytes para forzar varias rotaciones y bloques
+        return new CommandAuditLog(true, dir.toString(), 1, 512, 365, 100, 100_000, false);
+    }
+
+    private static void fill(CommandAuditLog log, int count) {
+        for (int i = 0; i < count; i++) {
+            log.append(i % 10 == 0 ? "kill" : "command", "user" + (i % 3), "cmd " + i + " " + "x".repeat(60),
+                    i % 2 == 0, "salida " + i);
+        }
+    }
+
+    @Test
+    void queriesNewestFirstByUserTypeAndTimeAndSurviveRestart() throws Exception {
+        CommandAuditLog log = newLog();
+        fill(log, 20_000);
+        log.shutdown();
+        try (Stream<Path> files = Files.list(dir)) {
+            assertTrue(files.count() >= 2);
+        }
+
+        CommandAuditLog reopened = newLog();
+        List<Map<String, Object>> latest = reopened.query(null, null, null, null, 3);
+        assertEquals(3, latest.size());
+        assertTrue(latest.get(0).get("command").toString().startsWith("cmd 19999 "));
+        assertTrue(latest.get(2).get("command").toString().startsWith("cmd 19997 "));
+
+        List<Map<String, Object>> kills = reopened.query(null, null, "user1", "kill", 2);
+        assertTrue(kills.get(0).get("command").toString().startsWith("cmd 19990 "));
+        assertTrue(kills.get(1).get("command").toString().startsWith("cmd 19960 "));
+
+        List<Map<String, Object>> all = reopened.query(null, null, null, null, 100_000);
+        assertEquals(20_000, all.size());
+        long newest = (Long) all.get(0).get("epochMs");
+        long oldest = (Long) all.get(all.size() - 1).get("epochMs");
+        assertTrue(reopened.query(newest + 1, null, null, null, 10).isEmpty());
+        assertEquals(20_000, reopened.query(oldest, newest, null, null, 100_000).size());
+        reopened.shutdown();
+    }
+
+    @Test
+    void discardsIncompleteRecordAtTheEnd() throws Exception {
+        CommandAuditLog log = newLog();
+        fill(log, 100);
+        log.shutdown();
+
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.sorted().reduce((a, b) -> b).orElseThrow();
+        }
+        Files.write(segment, new byte[]{0, 0, 0, 50, 1, 2}, StandardOpenOption.APPEND);
+
+        CommandAuditLog reopened = newLog();
+        assertEquals(100, reopened.query(null, null, null, null, 1000).size());
+        reopened.append("command", "admin", "después", true, "");
+        reopened.shutdown();
+
+        CommandAuditLog again = newLog();
+        assertEquals(101, again.query(null, null, null, null, 1000).size());
+        assertEquals("después", again.query(null, null, "admin", null, 1).get(0).get("command"));
+        again.shutdown();
+    }
+
+    @Test
+    void oversizedEntryIsSkippedWithoutLosingTheRestOfTheBatch() throws Exception {
+        CommandAuditLog log = new CommandAuditLog(true, dir.toString(), 16, 4096, 365, 2_000_000, 1000, false);
+        log.append("command", "a", "antes", true, "ok");
+        // Más de 64 KB (límite de writeUTF) cabe; más de 1 MB no cabe en un registro
+        log.append("command", "b", "grande", true, "ñ".repeat(100_000));
+        log.append("command", "c", "enorme", true, "x".repeat(1_500_000));
+        log.append("command", "d", "después", true, "ok");
+        log.shutdown();
+
+        CommandAuditLog reopened = newLog();
+        List<Map<String, Object>> all = reopened.query(null, null, null, null, 10);
+        assertEquals(List.of("después", "grande", "antes"), all.stream().map(r -> r.get("command")).toList());
+        assertEquals("ñ".repeat(100_000), all.get(1).get("output"));
+        reopened.shutdown();
+    }
+}
@@ -0,0 +1,57 @@
+package com.antovdv.centro_computo.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandOutputBufferTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void longLineWithoutNewlineKeepsOnlyMaxLineCharsInMemoryAndAllOfItOnDisk() throws Exception {
+        CommandOutputBuffer buffer = new CommandOutputBuffer(10, 10, 100, 64L * 1024 * 1024, dir);
+        char[] chunk = new char[8192];
+        Arrays.fill(chunk, 'x');
+        for (int i = 0; i < 1000; i++) {
+            buffer.append(chunk, 0, chunk.length);
+        }
+        buffer.append("fin".toCharArray(), 0, 3);
+        buffer.finish();
+
+        assertEquals(1, buffer.getTotalLines());
+        List<String> lines = buffer.read(0, 10).getLines();
+        assertEquals("x".repeat(100) + " [...]", lines.get(0));
+        assertTrue(buffer.isSpilled());
+        assertEquals(8192L * 1000 + 3, buffer.getDownloadSize());
+
+        ByteArrayOutputStream end = new ByteArrayOutputStream();
+        buffer.transferTo(buffer.getDownloadSize() - 5, 5, end);
+        assertEquals("xxfin", end.toString(StandardCharsets.UTF_8));
+        buffer.close();
+    }
+
+    @Test
+    void splitsLinesAcrossChunksAndKeepsSurrogatePairs() throws Exception {
+        CommandOutputBuffer buffer = new CommandOutputBuffer(10, 10, 100, 1024, dir);
+        char[] text = "uno\r\ndos 😀\ntres".toCharArray();
+        // Trozos de 3 caracteres: cortan el \r\n y el emoji por la mitad
+        for (int i = 0; i < text.length; i += 3) {
+            buffer.append(text, i, Math.min(3, text.length - i));
+        }
+        assertEquals(2, buffer.getTotalLines());
+        buffer.finish();
+
+        assertEquals(List.of("uno", "dos 😀", "tres"), buffer.read(0, 10).getLines());
+        assertFalse(buffer.isSpilled());
+        buffer.close();
+    }
+}
@@ -0,0 +1,81 @@
+package com.antovdv.centro_computo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandSchedulerTest {
+
+    // Los trabajos "arrancados" solo se apuntan; se terminan llamando a release()
+    private final List<CommandJob> launched = new ArrayList<>();
+
+    private CommandScheduler newScheduler(int maxRunning, int perUser, int queuedPerUser, int capacity) {
+        return new CommandScheduler(maxRunning, perUser, queuedPerUser, capacity, launched::add, null);
+    }
+
+    private static CommandJob job(String user, CommandScheduler.Priority priority) {
+        return new CommandJob(user + "-" + System.nanoTime(), "cmd", user, priority,
+                new CommandOutputBuffer(10, 10, 100, 0, Paths.get(".")));
+    }
+
+    @Test
+    void appliesGlobalAndPerUserLimitsAndLetsAdminsGoFirst() {
+        CommandScheduler scheduler = newScheduler(2, 1, 5, 50);
+        CommandJob a1 = job("a", CommandScheduler.Priority.LOW);
+        CommandJob a2 = job("a", CommandScheduler.Priority.LOW);
+        CommandJob a3 = job("a", CommandScheduler.Priority.LOW);
+        CommandJob b1 = job("b", CommandScheduler.Priority.LOW);
+        CommandJob c1 = job("c", CommandScheduler.Priority.LOW);
+        CommandJob admin = job("admin", CommandScheduler.Priority.HIGH);
+
+        scheduler.enqueue(a1);
+        scheduler.enqueue(a2);
+        scheduler.enqueue(a3);
+        assertEquals(List.of(a1), launched, "un solo comando por usuario");
+        scheduler.enqueue(b1);
+        scheduler.enqueue(c1);
+        scheduler.enqueue(admin);
+        assertEquals(List.of(a1, b1), launched, "máximo global de 2");
+
+        scheduler.release(a1);
+        assertEquals(admin, launched.get(2), "el administrador pasa delante");
+        scheduler.release(b1);
+        assertEquals(a2, launched.get(3));
+        scheduler.release(admin);
+        assertEquals(c1, launched.get(4), "a ya tiene un comando en marcha");
+        scheduler.release(a2);
+        assertEquals(a3, launched.get(5));
+
+        Map<String, Object> stats = scheduler.getStats();
+        assertEquals(2, stats.get("running"));
+        assertEquals(0, stats.get("queued"));
+    }
+
+    @Test
+    void rejectsWhenUserOrGlobalQueueIsFull() {
+        CommandScheduler scheduler = newScheduler(1, 1, 2, 3);
+        scheduler.enqueue(job("a", CommandScheduler.Priority.LOW));
+        scheduler.enqueue(job("a", CommandScheduler.Priority.LOW));
+        scheduler.enqueue(job("a", CommandScheduler.Priority.LOW));
+
+        CommandScheduler.QueueFullException perUser = assertThrows(CommandScheduler.QueueFullException.class,
+                () -> scheduler.enqueue(job("a", CommandScheduler.Priority.LOW)));
+        assertTrue(perUser.isPerUser());
+
+        scheduler.enqueue(job("b", CommandScheduler.Priority.LOW));
+        CommandScheduler.QueueFullException full = assertThrows(CommandScheduler.QueueFullException.class,
+                () -> scheduler.enqueue(job("c", CommandScheduler.Priority.HIGH)));
+        assertFalse(full.isPerUser());
+
+        CommandJob cancelled = job("b", CommandScheduler.Priority.LOW);
+        assertThrows(CommandScheduler.QueueFullException.class, () -> scheduler.enqueue(cancelled));
+        assertFalse(scheduler.remove(cancelled));
+        assertEquals(3, scheduler.getStats().get("queued"));
+        assertEquals(1, launched.size());
+    }
+}
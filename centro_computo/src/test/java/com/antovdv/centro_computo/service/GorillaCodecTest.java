@@ -0,0 +1,65 @@
+package com.antovdv.centro_computo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GorillaCodecTest {
+
+    @Test
+    void roundTripKeepsTimestampsAndValues() {
+        GorillaCodec.Encoder encoder = new GorillaCodec.Encoder(4096);
+        Random random = new Random(42);
+        List<long[]> expected = new ArrayList<>();
+
+        long timestamp = 1_700_000_000_000L;
+        double value = 35.5;
+        while (true) {
+            // Jitter de unos pocos ms y algún hueco grande, como en el muestreador real
+            timestamp += 1000 + random.nextInt(20) - 10 + (random.nextInt(100) == 0 ? 90_000 : 0);
+            value = random.nextInt(10) == 0 ? value : Math.round((value + random.nextGaussian()) * 100.0) / 100.0;
+            if (!encoder.append(timestamp, value)) {
+                break;
+            }
+            expected.add(new long[]{timestamp, Double.doubleToRawLongBits(value)});
+        }
+
+        List<long[]> decoded = new ArrayList<>();
+        GorillaCodec.decode(ByteBuffer.wrap(encoder.buffer()), 0, encoder.count(),
+                (ts, avg, min, max) -> decoded.add(new long[]{ts, Double.doubleToRawLongBits(avg)}));
+
+        assertEquals(expected.size(), decoded.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), decoded.get(i));
+        }
+        // Con datos de este tipo cada punto ocupa bastante menos que los 16 bytes en bruto
+        assertTrue(encoder.byteLength() < encoder.count() * 8);
+    }
+
+    @Test
+    void handlesSpecialValuesAndOutOfRangeDeltas() {
+        GorillaCodec.Encoder encoder = new GorillaCodec.Encoder(512);
+        long[] timestamps = {0L, 1L, 5_000_000_000L, 5_000_000_001L, Long.MAX_VALUE / 2};
+        double[] values = {0.0, -0.0, Double.NaN, Double.MAX_VALUE, -1e-300};
+        for (int i = 0; i < timestamps.length; i++) {
+            assertTrue(encoder.append(timestamps[i], values[i]));
+        }
+
+        List<Double> decodedValues = new ArrayList<>();
+        List<Long> decodedTimestamps = new ArrayList<>();
+        GorillaCodec.decode(ByteBuffer.wrap(encoder.buffer()), 0, encoder.count(), (ts, avg, min, max) -> {
+            decodedTimestamps.add(ts);
+            decodedValues.add(avg);
+        });
+
+        for (int i = 0; i < timestamps.length; i++) {
+            assertEquals(timestamps[i], decodedTimestamps.get(i));
+            assertEquals(Double.doubleToRawLongBits(values[i]), Double.doubleToRawLongBits(decodedValues.get(i)));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.antovdv.centro_computo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsHistoryServiceTest {
+
+    // Comienzo de una hora exacta
+    private static final long HOUR = 1_699_999_200_000L;
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> points(Map<String, Object> history) {
+        return (List<Map<String, Object>>) history.get("points");
+    }
+
+    @Test
+    void ringBufferOverwritesTheOldestPointsAndIteratesInOrder() {
+        MetricRingBuffer buffer = new MetricRingBuffer(3, false);
+        for (int i = 1; i <= 5; i++) {
+            buffer.add(i * 1000L, i);
+        }
+        assertEquals(3, buffer.size());
+        assertEquals(3000L, buffer.getOldestTimestamp());
+
+        List<Long> timestamps = new ArrayList<>();
+        buffer.forEach(0, Long.MAX_VALUE, (ts, avg, min, max) -> timestamps.add(ts));
+        assertEquals(List.of(3000L, 4000L, 5000L), timestamps);
+
+        timestamps.clear();
+        buffer.forEach(4000, 4000, (ts, avg, min, max) -> timestamps.add(ts));
+        assertEquals(List.of(4000L), timestamps);
+    }
+
+    @Test
+    void bucketerAggregatesAvgMinAndMaxPerStep() {
+        MetricBucketer bucketer = new MetricBucketer(1000);
+        bucketer.accept(0, 1, 1, 1);
+        bucketer.accept(500, 3, 3, 3);
+        bucketer.accept(1000, 10, 8, 12);
+        bucketer.flush();
+
+        List<Map<String, Object>> points = bucketer.getPoints();
+        assertEquals(2, points.size());
+        assertEquals(0L, points.get(0).get("timestamp"));
+        assertEquals(2.0, points.get(0).get("avg"));
+        assertEquals(1.0, points.get(0).get("min"));
+        assertEquals(3.0, points.get(0).get("max"));
+        assertEquals(1000L, points.get(1).get("timestamp"));
+        assertEquals(10.0, points.get(1).get("avg"));
+        assertEquals(8.0, points.get(1).get("min"));
+        assertEquals(12.0, points.get(1).get("max"));
+    }
+
+    @Test
+    void secondsRollUpIntoMinutesAndTheCurrentHour() {
+        // Solo 60 puntos de 1 s: lo anterior hay que sacarlo del tier de minutos
+        MetricsHistoryService history = new MetricsHistoryService(60, 1440, 720, 10);
+        for (int i = 0; i < 60; i++) {
+            history.record("cpu", HOUR + i * 1000L, i);
+        }
+        for (int i = 60; i <= 120; i++) {
+            history.record("cpu", HOUR + i * 1000L, 100);
+        }
+
+        Map<String, Object> minutes = history.getHistory("cpu", HOUR, HOUR + 119_999L, 1);
+        assertEquals("1m", minutes.get("tier"), "el tier de 1 s ya no llega al inicio");
+        List<Map<String, Object>> perMinute = points(minutes);
+        assertEquals(2, perMinute.size());
+        assertEquals(HOUR, perMinute.get(0).get("timestamp"));
+        assertEquals(29.5, perMinute.get(0).get("avg"));
+        assertEquals(0.0, perMinute.get(0).get("min"));
+        assertEquals(59.0, perMinute.get(0).get("max"));
+        assertEquals(100.0, perMinute.get(1).get("avg"));
+
+        // La hora en curso sale del acumulador pendiente, ponderada por muestras
+        Map<String, Object> hours = history.getHistory("cpu", HOUR, HOUR + 3_599_999L, 3600);
+        assertEquals("1h", hours.get("tier"));
+        List<Map<String, Object>> perHour = points(hours);
+        assertEquals(1, perHour.size());
+        assertEquals(64.75, perHour.get(0).get("avg"));
+        assertEquals(0.0, perHour.get(0).get("min"));
+        assertEquals(100.0, perHour.get(0).get("max"));
+
+        assertNull(history.getHistory("memory", HOUR, HOUR + 60_000L, 1));
+    }
+}
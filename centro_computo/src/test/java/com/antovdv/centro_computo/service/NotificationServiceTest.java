@@ -0,0 +1,210 @@
+package com.antovdv.centro_computo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationServiceTest {
+
+    private FakeSmtpServer smtp;
+    private NotificationService notifications;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        smtp = new FakeSmtpServer();
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        if (notifications != null) {
+            notifications.shutdown();
+        }
+        smtp.close();
+    }
+
+    private NotificationService newService(int queueSize, long retryBackoffMs) {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setPort(smtp.getPort());
+        // Ventana de resumen de 1 s y deduplicación de 1 h
+        return new NotificationService(Optional.of(sender), true, "ops@example.com", "monitor@example.com",
+                queueSize, 1, 3600, 3, retryBackoffMs);
+    }
+
+    private static Map<String, Object> alert(String rule, String status) {
+        Map<String, Object> alert = new HashMap<>();
+        alert.put("rule", rule);
+        alert.put("type", rule.toUpperCase());
+        alert.put("status", status);
+        alert.put("message", "Uso de " + rule + " alto");
+        alert.put("timestamp", "2026-01-01T00:00:00");
+        return alert;
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    void stormOfRepeatedAlertsProducesASingleDigest() throws Exception {
+        notifications = newService(1000, 10);
+        for (int i = 0; i < 50; i++) {
+            notifications.notify(alert("cpu", "FIRING"));
+        }
+        notifications.notify(alert("memory", "FIRING"));
+
+        waitFor(() -> smtp.messages.size() >= 1);
+        Thread.sleep(1500);
+        assertEquals(1, smtp.messages.size());
+        String message = smtp.messages.get(0);
+        assertTrue(message.contains("ops@example.com"));
+        assertTrue(message.contains("x50"));
+        assertTrue(message.contains("MEMORY"));
+
+        // Ya notificada: dentro de la ventana de deduplicación no se vuelve a enviar
+        notifications.notify(alert("cpu", "FIRING"));
+        Thread.sleep(1500);
+        assertEquals(1, smtp.messages.size());
+        assertEquals(50L, notifications.getStats().get("suppressed"));
+    }
+
+    @Test
+    void failedDeliveriesAreRetriedWithBackoff() throws Exception {
+        smtp.failuresLeft.set(2);
+        notifications = newService(1000, 50);
+        notifications.notify(alert("disk", "FIRING"));
+
+        waitFor(() -> smtp.messages.size() >= 1);
+        assertEquals(1, smtp.messages.size());
+        assertEquals(1L, notifications.getStats().get("sent"));
+        assertEquals(0L, notifications.getStats().get("failed"));
+    }
+
+    @Test
+    void unexpectedErrorInOneDigestDoesNotStopTheDispatcher() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        JavaMailSenderImpl sender = new JavaMailSenderImpl() {
+            @Override
+            public void send(SimpleMailMessage message) {
+                // El primer resumen falla con algo que no es MailException
+                if (calls.incrementAndGet() == 1) {
+                    throw new IllegalStateException("fallo inesperado");
+                }
+                super.send(message);
+            }
+        };
+        sender.setHost("localhost");
+        sender.setPort(smtp.getPort());
+        notifications = new NotificationService(Optional.of(sender), true, "ops@example.com", "monitor@example.com",
+                1000, 1, 3600, 3, 10);
+
+        notifications.notify(alert("cpu", "FIRING"));
+        waitFor(() -> (Long) notifications.getStats().get("failed") == 1L);
+        notifications.notify(alert("memory", "FIRING"));
+
+        waitFor(() -> smtp.messages.size() >= 1);
+        assertEquals(1, smtp.messages.size());
+        assertTrue(smtp.messages.get(0).contains("MEMORY"));
+        assertEquals(1L, notifications.getStats().get("failed"));
+    }
+
+    @Test
+    void notifyNeverBlocksWhenTheQueueIsFull() {
+        smtp.failuresLeft.set(Integer.MAX_VALUE);
+        notifications = newService(10, 1000);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) {
+            notifications.notify(alert("cpu" + i, "FIRING"));
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMs < 1000, "notify tardó " + elapsedMs + " ms");
+        assertTrue((Long) notifications.getStats().get("dropped") > 0);
+    }
+
+    /**
+     * Servidor SMTP mínimo en un puerto local: acepta cualquier mensaje y lo
+     * guarda, o responde 451 a MAIL FROM mientras queden fallos por simular
+     */
+    private static class FakeSmtpServer implements Closeable {
+        private final ServerSocket server = new ServerSocket(0);
+        private final List<String> messages = new CopyOnWriteArrayList<>();
+        private final AtomicInteger failuresLeft = new AtomicInteger();
+        private final Thread acceptor;
+
+        FakeSmtpServer() throws IOException {
+            acceptor = new Thread(() -> {
+                while (!server.isClosed()) {
+                    try (Socket socket = server.accept()) {
+                        handle(socket);
+                    } catch (IOException e) {
+                        // servidor cerrado o cliente desconectado
+                    }
+                }
+            }, "fake-smtp");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getPort() {
+            return server.getLocalPort();
+        }
+
+        private void handle(Socket socket) throws IOException {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            reply(out, "220 localhost ESMTP");
+
+            StringBuilder message = new StringBuilder();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.toUpperCase();
+                if (command.startsWith("MAIL FROM") && failuresLeft.getAndDecrement() > 0) {
+                    reply(out, "451 Temporary failure");
+                } else if (command.startsWith("RCPT TO")) {
+                    message.append(line).append('\n');
+                    reply(out, "250 OK");
+                } else if (command.equals("DATA")) {
+                    reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                    while ((line = in.readLine()) != null && !line.equals(".")) {
+                        message.append(line).append('\n');
+                    }
+                    messages.add(message.toString());
+                    message.setLength(0);
+                    reply(out, "250 OK");
+                } else if (command.equals("QUIT")) {
+                    reply(out, "221 Bye");
+                    return;
+                } else {
+                    reply(out, "250 OK");
+                }
+            }
+        }
+
+        private static void reply(Writer out, String line) throws IOException {
+            out.write(line + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.antovdv.centro_computo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+import oshi.SystemInfo;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Usa sh, sleep y trap: solo en sistemas POSIX
+@DisabledOnOs(OS.WINDOWS)
+class ProcessManagerServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<Process> spawned = new ArrayList<>();
+
+    private ProcessManagerService newService(int maxTargets) {
+        CommandAuditLog audit = new CommandAuditLog(false, dir.toString(), 1, 512, 365, 100, 1000, false);
+        SystemInfo systemInfo = new SystemInfo();
+        return new ProcessManagerService(systemInfo, new ProcessSnapshotService(systemInfo, 1000),
+                audit, 200, 2000, maxTargets);
+    }
+
+    private int spawn(String script) throws Exception {
+        Process process = new ProcessBuilder("sh", "-c", script).start();
+        spawned.add(process);
+        return (int) process.pid();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        for (Process process : spawned) {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> results(Map<String, Object> response) {
+        return (List<Map<String, Object>>) response.get("results");
+    }
+
+    @Test
+    void escalatesToForcedKillWhenTheProcessIgnoresTermination() throws Exception {
+        int polite = spawn("sleep 30");
+        int stubborn = spawn("trap '' TERM; while true; do sleep 0.1; done");
+        Thread.sleep(300);
+        ProcessManagerService service = newService(200);
+
+        Map<String, Object> gentle = service.killProcess(polite, "test", false, null);
+        assertEquals(true, gentle.get("success"));
+        assertEquals(false, gentle.get("forced"));
+        assertEquals("terminated", results(gentle).get(0).get("result"));
+
+        Map<String, Object> forced = service.killProcess(stubborn, "test", true, 100L);
+        assertEquals(true, forced.get("success"));
+        assertEquals(true, forced.get("forced"));
+        assertEquals("killed", results(forced).get(0).get("result"));
+        // Muerto o zombie (sin ejecutable) a la espera de que Java lo recoja
+        assertTrue(ProcessHandle.of(stubborn).map(h -> !h.isAlive() || h.info().command().isEmpty()).orElse(true));
+    }
+
+    @Test
+    void bulkKillReportsEachPidAndRespectsTheTargetLimit() throws Exception {
+        int first = spawn("sleep 30");
+        int second = spawn("sleep 30");
+        Thread.sleep(300);
+
+        Map<String, Object> rejected = newService(2).killProcesses(List.of(first, second, 999_999_999),
+                null, false, null, "test");
+        assertEquals(false, rejected.get("success"));
+        assertNull(rejected.get("results"));
+
+        Map<String, Object> response = newService(200).killProcesses(List.of(first, 999_999_999, 1, second),
+                null, false, 1000L, "test");
+        assertEquals(4, response.get("requested"));
+        assertEquals(2, response.get("terminated"));
+        assertEquals(false, response.get("success"));
+
+        List<Map<String, Object>> results = results(response);
+        assertEquals(4, results.size());
+        for (Map<String, Object> result : results) {
+            int pid = (Integer) result.get("pid");
+            String expected = pid == 999_999_999 ? "not_found" : pid == 1 ? "protected" : "terminated";
+            assertEquals(expected, result.get("result"), "pid " + pid);
+        }
+    }
+
+    @Test
+    void rejectsPatternsMadeOnlyOfWildcards() {
+        for (String pattern : List.of("*", "?*", " ** ")) {
+            Map<String, Object> response = newService(200).killProcesses(List.of(), pattern, false, null, "test");
+            assertEquals(false, response.get("success"), pattern);
+            assertNull(response.get("results"));
+        }
+        assertFalse(ProcessManagerService.isWildcardOnly("chrome*"));
+    }
+}
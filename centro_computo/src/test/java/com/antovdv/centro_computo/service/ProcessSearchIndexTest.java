@@ -0,0 +1,82 @@
+package com.antovdv.centro_computo.service;
+
+import org.junit.jupiter.api.Test;
+import oshi.software.os.OSProcess;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessSearchIndexTest {
+
+    // Solo responde a lo que lee el índice; el resto devuelve el valor por defecto
+    private static OSProcess process(int pid, long startTime, String name, String user, String commandLine) {
+        return (OSProcess) Proxy.newProxyInstance(OSProcess.class.getClassLoader(), new Class<?>[]{OSProcess.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getProcessID" -> pid;
+                    case "getStartTime" -> startTime;
+                    case "getName" -> name;
+                    case "getUser" -> user;
+                    case "getCommandLine" -> commandLine;
+                    case "getState" -> OSProcess.State.RUNNING;
+                    case "getResidentSetSize" -> 64L * 1024 * 1024;
+                    case "hashCode" -> pid;
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    private static ProcessSearchIndex index() {
+        ProcessSearchIndex index = new ProcessSearchIndex();
+        index.update(List.of(
+                process(7, 1, "python", "web", "python runjava.py"),
+                process(6, 1, "sh", "root", "sh -c /usr/bin/java -jar app.jar"),
+                process(5, 1, "bash", "java", "bash"),
+                process(4, 1, "myjavaapp", "root", "myjavaapp"),
+                process(3, 1, "run-java", "root", "run-java"),
+                process(2, 1, "javaws", "root", "javaws"),
+                process(1, 1, "java", "root", "java -Xmx1g"),
+                process(8, 1, "nginx", "www", "nginx -g daemon off;")), 1000);
+        return index;
+    }
+
+    private static List<Object> field(List<Map<String, Object>> results, String key) {
+        return results.stream().map(r -> r.get(key)).toList();
+    }
+
+    @Test
+    void ranksNameMatchesFirstThenUserThenCommandLine() {
+        List<Map<String, Object>> results = index().search("JAVA", 20);
+
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7), field(results, "pid"));
+        assertEquals(List.of(100, 80, 60, 50, 40, 20, 10), field(results, "score"));
+        assertEquals(List.of("name", "name", "name", "name", "user", "commandLine", "commandLine"),
+                field(results, "matchedOn"));
+        assertEquals(64L, results.get(0).get("memoryUsage"));
+
+        assertEquals(List.of(1, 2, 3), field(index().search("java", 3), "pid"));
+        assertTrue(index().search("kotlin", 20).isEmpty());
+    }
+
+    @Test
+    void shortQueriesScanWithoutTrigrams() {
+        assertEquals(List.of(6, 5), field(index().search("sh", 20), "pid"));
+    }
+
+    @Test
+    void reindexesRestartedProcessesAndDropsTheOnesThatExited() {
+        ProcessSearchIndex index = index();
+        // El PID 1 se reutiliza para otro programa y el resto termina salvo nginx
+        index.update(List.of(
+                process(1, 2, "node", "root", "node server.js"),
+                process(8, 1, "nginx", "www", "nginx -g daemon off;")), 2000);
+
+        assertTrue(index.search("java", 20).isEmpty());
+        assertEquals(List.of(1), field(index.search("node", 20), "pid"));
+        assertEquals(2, index.getStats().get("processes"));
+        assertEquals(9L, index.getStats().get("indexed"));
+        assertEquals(2000L, index.getLastUpdate());
+    }
+}
@@ -0,0 +1,34 @@
+package com.antovdv.centro_computo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionedCacheTest {
+
+    @Test
+    void keepsTheETagWhileUnchangedAndChangesItWithTheContent() {
+        AtomicInteger value = new AtomicInteger(1);
+        VersionedCache<Integer> cache = new VersionedCache<>(value::get, 0);
+
+        String first = cache.get().getETag();
+        assertEquals(first, cache.get().getETag());
+
+        value.set(2);
+        VersionedCache.Entry<Integer> changed = cache.get();
+        assertEquals(2, changed.getVersion());
+        assertNotEquals(first, changed.getETag());
+    }
+
+    @Test
+    void eTagFromThePreviousRunNeverMatchesAfterRestart() {
+        // Un reinicio es una instancia nueva: misma versión y mismo contenido
+        VersionedCache.Entry<String> before = new VersionedCache<>(() -> "datos", 1000).get();
+        VersionedCache.Entry<String> after = new VersionedCache<>(() -> "datos", 1000).get();
+
+        assertEquals(before.getVersion(), after.getVersion());
+        assertNotEquals(before.getETag(), after.getETag());
+    }
+}